@@ -0,0 +1,165 @@
+package com.exemplo.dashboardvendas.service;
+
+import com.exemplo.dashboardvendas.dto.DashboardResponse;
+import com.exemplo.dashboardvendas.dto.SerieGrafico;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trechos do VendaService que rodam em memória a cada montagem do dashboard, medidos sobre dados
+ * sintéticos de 1 mil, 100 mil e 1 milhão de linhas. Cada método processa o conjunto inteiro,
+ * então o tempo por operação é o da montagem completa para aquele volume.
+ *
+ * As linhas do gráfico imitam as duas origens: java.sql.Date (consultas nativas) e LocalDate
+ * (snapshot em memória). As datas se repetem a cada 3650 dias, como em um período de 10 anos
+ * agrupado por dia com várias filiais.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class VendaServiceBenchmark {
+
+    private static final int DIAS = 3650;
+    private static final String[] TIPOS_PERIODO = {"dia", "semana", "mes", "trimestre", "ano", null};
+
+    @Param({"1000", "100000", "1000000"})
+    private int linhas;
+
+    private List<Object[]> dadosGraficoBanco;
+    private List<Object[]> dadosGraficoSnapshot;
+    private LocalDate base;
+    private SerieGrafico.Construtor serieAgregada;
+    private LocalDate[] iniciosPeriodo;
+    private LocalDate[] finsPeriodo;
+    private String[] tiposPeriodo;
+    private BigDecimal[] valoresAnteriores;
+    private BigDecimal[] valoresAtuais;
+    private DashboardResponse resposta;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void preparar() {
+        SplittableRandom random = new SplittableRandom(42);
+        base = LocalDate.now().minusDays(DIAS);
+
+        dadosGraficoBanco = new ArrayList<>(linhas);
+        dadosGraficoSnapshot = new ArrayList<>(linhas);
+        for (int i = 0; i < linhas; i++) {
+            LocalDate dia = base.plusDays(i % DIAS);
+            BigDecimal valor = BigDecimal.valueOf(random.nextLong(1_000_000), 2);
+            dadosGraficoBanco.add(new Object[]{java.sql.Date.valueOf(dia), valor});
+            dadosGraficoSnapshot.add(new Object[]{dia, valor});
+        }
+        serieAgregada = novaSerie();
+        VendaService.processarDadosGrafico(dadosGraficoSnapshot, serieAgregada);
+
+        iniciosPeriodo = new LocalDate[linhas];
+        finsPeriodo = new LocalDate[linhas];
+        tiposPeriodo = new String[linhas];
+        valoresAnteriores = new BigDecimal[linhas];
+        valoresAtuais = new BigDecimal[linhas];
+        for (int i = 0; i < linhas; i++) {
+            LocalDate inicio = base.plusDays(random.nextInt(DIAS));
+            iniciosPeriodo[i] = inicio;
+            finsPeriodo[i] = inicio.plusDays(random.nextInt(366));
+            tiposPeriodo[i] = TIPOS_PERIODO[i % TIPOS_PERIODO.length];
+            // Um em cada dez com anterior zerado, caminho especial da variação
+            valoresAnteriores[i] = i % 10 == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(random.nextLong(1_000_000_000), 2);
+            valoresAtuais[i] = BigDecimal.valueOf(random.nextLong(1_000_000_000), 2);
+        }
+
+        resposta = montarResposta(random);
+        // Mesmos módulos que o Spring Boot registra no ObjectMapper da aplicação
+        objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    private SerieGrafico.Construtor novaSerie() {
+        return new SerieGrafico.Construtor(base, base.plusDays(DIAS - 1), false);
+    }
+
+    // Resposta com a série diária do período e um vendedor a cada 100 linhas no ranking
+    private DashboardResponse montarResposta(SplittableRandom random) {
+        List<Map<String, Object>> ranking = new ArrayList<>();
+        List<String> vendedores = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, linhas / 100); i++) {
+            String nome = "VENDEDOR " + i;
+            Map<String, Object> vendedor = new HashMap<>();
+            vendedor.put("nome", nome);
+            vendedor.put("total", BigDecimal.valueOf(random.nextLong(1_000_000_000), 2));
+            vendedor.put("variacao", random.nextDouble(-100, 100));
+            ranking.add(vendedor);
+            vendedores.add(nome);
+        }
+
+        List<String> filiais = List.of("FILIAL 1", "FILIAL 2", "FILIAL 3", "FILIAL 4", "FILIAL 5");
+        DashboardResponse.MaxResponse max = new DashboardResponse.MaxResponse(
+            BigDecimal.valueOf(999999, 2), "CLIENTE", "VENDEDOR 0", "VENDEDOR 0",
+            BigDecimal.valueOf(123456789, 2), "FILIAL 1", BigDecimal.valueOf(987654321, 2));
+        DashboardResponse dados = new DashboardResponse(BigDecimal.valueOf(123456789, 2), (long) linhas,
+            BigDecimal.valueOf(12345, 2), max, serieAgregada.construir(),
+            ranking, filiais, vendedores);
+        dados.setComparison(new DashboardResponse.ComparisonData(12.5, -3.2, 8.0));
+        Map<String, BigDecimal> metas = new HashMap<>();
+        filiais.forEach(filial -> metas.put(filial, BigDecimal.valueOf(50000000, 2)));
+        dados.setMetas(metas);
+        return dados;
+    }
+
+    @Benchmark
+    public SerieGrafico.Construtor processarDadosGraficoBanco() {
+        SerieGrafico.Construtor serie = novaSerie();
+        VendaService.processarDadosGrafico(dadosGraficoBanco, serie);
+        return serie;
+    }
+
+    @Benchmark
+    public SerieGrafico.Construtor processarDadosGraficoSnapshot() {
+        SerieGrafico.Construtor serie = novaSerie();
+        VendaService.processarDadosGrafico(dadosGraficoSnapshot, serie);
+        return serie;
+    }
+
+    // Substitui converterMapaParaListaAleatoria: a série já está em ordem, falta só o array de saída
+    @Benchmark
+    public SerieGrafico construirSerie() {
+        return serieAgregada.construir();
+    }
+
+    @Benchmark
+    public void calcularPeriodoAnterior(Blackhole blackhole) {
+        for (int i = 0; i < linhas; i++) {
+            blackhole.consume(VendaService.calcularPeriodoAnterior(iniciosPeriodo[i], finsPeriodo[i], tiposPeriodo[i]));
+        }
+    }
+
+    @Benchmark
+    public void calcularVariacaoPercentual(Blackhole blackhole) {
+        for (int i = 0; i < linhas; i++) {
+            blackhole.consume(VendaService.calcularVariacaoPercentual(valoresAnteriores[i], valoresAtuais[i]));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializarDashboardResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(resposta);
+    }
+}
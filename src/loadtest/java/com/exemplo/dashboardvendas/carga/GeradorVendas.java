@@ -0,0 +1,219 @@
+package com.exemplo.dashboardvendas.carga;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+
+/**
+ * Preenche financeiro_clientes e financeiro_pagamentos com vendas sintéticas, via COPY, com as
+ * distribuições que pesam nas consultas do dashboard:
+ * - filiais do /regional com pesos diferentes (Jaraguá do Sul concentra a maior parte);
+ * - vendedores por filial com distribuição de Zipf (poucos vendedores fazem a maioria das vendas);
+ * - sazonalidade diária: domingo quase sem vendas, sábado reduzido e pico nos últimos dias do mês
+ *   (fechamento), com crescimento ao longo dos anos;
+ * - valores log-normais e cerca de 12% das vendas sem pagamento (fora de todos os totais).
+ *
+ * A semente é fixa, então a mesma quantidade de linhas gera sempre a mesma massa.
+ */
+public class GeradorVendas {
+    private static final Logger logger = LoggerFactory.getLogger(GeradorVendas.class);
+
+    private static final String[] FILIAIS = {
+        "Jaraguá do Sul", "Sorriso", "Sinop", "Lucas do Rio Verde", "Nova Mutum", "Matupá"
+    };
+    private static final double[] PESOS_FILIAIS = {0.38, 0.17, 0.15, 0.12, 0.10, 0.08};
+    private static final int VENDEDORES_POR_FILIAL = 40;
+    private static final double EXPOENTE_ZIPF = 1.1;
+    private static final double PROPORCAO_SEM_PAGAMENTO = 0.12;
+    private static final double PROPORCAO_SEM_VENDEDOR = 0.03;
+    private static final String[] FORMAS_PAGAMENTO = {"PIX", "BOLETO", "CARTAO", "DINHEIRO"};
+
+    // Linhas por chamada de writeToCopy
+    private static final int LOTE_COPY = 1 << 20;
+
+    private final DataSource dataSource;
+    private final SplittableRandom random = new SplittableRandom(20240131L);
+
+    public GeradorVendas(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Cria as tabelas de origem (no banco real elas vêm do sistema de vendas, fora das migrações)
+     * e gera a quantidade de vendas informada, distribuída entre inicio e fim
+     */
+    public void gerar(long linhas, LocalDate inicio, LocalDate fim) throws SQLException {
+        long comeco = System.currentTimeMillis();
+        try (Connection conexao = dataSource.getConnection()) {
+            criarTabelas(conexao);
+
+            double[] pesosDias = pesosDias(inicio, fim);
+            double[] acumuladoDias = acumular(pesosDias);
+            double[] acumuladoFiliais = acumular(PESOS_FILIAIS);
+            double[] acumuladoVendedores = acumular(pesosZipf(VENDEDORES_POR_FILIAL));
+
+            CopyIn clientes = ((PGConnection) conexao.unwrap(PGConnection.class)).getCopyAPI().copyIn(
+                "COPY financeiro_clientes (id, nome, data, filial, valor_debito, valor_pago, data_cadastro, " +
+                "vendedor, forma_pagamento) FROM STDIN WITH (FORMAT csv)");
+            // Vendedor vazio no CSV sem aspas vira NULL, como as vendas sem vendedor do banco real
+            StringBuilder lote = new StringBuilder(LOTE_COPY);
+            for (long id = 1; id <= linhas; id++) {
+                LocalDate dia = inicio.plusDays(sortear(acumuladoDias));
+                int filial = sortear(acumuladoFiliais);
+                String vendedor = random.nextDouble() < PROPORCAO_SEM_VENDEDOR ? "" :
+                    "Vendedor " + (filial + 1) + "-" + (sortear(acumuladoVendedores) + 1);
+                long centavos = valorCentavos();
+                LocalDateTime cadastro = dia.atTime(8 + random.nextInt(11), random.nextInt(60), random.nextInt(60));
+
+                lote.append(id).append(",Cliente ").append(id).append(',').append(dia).append(",\"")
+                    .append(FILIAIS[filial]).append("\",").append(decimal(centavos)).append(",0.00,")
+                    .append(cadastro).append(',').append(vendedor).append(',')
+                    .append(FORMAS_PAGAMENTO[random.nextInt(FORMAS_PAGAMENTO.length)]).append('\n');
+                if (lote.length() >= LOTE_COPY) {
+                    escrever(clientes, lote);
+                }
+                if (id % 1_000_000 == 0) {
+                    logger.info("{} de {} vendas geradas", id, linhas);
+                }
+            }
+            escrever(clientes, lote);
+            clientes.endCopy();
+
+            long pagamentos = gerarPagamentos(conexao, linhas);
+
+            try (Statement statement = conexao.createStatement()) {
+                statement.execute("SELECT setval(pg_get_serial_sequence('financeiro_clientes', 'id'), " + Math.max(1, linhas) + ")");
+                statement.execute("SELECT setval(pg_get_serial_sequence('financeiro_pagamentos', 'id'), " + Math.max(1, pagamentos) + ")");
+                statement.execute("ANALYZE financeiro_clientes");
+                statement.execute("ANALYZE financeiro_pagamentos");
+            }
+            logger.info("Massa gerada: {} vendas e {} pagamentos entre {} e {} em {} s",
+                linhas, pagamentos, inicio, fim, (System.currentTimeMillis() - comeco) / 1000);
+        }
+    }
+
+    private void criarTabelas(Connection conexao) throws SQLException {
+        try (Statement statement = conexao.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS financeiro_pagamentos, financeiro_clientes CASCADE");
+            statement.execute("CREATE TABLE financeiro_clientes (" +
+                "id BIGSERIAL PRIMARY KEY, nome VARCHAR(255) NOT NULL, data DATE, email VARCHAR(255), " +
+                "telefone VARCHAR(50), cpf_cnpj VARCHAR(20), filial VARCHAR(100) NOT NULL, " +
+                "valor_debito NUMERIC(12,2) NOT NULL, valor_pago NUMERIC(12,2) NOT NULL, " +
+                "data_cadastro TIMESTAMP NOT NULL, vendedor VARCHAR(255), observacao TEXT, " +
+                "forma_pagamento VARCHAR(50))");
+            statement.execute("CREATE TABLE financeiro_pagamentos (" +
+                "id BIGSERIAL PRIMARY KEY, cliente_id BIGINT NOT NULL, valor NUMERIC(12,2) NOT NULL, " +
+                "forma_pagamento VARCHAR(50) NOT NULL, data_pagamento TIMESTAMP NOT NULL, observacao TEXT)");
+        }
+    }
+
+    // Uma a três parcelas para cada venda paga, sem olhar de novo para financeiro_clientes
+    private long gerarPagamentos(Connection conexao, long linhas) throws SQLException {
+        CopyIn copy = ((PGConnection) conexao.unwrap(PGConnection.class)).getCopyAPI().copyIn(
+            "COPY financeiro_pagamentos (id, cliente_id, valor, forma_pagamento, data_pagamento) " +
+            "FROM STDIN WITH (FORMAT csv)");
+        StringBuilder lote = new StringBuilder(LOTE_COPY);
+        LocalDateTime base = LocalDate.now().atStartOfDay();
+        long id = 0;
+        for (long cliente = 1; cliente <= linhas; cliente++) {
+            if (random.nextDouble() < PROPORCAO_SEM_PAGAMENTO) {
+                continue;
+            }
+            int parcelas = 1 + (random.nextDouble() < 0.2 ? 1 + random.nextInt(2) : 0);
+            for (int p = 0; p < parcelas; p++) {
+                lote.append(++id).append(',').append(cliente).append(',')
+                    .append(decimal(valorCentavos() / parcelas)).append(',')
+                    .append(FORMAS_PAGAMENTO[random.nextInt(FORMAS_PAGAMENTO.length)]).append(',')
+                    .append(base.minusMinutes(random.nextInt(525_600))).append('\n');
+            }
+            if (lote.length() >= LOTE_COPY) {
+                escrever(copy, lote);
+            }
+        }
+        escrever(copy, lote);
+        copy.endCopy();
+        return id;
+    }
+
+    // Peso de cada dia do período: dia da semana, fechamento do mês e crescimento de 15% ao ano
+    private static double[] pesosDias(LocalDate inicio, LocalDate fim) {
+        int dias = (int) (fim.toEpochDay() - inicio.toEpochDay()) + 1;
+        double[] pesos = new double[dias];
+        for (int i = 0; i < dias; i++) {
+            LocalDate dia = inicio.plusDays(i);
+            double peso = dia.getDayOfWeek() == DayOfWeek.SUNDAY ? 0.05 :
+                dia.getDayOfWeek() == DayOfWeek.SATURDAY ? 0.5 : 1.0;
+            if (dia.getDayOfMonth() > dia.lengthOfMonth() - 3) {
+                peso *= 2.5;
+            }
+            pesos[i] = peso * Math.pow(1.15, i / 365.0);
+        }
+        return pesos;
+    }
+
+    private static double[] pesosZipf(int quantidade) {
+        double[] pesos = new double[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            pesos[i] = 1.0 / Math.pow(i + 1, EXPOENTE_ZIPF);
+        }
+        return pesos;
+    }
+
+    // Distribuição acumulada normalizada, para sortear por busca binária
+    private static double[] acumular(double[] pesos) {
+        double[] acumulado = new double[pesos.length];
+        double soma = 0;
+        for (int i = 0; i < pesos.length; i++) {
+            soma += pesos[i];
+            acumulado[i] = soma;
+        }
+        for (int i = 0; i < acumulado.length; i++) {
+            acumulado[i] /= soma;
+        }
+        return acumulado;
+    }
+
+    private int sortear(double[] acumulado) {
+        double alvo = random.nextDouble();
+        int baixo = 0;
+        int alto = acumulado.length - 1;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (acumulado[meio] < alvo) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+
+    // Log-normal com mediana em torno de R$ 450 e cauda de vendas grandes
+    private long valorCentavos() {
+        double normal = Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+        return Math.max(1000, Math.min(50_000_000, Math.round(Math.exp(Math.log(45_000) + 0.9 * normal))));
+    }
+
+    private static String decimal(long centavos) {
+        return (centavos / 100) + "." + (centavos % 100 < 10 ? "0" : "") + (centavos % 100);
+    }
+
+    private static void escrever(CopyIn copy, StringBuilder lote) throws SQLException {
+        if (lote.length() > 0) {
+            byte[] bytes = lote.toString().getBytes(StandardCharsets.UTF_8);
+            copy.writeToCopy(bytes, 0, bytes.length);
+            lote.setLength(0);
+        }
+    }
+}
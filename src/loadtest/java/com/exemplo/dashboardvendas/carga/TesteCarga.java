@@ -0,0 +1,340 @@
+package com.exemplo.dashboardvendas.carga;
+
+import com.exemplo.dashboardvendas.DashboardVendasApplication;
+import com.exemplo.dashboardvendas.service.CatalogoDimensoesService;
+import com.exemplo.dashboardvendas.service.SnapshotVendasService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Teste de carga de ponta a ponta em uma única máquina: sobe um PostgreSQL embutido, gera a massa
+ * com o GeradorVendas, inicia a aplicação completa (migrações, snapshot, consolidado, catálogo) e
+ * dispara usuários simultâneos contra /api/dashboard com duas misturas:
+ * - dashboard: um período predefinido da tela principal (dia, semana, mês, mês passado, trimestre,
+ *   ano), com todas as filiais, uma filial ou algumas, e às vezes um vendedor;
+ * - regional: o ciclo de polling do /regional, uma requisição por grupo de filiais do mês atual.
+ *
+ * Ao final imprime p50, p99 e vazão por tipoPeriodo. Os parâmetros vêm das propriedades de sistema
+ * carga.* (o task testeCarga do Gradle repassa -Plinhas, -Pusuarios etc.).
+ */
+public class TesteCarga {
+    private static final Logger logger = LoggerFactory.getLogger(TesteCarga.class);
+
+    private static final String USUARIO = "solturi";
+    private static final String SENHA = "@User123#";
+    private static final Pattern CSRF = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+
+    private static final String[] FILIAIS = {
+        "Jaraguá do Sul", "Sorriso", "Sinop", "Lucas do Rio Verde", "Nova Mutum", "Matupá"
+    };
+    private static final String[] PERIODOS = {"dia", "semana", "mes", "mes-passado", "trimestre", "ano"};
+    // Mesmos grupos de GRUPOS_DADOS em dashboard-regional.js
+    private static final List<List<String>> GRUPOS_REGIONAL = List.of(
+        List.of("Jaraguá do Sul"),
+        List.of("Matupá", "Sorriso", "Lucas do Rio Verde", "Sinop", "Nova Mutum"),
+        List.of("Matupá"), List.of("Sorriso"), List.of("Lucas do Rio Verde"), List.of("Sinop"), List.of("Nova Mutum"),
+        List.of("Jaraguá do Sul", "Matupá", "Sorriso", "Lucas do Rio Verde", "Sinop", "Nova Mutum"));
+
+    private final long linhas = Long.getLong("carga.linhas", 5_000_000L);
+    private final int usuarios = Integer.getInteger("carga.usuarios", 50);
+    private final int duracaoSegundos = Integer.getInteger("carga.duracao", 120);
+    private final int aquecimentoSegundos = Integer.getInteger("carga.aquecimento", 30);
+    private final double proporcaoRegional = Double.parseDouble(System.getProperty("carga.proporcaoRegional", "0.3"));
+    private final long pausaMs = Long.getLong("carga.pausaMs", 0L);
+    private final String diretorio = System.getProperty("carga.diretorio");
+
+    private final Map<String, Medicoes> medicoes = new TreeMap<>();
+    private HttpClient cliente;
+    private String baseUrl;
+
+    public static void main(String[] args) throws Exception {
+        new TesteCarga().executar();
+    }
+
+    private void executar() throws Exception {
+        EmbeddedPostgres.Builder builder = EmbeddedPostgres.builder()
+            .setServerConfig("shared_buffers", "1GB")
+            .setServerConfig("work_mem", "64MB")
+            .setServerConfig("max_wal_size", "8GB")
+            .setServerConfig("synchronous_commit", "off");
+        if (diretorio != null) {
+            Path dados = Path.of(diretorio);
+            Files.createDirectories(dados);
+            builder.setDataDirectory(dados).setCleanDataDirectory(true);
+        }
+
+        try (EmbeddedPostgres postgres = builder.start()) {
+            LocalDate hoje = LocalDate.now();
+            new GeradorVendas(postgres.getPostgresDatabase()).gerar(linhas, hoje.minusYears(4).withDayOfYear(1), hoje);
+
+            ConfigurableApplicationContext contexto = SpringApplication.run(DashboardVendasApplication.class,
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.org.hibernate.SQL=warn");
+            try {
+                int porta = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+                baseUrl = "http://localhost:" + porta;
+                aguardarCargas(contexto);
+
+                cliente = HttpClient.newBuilder()
+                    .cookieHandler(new CookieManager())
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .executor(Executors.newFixedThreadPool(Math.max(4, usuarios / 4)))
+                    .build();
+                autenticar(cliente, baseUrl);
+
+                logger.info("Aquecimento: {} usuários por {} s", usuarios, aquecimentoSegundos);
+                rodar(aquecimentoSegundos, false);
+                logger.info("Medição: {} usuários por {} s ({}% regional)", usuarios, duracaoSegundos,
+                    Math.round(proporcaoRegional * 100));
+                rodar(duracaoSegundos, true);
+                imprimirRelatorio();
+            } finally {
+                contexto.close();
+            }
+        }
+    }
+
+    // O tempo de carga do snapshot e do catálogo não entra na medição
+    private void aguardarCargas(ConfigurableApplicationContext contexto) throws InterruptedException {
+        SnapshotVendasService snapshot = contexto.getBean(SnapshotVendasService.class);
+        CatalogoDimensoesService catalogo = contexto.getBean(CatalogoDimensoesService.class);
+        boolean usaSnapshot = contexto.getEnvironment().getProperty("dashboard.snapshot.enabled", Boolean.class, true);
+        boolean usaCatalogo = contexto.getEnvironment().getProperty("dashboard.catalogo.enabled", Boolean.class, true);
+        LocalDate inicioAno = LocalDate.now().withDayOfYear(1);
+        long limite = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(30);
+        while ((usaSnapshot && snapshot.obterSnapshot(inicioAno) == null)
+                || (usaCatalogo && catalogo.obterCatalogo() == null)) {
+            if (System.currentTimeMillis() > limite) {
+                throw new IllegalStateException("Snapshot ou catálogo não carregou em 30 minutos");
+            }
+            Thread.sleep(1000);
+        }
+    }
+
+    // Login pelo formulário, com o token CSRF da página; a sessão fica no CookieManager do cliente
+    static void autenticar(HttpClient cliente, String baseUrl) throws IOException, InterruptedException {
+        HttpResponse<String> pagina = cliente.send(HttpRequest.newBuilder(URI.create(baseUrl + "/login")).build(),
+            HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = CSRF.matcher(pagina.body());
+        if (!matcher.find()) {
+            throw new IllegalStateException("Token CSRF não encontrado em /login");
+        }
+        String formulario = "username=" + codificar(USUARIO) + "&password=" + codificar(SENHA) +
+            "&_csrf=" + codificar(matcher.group(1));
+        HttpResponse<Void> login = cliente.send(HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(formulario))
+                .build(),
+            HttpResponse.BodyHandlers.discarding());
+        String destino = login.headers().firstValue("Location").orElse("");
+        if (login.statusCode() != 302 || destino.contains("error")) {
+            throw new IllegalStateException("Login falhou: " + login.statusCode() + " " + destino);
+        }
+    }
+
+    private void rodar(int segundos, boolean medir) throws InterruptedException {
+        long fim = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+        ExecutorService threads = Executors.newFixedThreadPool(usuarios);
+        for (int u = 0; u < usuarios; u++) {
+            SplittableRandom random = new SplittableRandom(u);
+            threads.execute(() -> {
+                while (System.nanoTime() < fim) {
+                    if (random.nextDouble() < proporcaoRegional) {
+                        cicloRegional(medir);
+                    } else {
+                        consultaDashboard(random, medir);
+                    }
+                    if (pausaMs > 0) {
+                        try {
+                            Thread.sleep(pausaMs);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+            });
+        }
+        threads.shutdown();
+        threads.awaitTermination(segundos + 120L, TimeUnit.SECONDS);
+    }
+
+    private void consultaDashboard(SplittableRandom random, boolean medir) {
+        String periodo = PERIODOS[random.nextInt(PERIODOS.length)];
+        LocalDate[] datas = datasPredefinidas(periodo, LocalDate.now());
+        Map<String, List<String>> params = new HashMap<>();
+        params.put("dataInicio", List.of(datas[0].toString()));
+        params.put("dataFim", List.of(datas[1].toString()));
+        params.put("tipoPeriodo", List.of(periodo));
+        if (periodo.equals("ano") || periodo.equals("trimestre")) {
+            params.put("agruparPorMes", List.of("true"));
+        }
+
+        // Metade com todas as filiais, um terço com uma filial, o resto com algumas
+        double selecao = random.nextDouble();
+        if (selecao >= 0.5) {
+            List<String> filiais = new ArrayList<>(Arrays.asList(FILIAIS));
+            int quantidade = selecao < 0.83 ? 1 : 2 + random.nextInt(3);
+            for (int i = filiais.size() - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                String troca = filiais.get(i);
+                filiais.set(i, filiais.get(j));
+                filiais.set(j, troca);
+            }
+            params.put("filial", filiais.subList(0, quantidade));
+            if (random.nextDouble() < 0.1) {
+                params.put("vendedor", List.of("Vendedor " + (Arrays.asList(FILIAIS).indexOf(filiais.get(0)) + 1) + "-1"));
+            }
+        }
+        requisitar(periodo, params, medir);
+    }
+
+    private void cicloRegional(boolean medir) {
+        LocalDate hoje = LocalDate.now();
+        for (List<String> grupo : GRUPOS_REGIONAL) {
+            Map<String, List<String>> params = new HashMap<>();
+            params.put("dataInicio", List.of(hoje.withDayOfMonth(1).toString()));
+            params.put("dataFim", List.of(hoje.withDayOfMonth(hoje.lengthOfMonth()).toString()));
+            params.put("tipoPeriodo", List.of("personalizado"));
+            params.put("filial", grupo);
+            requisitar("regional", params, medir);
+        }
+    }
+
+    private void requisitar(String chave, Map<String, List<String>> params, boolean medir) {
+        StringBuilder url = new StringBuilder(baseUrl).append("/api/dashboard?");
+        params.forEach((nome, valores) -> valores.forEach(valor ->
+            url.append(nome).append('=').append(codificar(valor)).append('&')));
+
+        long inicio = System.nanoTime();
+        boolean ok;
+        try {
+            HttpResponse<byte[]> resposta = cliente.send(HttpRequest.newBuilder(URI.create(url.toString()))
+                    .timeout(Duration.ofSeconds(60)).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+            ok = resposta.statusCode() == 200;
+        } catch (IOException e) {
+            ok = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (medir) {
+            medicoesDe(chave).registrar(System.nanoTime() - inicio, ok);
+        }
+    }
+
+    private synchronized Medicoes medicoesDe(String chave) {
+        return medicoes.computeIfAbsent(chave, k -> new Medicoes());
+    }
+
+    // Mesmas datas de definirPeriodoPredefinido em dashboard.js
+    static LocalDate[] datasPredefinidas(String periodo, LocalDate hoje) {
+        switch (periodo) {
+            case "semana":
+                return new LocalDate[]{hoje.minusDays(hoje.getDayOfWeek().getValue() - 1), hoje};
+            case "mes":
+                return new LocalDate[]{hoje.withDayOfMonth(1), hoje.withDayOfMonth(hoje.lengthOfMonth())};
+            case "mes-passado":
+                LocalDate mesPassado = hoje.minusMonths(1);
+                return new LocalDate[]{mesPassado.withDayOfMonth(1), mesPassado.withDayOfMonth(mesPassado.lengthOfMonth())};
+            case "trimestre":
+                LocalDate inicioTrimestre = hoje.withMonth((hoje.getMonthValue() - 1) / 3 * 3 + 1).withDayOfMonth(1);
+                return new LocalDate[]{inicioTrimestre, inicioTrimestre.plusMonths(3).minusDays(1)};
+            case "ano":
+                return new LocalDate[]{hoje.withDayOfYear(1), hoje.withDayOfYear(hoje.lengthOfYear())};
+            default:
+                return new LocalDate[]{hoje, hoje};
+        }
+    }
+
+    private void imprimirRelatorio() {
+        StringBuilder relatorio = new StringBuilder("\n")
+            .append(String.format("%-14s %10s %8s %10s %10s %10s %10s%n",
+                "tipoPeriodo", "requisições", "erros", "p50 (ms)", "p99 (ms)", "máx (ms)", "req/s"));
+        long total = 0;
+        synchronized (this) {
+            for (Map.Entry<String, Medicoes> entrada : medicoes.entrySet()) {
+                Medicoes m = entrada.getValue();
+                long[] tempos = m.ordenados();
+                total += tempos.length;
+                relatorio.append(String.format("%-14s %10d %8d %10.1f %10.1f %10.1f %10.1f%n",
+                    entrada.getKey(), tempos.length, m.erros(), percentil(tempos, 0.50), percentil(tempos, 0.99),
+                    tempos.length > 0 ? tempos[tempos.length - 1] / 1e6 : 0.0, tempos.length / (double) duracaoSegundos));
+            }
+        }
+        relatorio.append(String.format("Total: %d requisições, %.1f req/s com %d usuários e %d vendas%n",
+            total, total / (double) duracaoSegundos, usuarios, linhas));
+        System.out.println(relatorio);
+    }
+
+    private static double percentil(long[] ordenados, double p) {
+        if (ordenados.length == 0) {
+            return 0.0;
+        }
+        int indice = (int) Math.ceil(p * ordenados.length) - 1;
+        return ordenados[Math.max(0, indice)] / 1e6;
+    }
+
+    private static String codificar(String valor) {
+        return URLEncoder.encode(valor, StandardCharsets.UTF_8);
+    }
+
+    private static class Medicoes {
+        private long[] tempos = new long[1024];
+        private int quantidade;
+        private long erros;
+
+        synchronized void registrar(long nanos, boolean ok) {
+            if (!ok) {
+                erros++;
+            }
+            if (quantidade == tempos.length) {
+                tempos = Arrays.copyOf(tempos, quantidade * 2);
+            }
+            tempos[quantidade++] = nanos;
+        }
+
+        synchronized long[] ordenados() {
+            long[] copia = Arrays.copyOf(tempos, quantidade);
+            Arrays.sort(copia);
+            return copia;
+        }
+
+        synchronized long erros() {
+            return erros;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.exemplo.dashboardvendas.carga;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tempo de inicialização da aplicação: sobe um PostgreSQL embutido com uma massa pequena e, a cada
+ * rodada, inicia a aplicação em um processo novo e mede, a partir do início do processo:
+ * - login: primeira resposta do /login (servidor aceitando requisições);
+ * - dashboard: primeiro /api/dashboard do mês atual com status 200, que já passa pelo banco.
+ *
+ * O comando vem de carga.comando (separado por espaços; as opções do banco e da porta são acrescentadas
+ * ao fim como argumentos da aplicação), ou é java -jar com o bootJar de carga.jar. Assim o mesmo teste
+ * compara o jar padrão com a imagem de inicialização rápida (AOT e CDS). Ao final imprime mínimo,
+ * mediana e máximo de cada medida.
+ */
+public class TesteInicializacao {
+    private static final Logger logger = LoggerFactory.getLogger(TesteInicializacao.class);
+
+    private final long linhas = Long.getLong("carga.linhas", 200_000L);
+    private final int rodadas = Integer.getInteger("carga.rodadas", 5);
+    private final int prazoSegundos = Integer.getInteger("carga.prazo", 180);
+    private final String comando = System.getProperty("carga.comando");
+    private final String jar = System.getProperty("carga.jar");
+    private final String diretorio = System.getProperty("carga.diretorio");
+
+    public static void main(String[] args) throws Exception {
+        new TesteInicializacao().executar();
+    }
+
+    private void executar() throws Exception {
+        EmbeddedPostgres.Builder builder = EmbeddedPostgres.builder();
+        if (diretorio != null) {
+            Path dados = Path.of(diretorio);
+            Files.createDirectories(dados);
+            builder.setDataDirectory(dados).setCleanDataDirectory(true);
+        }
+
+        try (EmbeddedPostgres postgres = builder.start()) {
+            LocalDate hoje = LocalDate.now();
+            new GeradorVendas(postgres.getPostgresDatabase()).gerar(linhas, hoje.minusYears(4).withDayOfYear(1), hoje);
+
+            long[] login = new long[rodadas];
+            long[] dashboard = new long[rodadas];
+            for (int rodada = 0; rodada < rodadas; rodada++) {
+                long[] tempos = medir(postgres.getJdbcUrl("postgres", "postgres"));
+                login[rodada] = tempos[0];
+                dashboard[rodada] = tempos[1];
+                logger.info("Rodada {}: login em {} ms, dashboard em {} ms", rodada + 1,
+                    tempos[0] / 1_000_000, tempos[1] / 1_000_000);
+            }
+            imprimirRelatorio(login, dashboard);
+        }
+    }
+
+    // Tempos (ns) até a primeira resposta do /login e até o primeiro dashboard com sucesso
+    private long[] medir(String urlBanco) throws IOException, InterruptedException {
+        int porta = portaLivre();
+        String baseUrl = "http://localhost:" + porta;
+        Path log = Files.createTempFile("inicializacao-", ".log");
+        ProcessBuilder processo = new ProcessBuilder(linhaDeComando(urlBanco, porta))
+            .redirectErrorStream(true)
+            .redirectOutput(log.toFile());
+
+        long inicio = System.nanoTime();
+        long prazo = inicio + TimeUnit.SECONDS.toNanos(prazoSegundos);
+        Process aplicacao = processo.start();
+        try {
+            HttpClient cliente = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+
+            long login = -1;
+            while (login < 0) {
+                verificarAndamento(aplicacao, prazo, log);
+                try {
+                    TesteCarga.autenticar(cliente, baseUrl);
+                    login = System.nanoTime() - inicio;
+                } catch (IOException | IllegalStateException e) {
+                    Thread.sleep(20);
+                }
+            }
+
+            LocalDate[] mes = TesteCarga.datasPredefinidas("mes", LocalDate.now());
+            URI url = URI.create(baseUrl + "/api/dashboard?dataInicio=" + mes[0] + "&dataFim=" + mes[1]
+                + "&tipoPeriodo=mes");
+            while (true) {
+                verificarAndamento(aplicacao, prazo, log);
+                try {
+                    HttpResponse<Void> resposta = cliente.send(HttpRequest.newBuilder(url)
+                            .timeout(Duration.ofSeconds(30)).build(),
+                        HttpResponse.BodyHandlers.discarding());
+                    if (resposta.statusCode() == 200) {
+                        Files.deleteIfExists(log);
+                        return new long[]{login, System.nanoTime() - inicio};
+                    }
+                } catch (IOException e) {
+                    // Servidor ainda não respondeu; tenta de novo
+                }
+                Thread.sleep(20);
+            }
+        } finally {
+            aplicacao.destroy();
+            if (!aplicacao.waitFor(30, TimeUnit.SECONDS)) {
+                aplicacao.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private List<String> linhaDeComando(String urlBanco, int porta) {
+        List<String> linha = new ArrayList<>();
+        if (comando != null && !comando.isBlank()) {
+            linha.addAll(Arrays.asList(comando.trim().split("\\s+")));
+        } else {
+            if (jar == null) {
+                throw new IllegalStateException("Informe carga.comando ou carga.jar");
+            }
+            linha.addAll(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(), "-jar", jar));
+        }
+        // Resultados fechados desligados para cada rodada partir do mesmo estado
+        linha.addAll(List.of(
+            "--spring.datasource.url=" + urlBanco,
+            "--spring.datasource.username=postgres",
+            "--spring.datasource.password=postgres",
+            "--server.port=" + porta,
+            "--spring.jpa.show-sql=false",
+            "--dashboard.fechados.enabled=false"));
+        return linha;
+    }
+
+    private static void verificarAndamento(Process aplicacao, long prazo, Path log) {
+        if (!aplicacao.isAlive()) {
+            throw new IllegalStateException("A aplicação encerrou com código " + aplicacao.exitValue()
+                + " antes do primeiro dashboard; saída em " + log);
+        }
+        if (System.nanoTime() > prazo) {
+            throw new IllegalStateException("Dashboard sem sucesso dentro do prazo; saída em " + log);
+        }
+    }
+
+    private static int portaLivre() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private void imprimirRelatorio(long[] login, long[] dashboard) {
+        String comandoUsado = comando != null && !comando.isBlank() ? comando : "java -jar " + jar;
+        StringBuilder relatorio = new StringBuilder("\n")
+            .append(String.format("%s (%d rodadas, %d vendas)%n", comandoUsado, rodadas, linhas))
+            .append(String.format("%-10s %10s %10s %10s%n", "medida", "mín (ms)", "mediana", "máx (ms)"));
+        linhaRelatorio(relatorio, "login", login);
+        linhaRelatorio(relatorio, "dashboard", dashboard);
+        System.out.println(relatorio);
+    }
+
+    private static void linhaRelatorio(StringBuilder relatorio, String medida, long[] tempos) {
+        long[] ordenados = tempos.clone();
+        Arrays.sort(ordenados);
+        relatorio.append(String.format("%-10s %10.0f %10.0f %10.0f%n", medida, ordenados[0] / 1e6,
+            ordenados[ordenados.length / 2] / 1e6, ordenados[ordenados.length - 1] / 1e6));
+    }
+}
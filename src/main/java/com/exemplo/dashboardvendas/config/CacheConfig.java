@@ -0,0 +1,33 @@
+package com.exemplo.dashboardvendas.config;
+
+import com.exemplo.dashboardvendas.dto.FiltroDashboard;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String CACHE_DASHBOARD = "dashboard";
+
+    /**
+     * Chave do cache do dashboard: a forma canônica dos parâmetros de
+     * VendaService.getDadosDashboard (filiais, vendedor, dataInicio, dataFim, agruparPorMes, tipoPeriodo)
+     */
+    @Bean
+    @SuppressWarnings("unchecked")
+    public KeyGenerator dashboardKeyGenerator() {
+        return (target, method, params) -> FiltroDashboard.de(
+                (List<String>) params[0],
+                (String) params[1],
+                (LocalDate) params[2],
+                (LocalDate) params[3],
+                (Boolean) params[4],
+                (String) params[5]);
+    }
+}
@@ -0,0 +1,64 @@
+package com.exemplo.dashboardvendas.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Conta os comandos SQL preparados pelo Hibernate durante a montagem de um dashboard.
+ * Registrado em spring.jpa.properties.hibernate.session_factory.statement_inspector; só conta
+ * nas threads que têm um contador ativo (a da requisição e, pelo decorador, as dos executores de seções),
+ * então as cargas agendadas ficam de fora.
+ */
+public class ContadorConsultasSql implements StatementInspector {
+
+    private static final ThreadLocal<AtomicInteger> ATUAL = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        AtomicInteger contador = ATUAL.get();
+        if (contador != null) {
+            contador.incrementAndGet();
+        }
+        return sql;
+    }
+
+    /**
+     * Ativa um contador novo na thread atual e o devolve; deve ser seguido de encerrar()
+     */
+    public static AtomicInteger iniciar() {
+        AtomicInteger contador = new AtomicInteger();
+        ATUAL.set(contador);
+        return contador;
+    }
+
+    public static void encerrar() {
+        ATUAL.remove();
+    }
+
+    /**
+     * Leva o contador da thread que agenda a tarefa para a thread do executor que a executa
+     */
+    public static TaskDecorator propagador() {
+        return tarefa -> {
+            AtomicInteger contador = ATUAL.get();
+            if (contador == null) {
+                return tarefa;
+            }
+            return () -> {
+                AtomicInteger anterior = ATUAL.get();
+                ATUAL.set(contador);
+                try {
+                    tarefa.run();
+                } finally {
+                    if (anterior != null) {
+                        ATUAL.set(anterior);
+                    } else {
+                        ATUAL.remove();
+                    }
+                }
+            };
+        };
+    }
+}
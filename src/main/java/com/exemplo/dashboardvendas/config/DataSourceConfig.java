@@ -0,0 +1,85 @@
+package com.exemplo.dashboardvendas.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DataSource com réplicas de leitura, ativado quando dashboard.replicas.urls tem ao menos uma URL;
+ * sem réplicas, o Spring Boot cria o DataSource padrão de spring.datasource.*.
+ *
+ * As transações somente leitura (seções do VendaService, carregadores em memória e leituras do
+ * MetaService) vão para as réplicas pelo RoteamentoDataSource; escritas ficam no primário. Todos os
+ * pools usam as mesmas configurações de spring.datasource.hikari.*.
+ */
+@Configuration
+@ConditionalOnExpression("'${dashboard.replicas.urls:}' != ''")
+public class DataSourceConfig {
+
+    // O bean exposto é o proxy, então os pools são fechados aqui no encerramento
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    private RoteamentoDataSource roteamento;
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties propriedades, Environment environment,
+                                 @Value("${dashboard.replicas.urls}") List<String> urlsReplicas,
+                                 @Value("${dashboard.replicas.username:${spring.datasource.username}}") String usuarioReplicas,
+                                 @Value("${dashboard.replicas.password:${spring.datasource.password}}") String senhaReplicas,
+                                 @Value("${dashboard.replicas.atraso-maximo-ms:30000}") long atrasoMaximoMs) {
+        HikariDataSource primario = criarPool(propriedades, environment, "primario",
+            propriedades.determineUrl(), propriedades.determineUsername(), propriedades.determinePassword());
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : urlsReplicas) {
+            if (StringUtils.hasText(url)) {
+                replicas.add(criarPool(propriedades, environment, "replica-" + (replicas.size() + 1),
+                    url.trim(), usuarioReplicas, senhaReplicas));
+            }
+        }
+
+        // As réplicas só entram no rodízio depois da primeira verificação
+        roteamento = new RoteamentoDataSource(primario, replicas, atrasoMaximoMs);
+        return new LazyConnectionDataSourceProxy(roteamento);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${dashboard.replicas.verificacao-ms:10000}")
+    public void verificarReplicas() {
+        if (roteamento != null) {
+            roteamento.verificarReplicas();
+        }
+    }
+
+    @PreDestroy
+    public void fecharPools() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    private HikariDataSource criarPool(DataSourceProperties propriedades, Environment environment, String nome,
+                                       String url, String usuario, String senha) {
+        HikariDataSource pool = propriedades.initializeDataSourceBuilder()
+            .type(HikariDataSource.class)
+            .url(url)
+            .username(usuario)
+            .password(senha)
+            .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(nome);
+        pools.add(pool);
+        return pool;
+    }
+}
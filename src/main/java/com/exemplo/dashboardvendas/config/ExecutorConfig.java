@@ -0,0 +1,64 @@
+package com.exemplo.dashboardvendas.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    public static final String EXECUTOR_DASHBOARD = "dashboardExecutor";
+
+    public static final String EXECUTOR_DASHBOARD_PESADO = "dashboardExecutorPesado";
+
+    /**
+     * Executor das seções do dashboard, calculadas em paralelo. Cada tarefa ocupa uma conexão,
+     * então o número de threads deve ficar abaixo do pool do Hikari.
+     * Com a fila cheia a seção roda na própria thread da requisição (CallerRunsPolicy).
+     *
+     * Atende a faixa interativa do ControleCargaDashboard; a faixa pesada usa dashboardExecutorPesado.
+     */
+    @Bean(name = EXECUTOR_DASHBOARD)
+    public ThreadPoolTaskExecutor dashboardExecutor(@Value("${dashboard.secoes.threads:8}") int threads,
+                                                    @Value("${dashboard.secoes.fila:200}") int fila) {
+        return executorSecoes(threads, fila, "dashboard-");
+    }
+
+    /**
+     * Executor das seções das montagens pesadas (períodos longos com muitas filiais), separado para
+     * que elas nunca ocupem mais conexões que as suas threads
+     */
+    @Bean(name = EXECUTOR_DASHBOARD_PESADO)
+    public ThreadPoolTaskExecutor dashboardExecutorPesado(@Value("${dashboard.secoes.pesadas.threads:3}") int threads,
+                                                          @Value("${dashboard.secoes.pesadas.fila:50}") int fila) {
+        return executorSecoes(threads, fila, "dashboard-pesado-");
+    }
+
+    private static ThreadPoolTaskExecutor executorSecoes(int threads, int fila, String prefixo) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(fila);
+        executor.setThreadNamePrefix(prefixo);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        // As consultas das seções entram na contagem de SQL da requisição que as agendou
+        executor.setTaskDecorator(ContadorConsultasSql.propagador());
+        return executor;
+    }
+
+    /**
+     * O executor padrão do Spring Boot deixa de ser criado quando existe outro Executor no contexto;
+     * declarado aqui para o processamento assíncrono do Spring MVC continuar usando um pool próprio
+     */
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    @Primary
+    public ThreadPoolTaskExecutor applicationTaskExecutor(TaskExecutorBuilder builder) {
+        return builder.build();
+    }
+}
@@ -0,0 +1,47 @@
+package com.exemplo.dashboardvendas.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Leituras depois de uma escrita na mesma sessão vão ao primário por dashboard.replicas.leitura-primario-ms,
+ * para o usuário ver a meta que acabou de gravar mesmo que as réplicas ainda não a tenham recebido.
+ * Sem réplicas configuradas não tem efeito.
+ */
+@Component
+public class LeituraPrimarioInterceptor implements HandlerInterceptor {
+
+    private static final String ATRIBUTO_ULTIMA_ESCRITA = LeituraPrimarioInterceptor.class.getName() + ".ultimaEscrita";
+
+    @Value("${dashboard.replicas.leitura-primario-ms:5000}")
+    private long janelaMs;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        HttpSession sessao = request.getSession(false);
+        Object ultimaEscrita = sessao != null ? sessao.getAttribute(ATRIBUTO_ULTIMA_ESCRITA) : null;
+        if (ultimaEscrita instanceof Long && System.currentTimeMillis() - (Long) ultimaEscrita < janelaMs) {
+            RoteamentoDataSource.fixarPrimario();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RoteamentoDataSource.liberarPrimario();
+        HttpSession sessao = request.getSession(false);
+        if (sessao != null && ex == null && response.getStatus() < 400 && escrita(request.getMethod())) {
+            sessao.setAttribute(ATRIBUTO_ULTIMA_ESCRITA, System.currentTimeMillis());
+        }
+    }
+
+    private static boolean escrita(String metodo) {
+        return HttpMethod.POST.matches(metodo) || HttpMethod.PUT.matches(metodo)
+            || HttpMethod.PATCH.matches(metodo) || HttpMethod.DELETE.matches(metodo);
+    }
+}
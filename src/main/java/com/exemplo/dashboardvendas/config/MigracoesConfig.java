@@ -0,0 +1,31 @@
+package com.exemplo.dashboardvendas.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Migrações do Flyway na inicialização, exceto no treino do arquivo CDS (TreinoCds), que sobe sem banco.
+ *
+ * Desligar por spring.flyway.enabled não serve no treino: é condição da autoconfiguração do Flyway e, com o
+ * processamento AOT, fica fixada no build (ligada, como a imagem precisa em produção). A estratégia é
+ * consultada em tempo de execução pelo FlywayMigrationInitializer gerado.
+ */
+@Configuration
+public class MigracoesConfig {
+    private static final Logger logger = LoggerFactory.getLogger(MigracoesConfig.class);
+
+    @Bean
+    public FlywayMigrationStrategy estrategiaMigracoes(@Value("${dashboard.cds.treino:false}") boolean treino) {
+        return flyway -> {
+            if (treino) {
+                logger.info("Treino do arquivo CDS: migrações não executadas");
+                return;
+            }
+            flyway.migrate();
+        };
+    }
+}
@@ -0,0 +1,128 @@
+package com.exemplo.dashboardvendas.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Envia as transações somente leitura para as réplicas (em rodízio, apenas as saudáveis) e todo o resto
+ * para o primário: escritas, leituras fora de transação somente leitura e threads com fixarPrimario().
+ * Sem réplica saudável, tudo vai para o primário.
+ *
+ * Usado atrás de um LazyConnectionDataSourceProxy, para que a conexão só seja pedida depois que a
+ * transação marcou se é somente leitura.
+ */
+public class RoteamentoDataSource extends AbstractDataSource {
+    private static final Logger logger = LoggerFactory.getLogger(RoteamentoDataSource.class);
+
+    // Atraso de replicação em ms; zero quando a réplica já aplicou tudo o que recebeu
+    private static final String CONSULTA_ATRASO =
+        "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+        "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+    private static final ThreadLocal<Boolean> PRIMARIO_FIXADO = new ThreadLocal<>();
+
+    private final DataSource primario;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger proxima = new AtomicInteger();
+    private final long atrasoMaximoMs;
+
+    public RoteamentoDataSource(DataSource primario, List<DataSource> replicas, long atrasoMaximoMs) {
+        this.primario = primario;
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica("replica-" + (i + 1), replicas.get(i)));
+        }
+        this.atrasoMaximoMs = atrasoMaximoMs;
+    }
+
+    /**
+     * Faz as leituras da thread atual irem ao primário até liberarPrimario(), para enxergar
+     * escritas recentes que as réplicas ainda podem não ter recebido
+     */
+    public static void fixarPrimario() {
+        PRIMARIO_FIXADO.set(Boolean.TRUE);
+    }
+
+    public static void liberarPrimario() {
+        PRIMARIO_FIXADO.remove();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return escolher().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return escolher().getConnection(username, password);
+    }
+
+    private DataSource escolher() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || PRIMARIO_FIXADO.get() != null) {
+            return primario;
+        }
+        int quantidade = replicas.size();
+        int inicio = Math.floorMod(proxima.getAndIncrement(), Math.max(quantidade, 1));
+        for (int i = 0; i < quantidade; i++) {
+            Replica replica = replicas.get((inicio + i) % quantidade);
+            if (replica.saudavel) {
+                return replica.dataSource;
+            }
+        }
+        return primario;
+    }
+
+    /**
+     * Testa cada réplica (conexão válida e atraso de replicação dentro do limite) e atualiza
+     * quais podem receber leituras
+     */
+    public void verificarReplicas() {
+        for (Replica replica : replicas) {
+            boolean saudavel;
+            String motivo = null;
+            try (Connection conexao = replica.dataSource.getConnection();
+                 Statement statement = conexao.createStatement();
+                 ResultSet rs = statement.executeQuery(CONSULTA_ATRASO)) {
+                long atraso = rs.next() ? rs.getLong(1) : 0;
+                saudavel = atraso <= atrasoMaximoMs;
+                if (!saudavel) {
+                    motivo = "atraso de replicação de " + atraso + " ms";
+                }
+            } catch (SQLException | RuntimeException e) {
+                saudavel = false;
+                motivo = e.getMessage();
+            }
+
+            if (saudavel != replica.saudavel) {
+                if (saudavel) {
+                    logger.info("Réplica {} voltou a receber leituras", replica.nome);
+                } else {
+                    logger.warn("Réplica {} retirada do rodízio de leituras: {}", replica.nome, motivo);
+                }
+            }
+            replica.saudavel = saudavel;
+        }
+    }
+
+    private static class Replica {
+        private final String nome;
+        private final DataSource dataSource;
+        // Começa fora do rodízio até a primeira verificação
+        private volatile boolean saudavel;
+
+        private Replica(String nome, DataSource dataSource) {
+            this.nome = nome;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.exemplo.dashboardvendas.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Execução de treino do arquivo CDS (estágio inicio-rapido do Dockerfile, perfil treino-cds): a aplicação
+ * sobe sem banco e encerra assim que fica pronta. A JVM, iniciada com -XX:ArchiveClassesAtExit, grava ao
+ * sair as classes carregadas até ali, que as próximas inicializações leem prontas do arquivo.
+ *
+ * A propriedade é lida em tempo de execução, e não por condição no bean, porque com o processamento
+ * AOT as condições são avaliadas no build.
+ */
+@Component
+public class TreinoCds {
+    private static final Logger logger = LoggerFactory.getLogger(TreinoCds.class);
+
+    @Autowired
+    private ConfigurableApplicationContext contexto;
+
+    @Value("${dashboard.cds.treino:false}")
+    private boolean treino;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void encerrarTreino() {
+        if (!treino) {
+            return;
+        }
+        logger.info("Treino do arquivo CDS concluído; encerrando");
+        System.exit(SpringApplication.exit(contexto));
+    }
+}
@@ -0,0 +1,19 @@
+package com.exemplo.dashboardvendas.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private LeituraPrimarioInterceptor leituraPrimarioInterceptor;
+
+    // Só a API de metas grava pela aplicação
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(leituraPrimarioInterceptor).addPathPatterns("/api/metas/**");
+    }
+}
@@ -1,17 +1,40 @@
 package com.exemplo.dashboardvendas.controller;
 
 import com.exemplo.dashboardvendas.dto.DashboardResponse;
+import com.exemplo.dashboardvendas.dto.FiltroDashboard;
+import com.exemplo.dashboardvendas.dto.FiltroDashboardRequest;
+import com.exemplo.dashboardvendas.service.DashboardLoteService;
+import com.exemplo.dashboardvendas.service.DashboardStreamService;
+import com.exemplo.dashboardvendas.service.ExportacaoVendasService;
 import com.exemplo.dashboardvendas.service.VendaService;
+import com.exemplo.dashboardvendas.service.VersaoDadosService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Controller
 public class DashboardController {
@@ -20,6 +43,21 @@ public class DashboardController {
     @Autowired
     private VendaService vendaService;
 
+    @Autowired
+    private DashboardStreamService dashboardStreamService;
+
+    @Autowired
+    private DashboardLoteService dashboardLoteService;
+
+    @Value("${dashboard.lote.max-filtros:50}")
+    private int maxFiltrosLote;
+
+    @Autowired
+    private VersaoDadosService versaoDadosService;
+
+    @Autowired
+    private ExportacaoVendasService exportacaoVendasService;
+
     @GetMapping("/")
     public String dashboard(Model model) {
         // Definir período padrão (hoje)
@@ -46,6 +84,10 @@ public class DashboardController {
         return "dashboard-regional";
     }
 
+    /**
+     * Responde com ETag derivado da versão dos dados e do filtro. Se o If-None-Match enviado
+     * corresponde à versão atual, devolve 304 sem montar o dashboard.
+     */
     @GetMapping("/api/dashboard")
     @ResponseBody
     public ResponseEntity<DashboardResponse> getDadosDashboard(
@@ -54,7 +96,21 @@ public class DashboardController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim,
             @RequestParam(required = false, defaultValue = "false") boolean agruparPorMes,
-            @RequestParam(required = false) String tipoPeriodo) {
+            @RequestParam(required = false) String tipoPeriodo,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        FiltroDashboard filtro = FiltroDashboard.de(filial, vendedor, dataInicio, dataFim, agruparPorMes, tipoPeriodo);
+        String versao = versaoDadosService.versaoAtual();
+        if (versao != null && ifNoneMatch != null) {
+            String etag = VersaoDadosService.etag(versao, filtro);
+            if (corresponde(ifNoneMatch, etag)) {
+                logger.debug("/api/dashboard not modified for {}", etag);
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag)
+                        .cacheControl(CacheControl.noCache().cachePrivate())
+                        .build();
+            }
+        }
 
         logger.debug(
                 "/api/dashboard called with filial={}, vendedor={}, dataInicio={}, dataFim={}, agruparPorMes={}, tipoPeriodo={}",
@@ -64,9 +120,142 @@ public class DashboardController {
         logger.debug(
                 "/api/dashboard response totalVendas={}, ticketMedio={}, dadosGrafico.size={}, top10Vendedores.size={}",
                 response.getTotalVendas(), response.getTicketMedio(),
-                response.getDadosGrafico() != null ? response.getDadosGrafico().size() : 0,
+                response.getDadosGrafico() != null ? response.getDadosGrafico().getValores().length : 0,
                 response.getTop10Vendedores() != null ? response.getTop10Vendedores().size() : 0);
-        return ResponseEntity.ok(response);
+        // ETag da versão em que a resposta foi montada (pode ser anterior à atual, se veio do cache)
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate());
+        if (response.getVersaoDados() != null) {
+            ok.eTag(VersaoDadosService.etag(response.getVersaoDados(), filtro));
+        }
+        return ok.body(response);
+    }
+
+    /**
+     * Vários filtros de /api/dashboard em uma requisição, respondidos na mesma ordem. Filtros com as
+     * mesmas datas, tipoPeriodo e vendedor são calculados juntos, em uma passada pelos dados.
+     */
+    @PostMapping("/api/dashboard/batch")
+    @ResponseBody
+    public ResponseEntity<List<DashboardResponse>> getDadosDashboardLote(
+            @RequestBody List<FiltroDashboardRequest> requisicoes) {
+
+        if (requisicoes.size() > maxFiltrosLote) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Lote com " + requisicoes.size() + " filtros; o máximo é " + maxFiltrosLote);
+        }
+        List<FiltroDashboard> filtros = new ArrayList<>();
+        for (FiltroDashboardRequest requisicao : requisicoes) {
+            if (requisicao.getDataInicio() == null || requisicao.getDataFim() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "dataInicio e dataFim são obrigatórios em cada filtro");
+            }
+            filtros.add(requisicao.paraFiltro());
+        }
+
+        logger.debug("/api/dashboard/batch called with {}", filtros);
+        Map<FiltroDashboard, DashboardResponse> respostas = dashboardLoteService.obterDashboards(filtros);
+        List<DashboardResponse> corpo = new ArrayList<>();
+        for (FiltroDashboard filtro : filtros) {
+            corpo.add(respostas.get(filtro));
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(corpo);
+    }
+
+    // Comparação fraca de If-None-Match (lista de ETags ou "*"), como pede o RFC 9110
+    private static boolean corresponde(String ifNoneMatch, String etag) {
+        String opaco = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.equals("*")) {
+                return true;
+            }
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals(opaco)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Mesmos filtros de /api/dashboard, entregues por Server-Sent Events sempre que os dados mudam.
+     * Cada parâmetro grupo ("nome:Filial A|Filial B") abre uma assinatura adicional na mesma conexão,
+     * com as filiais do grupo e os demais filtros da requisição, enviada no evento "nome".
+     * Sem grupos, os dados vêm no evento "dashboard".
+     */
+    @GetMapping(path = "/api/dashboard/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter streamDadosDashboard(
+            @RequestParam(required = false) List<String> filial,
+            @RequestParam(required = false) String vendedor,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim,
+            @RequestParam(required = false, defaultValue = "false") boolean agruparPorMes,
+            @RequestParam(required = false) String tipoPeriodo,
+            @RequestParam(required = false) List<String> grupo) {
+
+        Map<String, FiltroDashboard> filtros = new LinkedHashMap<>();
+        if (grupo == null || grupo.isEmpty()) {
+            filtros.put(DashboardStreamService.EVENTO_PADRAO,
+                    FiltroDashboard.de(filial, vendedor, dataInicio, dataFim, agruparPorMes, tipoPeriodo));
+        } else {
+            for (String definicao : grupo) {
+                int separador = definicao.indexOf(':');
+                if (separador <= 0) {
+                    throw new IllegalArgumentException("Grupo inválido: " + definicao);
+                }
+                String nome = definicao.substring(0, separador);
+                List<String> filiaisGrupo = Arrays.asList(definicao.substring(separador + 1).split("\\|"));
+                filtros.put(nome,
+                        FiltroDashboard.de(filiaisGrupo, vendedor, dataInicio, dataFim, agruparPorMes, tipoPeriodo));
+            }
+        }
+
+        logger.debug("/api/dashboard/stream called with {}", filtros);
+        return dashboardStreamService.assinar(filtros);
+    }
+
+    /**
+     * Vendas pagas dos filtros de /api/dashboard (filiais, vendedor e datas), com os totais dos pagamentos,
+     * em CSV (padrão) ou JSON Lines (formato=jsonl). Escritas à medida que são lidas do banco.
+     */
+    @GetMapping("/api/vendas/export")
+    public ResponseEntity<StreamingResponseBody> exportarVendas(
+            @RequestParam(required = false) List<String> filial,
+            @RequestParam(required = false) String vendedor,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim,
+            @RequestParam(required = false, defaultValue = "csv") String formato,
+            NativeWebRequest requisicao) {
+
+        ExportacaoVendasService.Formato tipo;
+        MediaType mediaType;
+        if ("csv".equalsIgnoreCase(formato)) {
+            tipo = ExportacaoVendasService.Formato.CSV;
+            mediaType = new MediaType("text", "csv", StandardCharsets.UTF_8);
+        } else if ("jsonl".equalsIgnoreCase(formato)) {
+            tipo = ExportacaoVendasService.Formato.JSONL;
+            mediaType = MediaType.APPLICATION_NDJSON;
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato inválido: " + formato + " (csv ou jsonl)");
+        }
+        if (dataFim.isBefore(dataInicio)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "dataFim anterior a dataInicio");
+        }
+
+        FiltroDashboard filtro = FiltroDashboard.de(filial, vendedor, dataInicio, dataFim, false, null);
+        logger.debug("/api/vendas/export called with {} formato={}", filtro, formato);
+        String arquivo = "vendas-" + dataInicio + "-" + dataFim + "." + formato.toLowerCase();
+        // Por último: a vaga reservada é devolvida pelo processamento assíncrono que começa no retorno
+        StreamingResponseBody corpo = exportacaoVendasService.exportar(filtro, tipo,
+                WebAsyncUtils.getAsyncManager(requisicao));
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(arquivo).build().toString())
+                .cacheControl(CacheControl.noStore())
+                .body(corpo);
     }
 
     @GetMapping("/api/filiais")
@@ -1,5 +1,7 @@
 package com.exemplo.dashboardvendas.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
@@ -10,7 +12,8 @@ public class DashboardResponse {
     private Long numeroVendas;
     private BigDecimal ticketMedio;
     private MaxResponse maxResponse;
-    private List<Map<String, Object>> dadosGrafico;
+    // Série do gráfico em colunas (inicio, passo, valores), com zero nos dias sem venda
+    private SerieGrafico dadosGrafico;
     private List<Map<String, Object>> top10Vendedores;
     private List<Map<String, Object>> podiumVendedores;
     private List<Map<String, Object>> podiumUnidades;
@@ -23,6 +26,10 @@ public class DashboardResponse {
     // Metas por filial
     private Map<String, BigDecimal> metas;
     
+    // Versão dos dados (VersaoDadosService) lida antes da montagem; vai no ETag, não no JSON
+    @JsonIgnore
+    private String versaoDados;
+    
     public static class ComparisonData {
         private Double totalVendasVariacao;
         private Double numeroVendasVariacao;
@@ -50,7 +57,7 @@ public class DashboardResponse {
     public DashboardResponse() {}
     
     public DashboardResponse(BigDecimal totalVendas, Long numeroVendas, BigDecimal ticketMedio, 
-                           MaxResponse maxResponse, List<Map<String, Object>> dadosGrafico,
+                           MaxResponse maxResponse, SerieGrafico dadosGrafico,
                            List<Map<String, Object>> top10Vendedores,
                            List<String> filiais, List<String> vendedores) {
         this.totalVendas = totalVendas;
@@ -113,11 +120,11 @@ public class DashboardResponse {
         this.maxResponse = maxResponse;
     }
     
-    public List<Map<String, Object>> getDadosGrafico() {
+    public SerieGrafico getDadosGrafico() {
         return dadosGrafico;
     }
     
-    public void setDadosGrafico(List<Map<String, Object>> dadosGrafico) {
+    public void setDadosGrafico(SerieGrafico dadosGrafico) {
         this.dadosGrafico = dadosGrafico;
     }
     
@@ -161,6 +168,14 @@ public class DashboardResponse {
         this.metas = metas;
     }
     
+    public String getVersaoDados() {
+        return versaoDados;
+    }
+    
+    public void setVersaoDados(String versaoDados) {
+        this.versaoDados = versaoDados;
+    }
+    
     // Classe interna para os dados MAX
     public static class MaxResponse {
         private BigDecimal maiorVenda;
@@ -0,0 +1,100 @@
+package com.exemplo.dashboardvendas.dto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Forma canônica dos filtros de /api/dashboard: filiais sem repetição e em ordem,
+ * vendedor em maiúsculas. Filtros equivalentes geram o mesmo objeto (equals/hashCode),
+ * o que permite usá-lo como chave de cache.
+ */
+public class FiltroDashboard {
+    
+    private final List<String> filiais;
+    private final String vendedor;
+    private final LocalDate dataInicio;
+    private final LocalDate dataFim;
+    private final boolean agruparPorMes;
+    private final String tipoPeriodo;
+    
+    private FiltroDashboard(List<String> filiais, String vendedor, LocalDate dataInicio, LocalDate dataFim,
+                            boolean agruparPorMes, String tipoPeriodo) {
+        this.filiais = filiais;
+        this.vendedor = vendedor;
+        this.dataInicio = dataInicio;
+        this.dataFim = dataFim;
+        this.agruparPorMes = agruparPorMes;
+        this.tipoPeriodo = tipoPeriodo;
+    }
+    
+    public static FiltroDashboard de(List<String> filiais, String vendedor, LocalDate dataInicio, LocalDate dataFim,
+                                     boolean agruparPorMes, String tipoPeriodo) {
+        List<String> filiaisCanonicas = null;
+        if (filiais != null && !filiais.isEmpty()) {
+            filiaisCanonicas = List.copyOf(new TreeSet<>(filiais));
+        }
+        String vendedorCanonico = (vendedor != null && !vendedor.isBlank()) ? vendedor.trim().toUpperCase() : null;
+        String tipoCanonico = (tipoPeriodo != null && !tipoPeriodo.isBlank()) ? tipoPeriodo : null;
+        return new FiltroDashboard(filiaisCanonicas, vendedorCanonico, dataInicio, dataFim, agruparPorMes, tipoCanonico);
+    }
+    
+    /**
+     * Filiais em ordem alfabética, ou null quando nenhuma foi selecionada (todas)
+     */
+    public List<String> getFiliais() {
+        return filiais != null ? new ArrayList<>(filiais) : null;
+    }
+    
+    public String getVendedor() {
+        return vendedor;
+    }
+    
+    public LocalDate getDataInicio() {
+        return dataInicio;
+    }
+    
+    public LocalDate getDataFim() {
+        return dataFim;
+    }
+    
+    public boolean isAgruparPorMes() {
+        return agruparPorMes;
+    }
+    
+    public String getTipoPeriodo() {
+        return tipoPeriodo;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FiltroDashboard)) return false;
+        FiltroDashboard outro = (FiltroDashboard) o;
+        return agruparPorMes == outro.agruparPorMes &&
+               Objects.equals(filiais, outro.filiais) &&
+               Objects.equals(vendedor, outro.vendedor) &&
+               Objects.equals(dataInicio, outro.dataInicio) &&
+               Objects.equals(dataFim, outro.dataFim) &&
+               Objects.equals(tipoPeriodo, outro.tipoPeriodo);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(filiais, vendedor, dataInicio, dataFim, agruparPorMes, tipoPeriodo);
+    }
+    
+    @Override
+    public String toString() {
+        return "FiltroDashboard{" +
+                "filiais=" + filiais +
+                ", vendedor='" + vendedor + '\'' +
+                ", dataInicio=" + dataInicio +
+                ", dataFim=" + dataFim +
+                ", agruparPorMes=" + agruparPorMes +
+                ", tipoPeriodo='" + tipoPeriodo + '\'' +
+                '}';
+    }
+}
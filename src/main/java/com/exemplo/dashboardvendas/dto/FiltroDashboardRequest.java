@@ -0,0 +1,69 @@
+package com.exemplo.dashboardvendas.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Um filtro do corpo de POST /api/dashboard/batch, com os mesmos nomes dos parâmetros de /api/dashboard
+ */
+public class FiltroDashboardRequest {
+
+    private List<String> filial;
+    private String vendedor;
+    private LocalDate dataInicio;
+    private LocalDate dataFim;
+    private boolean agruparPorMes;
+    private String tipoPeriodo;
+
+    public List<String> getFilial() {
+        return filial;
+    }
+
+    public void setFilial(List<String> filial) {
+        this.filial = filial;
+    }
+
+    public String getVendedor() {
+        return vendedor;
+    }
+
+    public void setVendedor(String vendedor) {
+        this.vendedor = vendedor;
+    }
+
+    public LocalDate getDataInicio() {
+        return dataInicio;
+    }
+
+    public void setDataInicio(LocalDate dataInicio) {
+        this.dataInicio = dataInicio;
+    }
+
+    public LocalDate getDataFim() {
+        return dataFim;
+    }
+
+    public void setDataFim(LocalDate dataFim) {
+        this.dataFim = dataFim;
+    }
+
+    public boolean isAgruparPorMes() {
+        return agruparPorMes;
+    }
+
+    public void setAgruparPorMes(boolean agruparPorMes) {
+        this.agruparPorMes = agruparPorMes;
+    }
+
+    public String getTipoPeriodo() {
+        return tipoPeriodo;
+    }
+
+    public void setTipoPeriodo(String tipoPeriodo) {
+        this.tipoPeriodo = tipoPeriodo;
+    }
+
+    public FiltroDashboard paraFiltro() {
+        return FiltroDashboard.de(filial, vendedor, dataInicio, dataFim, agruparPorMes, tipoPeriodo);
+    }
+}
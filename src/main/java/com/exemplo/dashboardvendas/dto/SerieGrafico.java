@@ -0,0 +1,89 @@
+package com.exemplo.dashboardvendas.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+/**
+ * Série do gráfico de vendas em forma de colunas: valores[i] é o total do dia (ou mês) inicio + i * passo.
+ * Todos os dias (ou meses) do período até hoje aparecem, com zero onde não houve venda.
+ */
+public class SerieGrafico {
+
+    public static final String PASSO_DIA = "dia";
+    public static final String PASSO_MES = "mes";
+
+    private final LocalDate inicio;
+    private final String passo;
+    private final double[] valores;
+
+    @JsonCreator
+    public SerieGrafico(@JsonProperty("inicio") LocalDate inicio, @JsonProperty("passo") String passo,
+                        @JsonProperty("valores") double[] valores) {
+        this.inicio = inicio;
+        this.passo = passo;
+        this.valores = valores;
+    }
+
+    public LocalDate getInicio() {
+        return inicio;
+    }
+
+    public String getPasso() {
+        return passo;
+    }
+
+    public double[] getValores() {
+        return valores;
+    }
+
+    /**
+     * Esta série seguida de outra, de mesmo passo, que começa logo depois do seu último dia (ou mês)
+     */
+    public SerieGrafico seguidaDe(SerieGrafico continuacao) {
+        double[] juntos = Arrays.copyOf(valores, valores.length + continuacao.valores.length);
+        System.arraycopy(continuacao.valores, 0, juntos, valores.length, continuacao.valores.length);
+        return new SerieGrafico(inicio, passo, juntos);
+    }
+
+    /**
+     * Soma os valores em centavos, em um array do tamanho do período indexado pelo dia (ou mês)
+     * desde o início; datas fora do período são ignoradas
+     */
+    public static class Construtor {
+        private final LocalDate inicio;
+        private final boolean porMes;
+        private final long[] centavos;
+
+        public Construtor(LocalDate dataInicio, LocalDate dataFim, boolean porMes) {
+            this.porMes = porMes;
+            this.inicio = porMes ? dataInicio.withDayOfMonth(1) : dataInicio;
+            long tamanho = porMes ?
+                ChronoUnit.MONTHS.between(inicio, dataFim.withDayOfMonth(1)) + 1 :
+                ChronoUnit.DAYS.between(inicio, dataFim) + 1;
+            this.centavos = new long[(int) Math.max(0, tamanho)];
+        }
+
+        public void somar(LocalDate data, BigDecimal valor) {
+            long indice = porMes ?
+                (data.getYear() - inicio.getYear()) * 12L + data.getMonthValue() - inicio.getMonthValue() :
+                data.toEpochDay() - inicio.toEpochDay();
+            if (indice >= 0 && indice < centavos.length) {
+                centavos[(int) indice] += valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+            }
+        }
+
+        public SerieGrafico construir() {
+            double[] valores = new double[centavos.length];
+            for (int i = 0; i < centavos.length; i++) {
+                valores[i] = centavos[i] / 100.0;
+            }
+            return new SerieGrafico(inicio, porMes ? PASSO_MES : PASSO_DIA, valores);
+        }
+    }
+}
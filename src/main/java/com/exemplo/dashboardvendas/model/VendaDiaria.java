@@ -0,0 +1,104 @@
+package com.exemplo.dashboardvendas.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Consolidado diário das vendas pagas por filial e vendedor (tabela vendas_diarias).
+ * As linhas são gravadas apenas pelas consultas nativas de VendaDiariaRepository.
+ */
+@Entity
+@Table(name = "vendas_diarias")
+@IdClass(VendaDiaria.Chave.class)
+public class VendaDiaria {
+    
+    @Id
+    @Column(name = "dia")
+    private LocalDate dia;
+    
+    @Id
+    @Column(name = "filial")
+    private String filial;
+    
+    // Vendedor em maiúsculas ('' para vendas sem vendedor)
+    @Id
+    @Column(name = "vendedor")
+    private String vendedor;
+    
+    // Grafia original do vendedor ('' sem vendedor); cada grafia é uma linha do ranking
+    @Id
+    @Column(name = "vendedor_nome")
+    private String vendedorNome;
+    
+    @Column(name = "total", nullable = false)
+    private BigDecimal total;
+    
+    @Column(name = "quantidade", nullable = false)
+    private Integer quantidade;
+    
+    @Column(name = "maior_venda", nullable = false)
+    private BigDecimal maiorVenda;
+    
+    public LocalDate getDia() {
+        return dia;
+    }
+    
+    public String getFilial() {
+        return filial;
+    }
+    
+    public String getVendedor() {
+        return vendedor;
+    }
+    
+    public String getVendedorNome() {
+        return vendedorNome;
+    }
+    
+    public BigDecimal getTotal() {
+        return total;
+    }
+    
+    public Integer getQuantidade() {
+        return quantidade;
+    }
+    
+    public BigDecimal getMaiorVenda() {
+        return maiorVenda;
+    }
+    
+    public static class Chave implements Serializable {
+        private LocalDate dia;
+        private String filial;
+        private String vendedor;
+        private String vendedorNome;
+        
+        public Chave() {}
+        
+        public Chave(LocalDate dia, String filial, String vendedor, String vendedorNome) {
+            this.dia = dia;
+            this.filial = filial;
+            this.vendedor = vendedor;
+            this.vendedorNome = vendedorNome;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Chave)) return false;
+            Chave outra = (Chave) o;
+            return Objects.equals(dia, outra.dia) &&
+                   Objects.equals(filial, outra.filial) &&
+                   Objects.equals(vendedor, outra.vendedor) &&
+                   Objects.equals(vendedorNome, outra.vendedorNome);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(dia, filial, vendedor, vendedorNome);
+        }
+    }
+}
@@ -3,117 +3,173 @@ package com.exemplo.dashboardvendas.repository;
 import com.exemplo.dashboardvendas.model.FinanceiroCliente;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.QueryHint;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
+// Somente leitura: o Hibernate não faz flush nem dirty-checking nas transações abertas por estas consultas
 @Repository
+@Transactional(readOnly = true)
 public interface FinanceiroClienteRepository extends JpaRepository<FinanceiroCliente, Long> {
 
-    // Common WHERE clause part for JPQL:
-    // ... AND EXISTS (SELECT p FROM FinanceiroPagamento p WHERE p.clienteId = c.id)
+    // Colunas e totais de pagamento da exportação. O LATERAL soma os pagamentos de cada venda pelo índice de
+    // cliente_id e descarta as vendas sem pagamento (o mesmo critério do EXISTS das demais consultas)
+    String COLUNAS_EXPORTACAO = "c.id, c.data, c.filial, c.vendedor, c.nome, c.forma_pagamento, " +
+           "c.valor_debito, c.valor_pago, p.total_pago, p.pagamentos, p.ultimo_pagamento";
+    String PAGAMENTOS_EXPORTACAO = "JOIN LATERAL (SELECT SUM(pg.valor) AS total_pago, COUNT(*) AS pagamentos, " +
+           "MAX(pg.data_pagamento) AS ultimo_pagamento FROM financeiro_pagamentos pg " +
+           "WHERE pg.cliente_id = c.id) p ON p.pagamentos > 0 ";
 
-    @Query("SELECT c FROM FinanceiroCliente c WHERE c.data BETWEEN :dataInicio AND :dataFim " +
-           "AND EXISTS (SELECT p FROM FinanceiroPagamento p WHERE p.clienteId = c.id)")
-    List<FinanceiroCliente> findByDataVendaBetween(@Param("dataInicio") LocalDate dataInicio, 
-                                                   @Param("dataFim") LocalDate dataFim);
-    
-    @Query("SELECT c FROM FinanceiroCliente c WHERE " +
-           "(:filial IS NULL OR c.filial = :filial) AND " +
-           "(:vendedor IS NULL OR UPPER(c.vendedor) = :vendedor) AND " +
-           "c.data BETWEEN :dataInicio AND :dataFim " +
-           "AND EXISTS (SELECT p FROM FinanceiroPagamento p WHERE p.clienteId = c.id)")
-    List<FinanceiroCliente> findByFiltros(@Param("filial") String filial,
-                                          @Param("vendedor") String vendedor,
-                                          @Param("dataInicio") LocalDate dataInicio,
-                                          @Param("dataFim") LocalDate dataFim);
-    
-    // Soma total de vendas por filtros
-    @Query("SELECT COALESCE(SUM(c.valorDebito), 0) FROM FinanceiroCliente c WHERE " +
-           "(:filial IS NULL OR c.filial = :filial) AND " +
-           "(:vendedor IS NULL OR UPPER(c.vendedor) = :vendedor) AND " +
-           "c.data BETWEEN :dataInicio AND :dataFim " +
-           "AND EXISTS (SELECT p FROM FinanceiroPagamento p WHERE p.clienteId = c.id)")
-    BigDecimal somaVendasPorFiltros(@Param("filial") String filial,
-                                    @Param("vendedor") String vendedor,
-                                    @Param("dataInicio") LocalDate dataInicio,
-                                    @Param("dataFim") LocalDate dataFim);
-    
-    // Ticket médio por filtros
-    @Query("SELECT COALESCE(AVG(c.valorDebito), 0) FROM FinanceiroCliente c WHERE " +
-           "(:filial IS NULL OR c.filial = :filial) AND " +
-           "(:vendedor IS NULL OR UPPER(c.vendedor) = :vendedor) AND " +
-           "c.data BETWEEN :dataInicio AND :dataFim " +
-           "AND EXISTS (SELECT p FROM FinanceiroPagamento p WHERE p.clienteId = c.id)")
-    BigDecimal ticketMedioPorFiltros(@Param("filial") String filial,
-                                     @Param("vendedor") String vendedor,
-                                     @Param("dataInicio") LocalDate dataInicio,
-                                     @Param("dataFim") LocalDate dataFim);
-    
-    // Número de vendas por filtros
-    @Query("SELECT COUNT(c) FROM FinanceiroCliente c WHERE " +
-           "(:filial IS NULL OR c.filial = :filial) AND " +
-           "(:vendedor IS NULL OR UPPER(c.vendedor) = :vendedor) AND " +
-           "c.data BETWEEN :dataInicio AND :dataFim " +
-           "AND EXISTS (SELECT p FROM FinanceiroPagamento p WHERE p.clienteId = c.id)")
-    Long contarVendasPorFiltros(@Param("filial") String filial,
-                                @Param("vendedor") String vendedor,
-                                @Param("dataInicio") LocalDate dataInicio,
-                                @Param("dataFim") LocalDate dataFim);
-    
-    // Maior venda por filtros
-    @Query("SELECT c FROM FinanceiroCliente c WHERE " +
-           "(:filial IS NULL OR c.filial = :filial) AND " +
-           "(:vendedor IS NULL OR UPPER(c.vendedor) = :vendedor) AND " +
-           "c.data BETWEEN :dataInicio AND :dataFim " +
-           "AND EXISTS (SELECT p FROM FinanceiroPagamento p WHERE p.clienteId = c.id) " +
-           "ORDER BY c.valorDebito DESC")
-    List<FinanceiroCliente> maiorVendaPorFiltros(@Param("filial") String filial,
-                                                 @Param("vendedor") String vendedor,
-                                                 @Param("dataInicio") LocalDate dataInicio,
-                                                 @Param("dataFim") LocalDate dataFim);
-    
-    // Vendedor que mais vendeu (por valor total)
-    @Query("SELECT c.vendedor, SUM(c.valorDebito) as total FROM FinanceiroCliente c WHERE " +
+    // Todas as consultas são nativas para que VerificacaoPlanosService consiga rodar EXPLAIN nelas.
+    // Parte comum do WHERE: ... AND EXISTS (SELECT 1 FROM financeiro_pagamentos p WHERE p.cliente_id = c.id)
+
+    // Resumo por filial em uma única passada: filial, total, número de vendas, maior venda e
+    // cliente/vendedor da maior venda (linha com posicao = 1 dentro de cada filial)
+    @Query(value = "SELECT r.filial, COALESCE(SUM(r.valor_debito), 0) AS total, COUNT(*) AS numero, " +
+           "MAX(r.valor_debito) AS maior_venda, " +
+           "MAX(r.nome) FILTER (WHERE r.posicao = 1) AS cliente_maior_venda, " +
+           "MAX(r.vendedor) FILTER (WHERE r.posicao = 1) AS vendedor_maior_venda " +
+           "FROM (SELECT v.filial, v.valor_debito, v.nome, v.vendedor, " +
+           "ROW_NUMBER() OVER (PARTITION BY v.filial ORDER BY v.valor_debito DESC) AS posicao " +
+           "FROM financeiro_clientes v WHERE " +
+           "v.filial IN :filiais AND " +
+           "(:vendedor IS NULL OR UPPER(v.vendedor) = :vendedor) AND " +
+           "v.data BETWEEN :dataInicio AND :dataFim AND " +
+           "EXISTS (SELECT 1 FROM financeiro_pagamentos p WHERE p.cliente_id = v.id)) r " +
+           "GROUP BY r.filial", nativeQuery = true)
+    List<Object[]> resumoVendasPorFilial(@Param("filiais") List<String> filiais,
+                                         @Param("vendedor") String vendedor,
+                                         @Param("dataInicio") LocalDate dataInicio,
+                                         @Param("dataFim") LocalDate dataFim);
+
+    // Resumo por filial considerando todas as filiais (mesmas colunas de resumoVendasPorFilial)
+    @Query(value = "SELECT r.filial, COALESCE(SUM(r.valor_debito), 0) AS total, COUNT(*) AS numero, " +
+           "MAX(r.valor_debito) AS maior_venda, " +
+           "MAX(r.nome) FILTER (WHERE r.posicao = 1) AS cliente_maior_venda, " +
+           "MAX(r.vendedor) FILTER (WHERE r.posicao = 1) AS vendedor_maior_venda " +
+           "FROM (SELECT v.filial, v.valor_debito, v.nome, v.vendedor, " +
+           "ROW_NUMBER() OVER (PARTITION BY v.filial ORDER BY v.valor_debito DESC) AS posicao " +
+           "FROM financeiro_clientes v WHERE " +
+           "(:vendedor IS NULL OR UPPER(v.vendedor) = :vendedor) AND " +
+           "v.data BETWEEN :dataInicio AND :dataFim AND " +
+           "EXISTS (SELECT 1 FROM financeiro_pagamentos p WHERE p.cliente_id = v.id)) r " +
+           "GROUP BY r.filial", nativeQuery = true)
+    List<Object[]> resumoVendasTodasFiliais(@Param("vendedor") String vendedor,
+                                            @Param("dataInicio") LocalDate dataInicio,
+                                            @Param("dataFim") LocalDate dataFim);
+
+    // Resumo por filial do período atual e do anterior na mesma passada: as colunas de
+    // resumoVendasPorFilial (maior venda só do período atual) seguidas de total_anterior e numero_anterior
+    @Query(value = "SELECT r.filial, COALESCE(SUM(r.valor_debito) FILTER (WHERE r.atual), 0) AS total, " +
+           "COUNT(*) FILTER (WHERE r.atual) AS numero, " +
+           "MAX(r.valor_debito) FILTER (WHERE r.atual) AS maior_venda, " +
+           "MAX(r.nome) FILTER (WHERE r.atual AND r.posicao = 1) AS cliente_maior_venda, " +
+           "MAX(r.vendedor) FILTER (WHERE r.atual AND r.posicao = 1) AS vendedor_maior_venda, " +
+           "COALESCE(SUM(r.valor_debito) FILTER (WHERE r.anterior), 0) AS total_anterior, " +
+           "COUNT(*) FILTER (WHERE r.anterior) AS numero_anterior " +
+           "FROM (SELECT v.filial, v.valor_debito, v.nome, v.vendedor, " +
+           "v.data BETWEEN :dataInicio AND :dataFim AS atual, " +
+           "v.data BETWEEN :dataInicioAnterior AND :dataFimAnterior AS anterior, " +
+           "ROW_NUMBER() OVER (PARTITION BY v.filial, v.data BETWEEN :dataInicio AND :dataFim " +
+           "ORDER BY v.valor_debito DESC) AS posicao " +
+           "FROM financeiro_clientes v WHERE " +
+           "v.filial IN :filiais AND " +
+           "(:vendedor IS NULL OR UPPER(v.vendedor) = :vendedor) AND " +
+           "(v.data BETWEEN :dataInicio AND :dataFim OR v.data BETWEEN :dataInicioAnterior AND :dataFimAnterior) AND " +
+           "EXISTS (SELECT 1 FROM financeiro_pagamentos p WHERE p.cliente_id = v.id)) r " +
+           "GROUP BY r.filial", nativeQuery = true)
+    List<Object[]> resumoVendasComAnteriorPorFilial(@Param("filiais") List<String> filiais,
+                                                    @Param("vendedor") String vendedor,
+                                                    @Param("dataInicio") LocalDate dataInicio,
+                                                    @Param("dataFim") LocalDate dataFim,
+                                                    @Param("dataInicioAnterior") LocalDate dataInicioAnterior,
+                                                    @Param("dataFimAnterior") LocalDate dataFimAnterior);
+
+    // Mesmas colunas de resumoVendasComAnteriorPorFilial, considerando todas as filiais
+    @Query(value = "SELECT r.filial, COALESCE(SUM(r.valor_debito) FILTER (WHERE r.atual), 0) AS total, " +
+           "COUNT(*) FILTER (WHERE r.atual) AS numero, " +
+           "MAX(r.valor_debito) FILTER (WHERE r.atual) AS maior_venda, " +
+           "MAX(r.nome) FILTER (WHERE r.atual AND r.posicao = 1) AS cliente_maior_venda, " +
+           "MAX(r.vendedor) FILTER (WHERE r.atual AND r.posicao = 1) AS vendedor_maior_venda, " +
+           "COALESCE(SUM(r.valor_debito) FILTER (WHERE r.anterior), 0) AS total_anterior, " +
+           "COUNT(*) FILTER (WHERE r.anterior) AS numero_anterior " +
+           "FROM (SELECT v.filial, v.valor_debito, v.nome, v.vendedor, " +
+           "v.data BETWEEN :dataInicio AND :dataFim AS atual, " +
+           "v.data BETWEEN :dataInicioAnterior AND :dataFimAnterior AS anterior, " +
+           "ROW_NUMBER() OVER (PARTITION BY v.filial, v.data BETWEEN :dataInicio AND :dataFim " +
+           "ORDER BY v.valor_debito DESC) AS posicao " +
+           "FROM financeiro_clientes v WHERE " +
+           "(:vendedor IS NULL OR UPPER(v.vendedor) = :vendedor) AND " +
+           "(v.data BETWEEN :dataInicio AND :dataFim OR v.data BETWEEN :dataInicioAnterior AND :dataFimAnterior) AND " +
+           "EXISTS (SELECT 1 FROM financeiro_pagamentos p WHERE p.cliente_id = v.id)) r " +
+           "GROUP BY r.filial", nativeQuery = true)
+    List<Object[]> resumoVendasComAnteriorTodasFiliais(@Param("vendedor") String vendedor,
+                                                       @Param("dataInicio") LocalDate dataInicio,
+                                                       @Param("dataFim") LocalDate dataFim,
+                                                       @Param("dataInicioAnterior") LocalDate dataInicioAnterior,
+                                                       @Param("dataFimAnterior") LocalDate dataFimAnterior);
+
+    // Vendedor que mais vendeu (por valor total); só a primeira linha é usada
+    @Query(value = "SELECT c.vendedor, SUM(c.valor_debito) AS total FROM financeiro_clientes c WHERE " +
            "(:filial IS NULL OR c.filial = :filial) AND " +
            "c.data BETWEEN :dataInicio AND :dataFim " +
-           "AND EXISTS (SELECT p FROM FinanceiroPagamento p WHERE p.clienteId = c.id) " +
-           "GROUP BY c.vendedor ORDER BY total DESC")
+           "AND EXISTS (SELECT 1 FROM financeiro_pagamentos p WHERE p.cliente_id = c.id) " +
+           "GROUP BY c.vendedor ORDER BY total DESC LIMIT 1", nativeQuery = true)
     List<Object[]> vendedorQueMaisVendeu(@Param("filial") String filial,
                                          @Param("dataInicio") LocalDate dataInicio,
                                          @Param("dataFim") LocalDate dataFim);
     
-    // Top vendedores (todos, sem limite) - NATIVE for compatibility with original if needed, but JPQL works too.
-    // Using native to ensure exact behavior with date functions if needed, but here simple GROUP BY is enough.
-    // However, I need to check the payment existence.
-    @Query(value = "SELECT v.vendedor, SUM(v.valor_debito) as total FROM financeiro_clientes v WHERE " +
-           "(:filial IS NULL OR v.filial = :filial) AND " +
-           "v.data BETWEEN :dataInicio AND :dataFim AND " +
-           "EXISTS (SELECT 1 FROM financeiro_pagamentos p WHERE p.cliente_id = v.id) " +
-           "GROUP BY v.vendedor HAVING SUM(v.valor_debito) > 0 ORDER BY total DESC", nativeQuery = true)
-    List<Object[]> top10Vendedores(@Param("filial") String filial,
-                                   @Param("dataInicio") LocalDate dataInicio,
-                                   @Param("dataFim") LocalDate dataFim);
-    
-    // Top vendedores de múltiplas filiais (todos, sem limite)
-    @Query(value = "SELECT v.vendedor, SUM(v.valor_debito) as total FROM financeiro_clientes v WHERE " +
+    // Ranking de vendedores com total do período atual e do período anterior em uma única consulta.
+    // O total anterior é somado por UPPER(vendedor), como no filtro por vendedor das demais consultas.
+    @Query(value = "SELECT r.vendedor, r.total, r.total_anterior FROM (" +
+           "SELECT g.vendedor, g.total, SUM(g.total_anterior) OVER (PARTITION BY UPPER(g.vendedor)) AS total_anterior " +
+           "FROM (SELECT v.vendedor, " +
+           "COALESCE(SUM(v.valor_debito) FILTER (WHERE v.data BETWEEN :dataInicio AND :dataFim), 0) AS total, " +
+           "COALESCE(SUM(v.valor_debito) FILTER (WHERE v.data BETWEEN :dataInicioAnterior AND :dataFimAnterior), 0) AS total_anterior " +
+           "FROM financeiro_clientes v WHERE " +
            "v.filial IN :filiais AND " +
-           "v.data BETWEEN :dataInicio AND :dataFim AND " +
+           "(v.data BETWEEN :dataInicio AND :dataFim OR v.data BETWEEN :dataInicioAnterior AND :dataFimAnterior) AND " +
            "EXISTS (SELECT 1 FROM financeiro_pagamentos p WHERE p.cliente_id = v.id) " +
-           "GROUP BY v.vendedor HAVING SUM(v.valor_debito) > 0 ORDER BY total DESC", nativeQuery = true)
-    List<Object[]> topVendedoresMultiplasFiliais(@Param("filiais") List<String> filiais,
-                                                  @Param("dataInicio") LocalDate dataInicio,
-                                                  @Param("dataFim") LocalDate dataFim);
-    
-    // Unidade que mais vendeu (por valor total)
-    @Query("SELECT c.filial, SUM(c.valorDebito) as total FROM FinanceiroCliente c WHERE " +
+           "GROUP BY v.vendedor) g) r " +
+           "WHERE r.total > 0 ORDER BY r.total DESC", nativeQuery = true)
+    List<Object[]> topVendedoresComAnteriorMultiplasFiliais(@Param("filiais") List<String> filiais,
+                                                            @Param("dataInicio") LocalDate dataInicio,
+                                                            @Param("dataFim") LocalDate dataFim,
+                                                            @Param("dataInicioAnterior") LocalDate dataInicioAnterior,
+                                                            @Param("dataFimAnterior") LocalDate dataFimAnterior);
+
+    // Ranking de vendedores com total atual e anterior (mesmas colunas, filial opcional)
+    @Query(value = "SELECT r.vendedor, r.total, r.total_anterior FROM (" +
+           "SELECT g.vendedor, g.total, SUM(g.total_anterior) OVER (PARTITION BY UPPER(g.vendedor)) AS total_anterior " +
+           "FROM (SELECT v.vendedor, " +
+           "COALESCE(SUM(v.valor_debito) FILTER (WHERE v.data BETWEEN :dataInicio AND :dataFim), 0) AS total, " +
+           "COALESCE(SUM(v.valor_debito) FILTER (WHERE v.data BETWEEN :dataInicioAnterior AND :dataFimAnterior), 0) AS total_anterior " +
+           "FROM financeiro_clientes v WHERE " +
+           "(:filial IS NULL OR v.filial = :filial) AND " +
+           "(v.data BETWEEN :dataInicio AND :dataFim OR v.data BETWEEN :dataInicioAnterior AND :dataFimAnterior) AND " +
+           "EXISTS (SELECT 1 FROM financeiro_pagamentos p WHERE p.cliente_id = v.id) " +
+           "GROUP BY v.vendedor) g) r " +
+           "WHERE r.total > 0 ORDER BY r.total DESC", nativeQuery = true)
+    List<Object[]> topVendedoresComAnterior(@Param("filial") String filial,
+                                            @Param("dataInicio") LocalDate dataInicio,
+                                            @Param("dataFim") LocalDate dataFim,
+                                            @Param("dataInicioAnterior") LocalDate dataInicioAnterior,
+                                            @Param("dataFimAnterior") LocalDate dataFimAnterior);
+
+    // Unidade que mais vendeu (por valor total); só a primeira linha é usada
+    @Query(value = "SELECT c.filial, SUM(c.valor_debito) AS total FROM financeiro_clientes c WHERE " +
            "(:vendedor IS NULL OR UPPER(c.vendedor) = :vendedor) AND " +
            "c.data BETWEEN :dataInicio AND :dataFim " +
-           "AND EXISTS (SELECT p FROM FinanceiroPagamento p WHERE p.clienteId = c.id) " +
-           "GROUP BY c.filial ORDER BY total DESC")
+           "AND EXISTS (SELECT 1 FROM financeiro_pagamentos p WHERE p.cliente_id = c.id) " +
+           "GROUP BY c.filial ORDER BY total DESC LIMIT 1", nativeQuery = true)
     List<Object[]> unidadeQueMaisVendeu(@Param("vendedor") String vendedor,
                                         @Param("dataInicio") LocalDate dataInicio,
                                         @Param("dataFim") LocalDate dataFim);
@@ -121,24 +177,38 @@ public interface FinanceiroClienteRepository extends JpaRepository<FinanceiroCli
     // Buscar todas as filiais distintas (assuming valid sales only? Original didn't filter by sales existenc usually, just distinct)
     // But to be consistent with "Data Source", maybe we should only list filials with sales? 
     // The original `findDistinctFiliais` was just `SELECT DISTINCT v.filial FROM Venda v`.
-    @Query("SELECT DISTINCT c.filial FROM FinanceiroCliente c ORDER BY c.filial")
+    @Query(value = "SELECT DISTINCT c.filial FROM financeiro_clientes c ORDER BY c.filial", nativeQuery = true)
     List<String> findDistinctFiliais();
     
     // Buscar todos os vendedores distintos
-    @Query("SELECT DISTINCT UPPER(c.vendedor) FROM FinanceiroCliente c WHERE c.vendedor IS NOT NULL ORDER BY UPPER(c.vendedor)")
+    @Query(value = "SELECT DISTINCT UPPER(c.vendedor) AS vendedor FROM financeiro_clientes c " +
+           "WHERE c.vendedor IS NOT NULL ORDER BY 1", nativeQuery = true)
     List<String> findDistinctVendedores();
     
     // Buscar vendedores distintos por filial
-    @Query("SELECT DISTINCT UPPER(c.vendedor) FROM FinanceiroCliente c WHERE c.filial = :filial AND c.vendedor IS NOT NULL ORDER BY UPPER(c.vendedor)")
+    @Query(value = "SELECT DISTINCT UPPER(c.vendedor) AS vendedor FROM financeiro_clientes c " +
+           "WHERE c.filial = :filial AND c.vendedor IS NOT NULL ORDER BY 1", nativeQuery = true)
     List<String> findDistinctVendedoresByFilial(@Param("filial") String filial);
     
+    // Pares (filial, vendedor em maiúsculas) para o CatalogoDimensoes; vendedor nulo marca filial sem vendedor
+    @Query(value = "SELECT c.filial, UPPER(c.vendedor) FROM financeiro_clientes c " +
+           "WHERE c.filial IS NOT NULL GROUP BY c.filial, UPPER(c.vendedor)", nativeQuery = true)
+    List<Object[]> paresFilialVendedor();
+    
+    // Pares das vendas novas ou recadastradas desde as marcas, para a atualização incremental do catálogo
+    @Query(value = "SELECT c.filial, UPPER(c.vendedor) FROM financeiro_clientes c " +
+           "WHERE c.filial IS NOT NULL AND (c.id > :ultimoId OR c.data_cadastro > :ultimaDataCadastro) " +
+           "GROUP BY c.filial, UPPER(c.vendedor)", nativeQuery = true)
+    List<Object[]> paresFilialVendedorDesde(@Param("ultimoId") Long ultimoId,
+                                            @Param("ultimaDataCadastro") LocalDateTime ultimaDataCadastro);
+    
     // Dados para gráfico de vendas por período
-    @Query("SELECT c.data as data, SUM(c.valorDebito) as total FROM FinanceiroCliente c WHERE " +
+    @Query(value = "SELECT c.data AS data, SUM(c.valor_debito) AS total FROM financeiro_clientes c WHERE " +
            "(:filial IS NULL OR c.filial = :filial) AND " +
            "(:vendedor IS NULL OR UPPER(c.vendedor) = :vendedor) AND " +
            "c.data BETWEEN :dataInicio AND :dataFim " +
-           "AND EXISTS (SELECT p FROM FinanceiroPagamento p WHERE p.clienteId = c.id) " +
-           "GROUP BY c.data ORDER BY c.data")
+           "AND EXISTS (SELECT 1 FROM financeiro_pagamentos p WHERE p.cliente_id = c.id) " +
+           "GROUP BY c.data ORDER BY c.data", nativeQuery = true)
     List<Object[]> dadosGraficoVendasPorPeriodo(@Param("filial") String filial,
                                                 @Param("vendedor") String vendedor,
                                                 @Param("dataInicio") LocalDate dataInicio,
@@ -158,15 +228,50 @@ public interface FinanceiroClienteRepository extends JpaRepository<FinanceiroCli
                                            @Param("dataInicio") LocalDate dataInicio,
                                            @Param("dataFim") LocalDate dataFim);
     
-    // Debug
-    @Query(value = "SELECT EXTRACT(YEAR FROM v.data) as ano, " +
-           "EXTRACT(MONTH FROM v.data) as mes, " +
-           "COUNT(*) as vendas, SUM(v.valor_debito) as total " +
-           "FROM financeiro_clientes v WHERE " +
-           "v.data BETWEEN :dataInicio AND :dataFim AND " +
-           "EXISTS (SELECT 1 FROM financeiro_pagamentos p WHERE p.cliente_id = v.id) " +
-           "GROUP BY EXTRACT(YEAR FROM v.data), EXTRACT(MONTH FROM v.data) " +
-           "ORDER BY ano, mes", nativeQuery = true)
-    List<Object[]> debugMonthSummary(@Param("dataInicio") LocalDate dataInicio,
-                                   @Param("dataFim") LocalDate dataFim);
+    // Carga do snapshot em memória: todas as vendas a partir de uma data, ordenadas por data.
+    // O pagamento é resolvido no BitmapPagamentos, sem EXISTS por linha. Deve ser consumido dentro de uma transação.
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "5000"))
+    @Query(value = "SELECT v.id, v.data, v.valor_debito, v.filial, v.vendedor, v.nome " +
+           "FROM financeiro_clientes v WHERE v.data >= :desde " +
+           "ORDER BY v.data, v.id", nativeQuery = true)
+    Stream<Object[]> carregarVendasDesde(@Param("desde") LocalDate desde);
+
+    // Exportação das vendas pagas com os totais dos pagamentos, ordenadas por data: id, data, filial, vendedor,
+    // nome, forma_pagamento, valor_debito, valor_pago, total_pago, pagamentos, ultimo_pagamento.
+    // Lidas do cursor do servidor em blocos do fetchSize; deve ser consumido dentro de uma transação.
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query(value = "SELECT " + COLUNAS_EXPORTACAO + " FROM financeiro_clientes c " + PAGAMENTOS_EXPORTACAO +
+           "WHERE c.filial IN :filiais AND " +
+           "(:vendedor IS NULL OR UPPER(c.vendedor) = :vendedor) AND " +
+           "c.data BETWEEN :dataInicio AND :dataFim " +
+           "ORDER BY c.data, c.id", nativeQuery = true)
+    Stream<Object[]> exportarVendas(@Param("filiais") List<String> filiais,
+                                    @Param("vendedor") String vendedor,
+                                    @Param("dataInicio") LocalDate dataInicio,
+                                    @Param("dataFim") LocalDate dataFim);
+
+    // Exportação considerando todas as filiais (mesmas colunas de exportarVendas)
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query(value = "SELECT " + COLUNAS_EXPORTACAO + " FROM financeiro_clientes c " + PAGAMENTOS_EXPORTACAO +
+           "WHERE (:vendedor IS NULL OR UPPER(c.vendedor) = :vendedor) AND " +
+           "c.data BETWEEN :dataInicio AND :dataFim " +
+           "ORDER BY c.data, c.id", nativeQuery = true)
+    Stream<Object[]> exportarVendasTodasFiliais(@Param("vendedor") String vendedor,
+                                                @Param("dataInicio") LocalDate dataInicio,
+                                                @Param("dataFim") LocalDate dataFim);
+
+    // Marcas d'água para a carga incremental do snapshot
+    @Query(value = "SELECT COALESCE(MAX(c.id), 0) FROM financeiro_clientes c", nativeQuery = true)
+    Long ultimoId();
+    
+    @Query(value = "SELECT MAX(c.data_cadastro) FROM financeiro_clientes c", nativeQuery = true)
+    LocalDateTime ultimaDataCadastro();
+    
+    // Vendas novas (id acima da marca) ou recadastradas (data_cadastro acima da marca), com as
+    // mesmas colunas de carregarVendasDesde seguidas de data_cadastro
+    @Query(value = "SELECT v.id, v.data, v.valor_debito, v.filial, v.vendedor, v.nome, v.data_cadastro " +
+           "FROM financeiro_clientes v WHERE v.id > :ultimoId OR v.data_cadastro > :ultimaDataCadastro " +
+           "ORDER BY v.id", nativeQuery = true)
+    List<Object[]> vendasNovasOuAlteradas(@Param("ultimoId") Long ultimoId,
+                                          @Param("ultimaDataCadastro") LocalDateTime ultimaDataCadastro);
 }
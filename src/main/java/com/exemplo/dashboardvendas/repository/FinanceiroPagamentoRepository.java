@@ -2,8 +2,33 @@ package com.exemplo.dashboardvendas.repository;
 
 import com.exemplo.dashboardvendas.model.FinanceiroPagamento;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.QueryHint;
+
+import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
+@Transactional(readOnly = true)
 public interface FinanceiroPagamentoRepository extends JpaRepository<FinanceiroPagamento, Long> {
+    
+    // Marca d'água para a carga incremental do snapshot
+    @Query(value = "SELECT COALESCE(MAX(p.id), 0) FROM financeiro_pagamentos p", nativeQuery = true)
+    Long ultimoId();
+    
+    // Todos os cliente_id com pagamento (com repetições), para montar o BitmapPagamentos.
+    // Deve ser consumido dentro de uma transação.
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "10000"))
+    @Query(value = "SELECT p.cliente_id FROM financeiro_pagamentos p", nativeQuery = true)
+    Stream<Number> clientesComPagamento();
+    
+    // Pagamentos registrados depois da marca: id, cliente_id
+    @Query(value = "SELECT p.id, p.cliente_id FROM financeiro_pagamentos p WHERE p.id > :ultimoId " +
+           "ORDER BY p.id", nativeQuery = true)
+    List<Object[]> pagamentosNovos(@Param("ultimoId") Long ultimoId);
 }
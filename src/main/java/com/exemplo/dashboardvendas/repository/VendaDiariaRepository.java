@@ -0,0 +1,186 @@
+package com.exemplo.dashboardvendas.repository;
+
+import com.exemplo.dashboardvendas.model.VendaDiaria;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Consultas sobre o consolidado diário (vendas_diarias). As consultas de leitura devolvem as mesmas
+ * colunas das equivalentes em FinanceiroClienteRepository, lendo uma linha por dia, filial e grafia do
+ * vendedor em vez de cada venda. O vendedor já está em maiúsculas, como o filtro canônico do dashboard;
+ * vendedor_nome guarda a grafia original, que separa as linhas do ranking.
+ */
+@Repository
+public interface VendaDiariaRepository extends JpaRepository<VendaDiaria, VendaDiaria.Chave> {
+
+    // Resumo por filial (filial, total, numero, maior_venda, cliente_maior_venda, vendedor_maior_venda).
+    // O consolidado não guarda o cliente da maior venda: as duas últimas colunas vêm nulas.
+    @Query(value = "SELECT d.filial, COALESCE(SUM(d.total), 0) AS total, COALESCE(SUM(d.quantidade), 0) AS numero, " +
+           "MAX(d.maior_venda) AS maior_venda, NULL AS cliente_maior_venda, NULL AS vendedor_maior_venda " +
+           "FROM vendas_diarias d WHERE " +
+           "d.filial IN :filiais AND " +
+           "(:vendedor IS NULL OR d.vendedor = :vendedor) AND " +
+           "d.dia BETWEEN :dataInicio AND :dataFim " +
+           "GROUP BY d.filial", nativeQuery = true)
+    List<Object[]> resumoVendasPorFilial(@Param("filiais") List<String> filiais,
+                                         @Param("vendedor") String vendedor,
+                                         @Param("dataInicio") LocalDate dataInicio,
+                                         @Param("dataFim") LocalDate dataFim);
+
+    @Query(value = "SELECT d.filial, COALESCE(SUM(d.total), 0) AS total, COALESCE(SUM(d.quantidade), 0) AS numero, " +
+           "MAX(d.maior_venda) AS maior_venda, NULL AS cliente_maior_venda, NULL AS vendedor_maior_venda " +
+           "FROM vendas_diarias d WHERE " +
+           "(:vendedor IS NULL OR d.vendedor = :vendedor) AND " +
+           "d.dia BETWEEN :dataInicio AND :dataFim " +
+           "GROUP BY d.filial", nativeQuery = true)
+    List<Object[]> resumoVendasTodasFiliais(@Param("vendedor") String vendedor,
+                                            @Param("dataInicio") LocalDate dataInicio,
+                                            @Param("dataFim") LocalDate dataFim);
+
+    // Ranking com total atual e anterior (vendedor, total, total_anterior), sem as vendas sem vendedor.
+    // Uma linha por grafia, como a consulta direta; o total anterior soma todas as grafias do vendedor.
+    @Query(value = "SELECT r.vendedor_nome AS vendedor, r.total, r.total_anterior FROM (" +
+           "SELECT g.vendedor_nome, g.total, SUM(g.total_anterior) OVER (PARTITION BY g.vendedor) AS total_anterior FROM (" +
+           "SELECT d.vendedor, d.vendedor_nome, " +
+           "COALESCE(SUM(d.total) FILTER (WHERE d.dia BETWEEN :dataInicio AND :dataFim), 0) AS total, " +
+           "COALESCE(SUM(d.total) FILTER (WHERE d.dia BETWEEN :dataInicioAnterior AND :dataFimAnterior), 0) AS total_anterior " +
+           "FROM vendas_diarias d WHERE " +
+           "d.filial IN :filiais AND d.vendedor <> '' AND " +
+           "(d.dia BETWEEN :dataInicio AND :dataFim OR d.dia BETWEEN :dataInicioAnterior AND :dataFimAnterior) " +
+           "GROUP BY d.vendedor, d.vendedor_nome) g) r " +
+           "WHERE r.total > 0 " +
+           "ORDER BY r.total DESC", nativeQuery = true)
+    List<Object[]> topVendedoresComAnteriorMultiplasFiliais(@Param("filiais") List<String> filiais,
+                                                            @Param("dataInicio") LocalDate dataInicio,
+                                                            @Param("dataFim") LocalDate dataFim,
+                                                            @Param("dataInicioAnterior") LocalDate dataInicioAnterior,
+                                                            @Param("dataFimAnterior") LocalDate dataFimAnterior);
+
+    @Query(value = "SELECT r.vendedor_nome AS vendedor, r.total, r.total_anterior FROM (" +
+           "SELECT g.vendedor_nome, g.total, SUM(g.total_anterior) OVER (PARTITION BY g.vendedor) AS total_anterior FROM (" +
+           "SELECT d.vendedor, d.vendedor_nome, " +
+           "COALESCE(SUM(d.total) FILTER (WHERE d.dia BETWEEN :dataInicio AND :dataFim), 0) AS total, " +
+           "COALESCE(SUM(d.total) FILTER (WHERE d.dia BETWEEN :dataInicioAnterior AND :dataFimAnterior), 0) AS total_anterior " +
+           "FROM vendas_diarias d WHERE " +
+           "d.vendedor <> '' AND " +
+           "(d.dia BETWEEN :dataInicio AND :dataFim OR d.dia BETWEEN :dataInicioAnterior AND :dataFimAnterior) " +
+           "GROUP BY d.vendedor, d.vendedor_nome) g) r " +
+           "WHERE r.total > 0 " +
+           "ORDER BY r.total DESC", nativeQuery = true)
+    List<Object[]> topVendedoresComAnteriorTodasFiliais(@Param("dataInicio") LocalDate dataInicio,
+                                                        @Param("dataFim") LocalDate dataFim,
+                                                        @Param("dataInicioAnterior") LocalDate dataInicioAnterior,
+                                                        @Param("dataFimAnterior") LocalDate dataFimAnterior);
+
+    // Gráfico por dia (data, total)
+    @Query(value = "SELECT d.dia, SUM(d.total) AS total FROM vendas_diarias d WHERE " +
+           "d.filial IN :filiais AND " +
+           "(:vendedor IS NULL OR d.vendedor = :vendedor) AND " +
+           "d.dia BETWEEN :dataInicio AND :dataFim " +
+           "GROUP BY d.dia ORDER BY d.dia", nativeQuery = true)
+    List<Object[]> dadosGraficoVendasPorPeriodo(@Param("filiais") List<String> filiais,
+                                                @Param("vendedor") String vendedor,
+                                                @Param("dataInicio") LocalDate dataInicio,
+                                                @Param("dataFim") LocalDate dataFim);
+
+    @Query(value = "SELECT d.dia, SUM(d.total) AS total FROM vendas_diarias d WHERE " +
+           "(:vendedor IS NULL OR d.vendedor = :vendedor) AND " +
+           "d.dia BETWEEN :dataInicio AND :dataFim " +
+           "GROUP BY d.dia ORDER BY d.dia", nativeQuery = true)
+    List<Object[]> dadosGraficoVendasPorPeriodoTodasFiliais(@Param("vendedor") String vendedor,
+                                                            @Param("dataInicio") LocalDate dataInicio,
+                                                            @Param("dataFim") LocalDate dataFim);
+
+    // Gráfico por mês (mes, total)
+    @Query(value = "SELECT DATE_TRUNC('month', d.dia) AS mes, SUM(d.total) AS total FROM vendas_diarias d WHERE " +
+           "d.filial IN :filiais AND " +
+           "(:vendedor IS NULL OR d.vendedor = :vendedor) AND " +
+           "d.dia BETWEEN :dataInicio AND :dataFim " +
+           "GROUP BY DATE_TRUNC('month', d.dia) ORDER BY mes", nativeQuery = true)
+    List<Object[]> dadosGraficoVendasPorMes(@Param("filiais") List<String> filiais,
+                                            @Param("vendedor") String vendedor,
+                                            @Param("dataInicio") LocalDate dataInicio,
+                                            @Param("dataFim") LocalDate dataFim);
+
+    @Query(value = "SELECT DATE_TRUNC('month', d.dia) AS mes, SUM(d.total) AS total FROM vendas_diarias d WHERE " +
+           "(:vendedor IS NULL OR d.vendedor = :vendedor) AND " +
+           "d.dia BETWEEN :dataInicio AND :dataFim " +
+           "GROUP BY DATE_TRUNC('month', d.dia) ORDER BY mes", nativeQuery = true)
+    List<Object[]> dadosGraficoVendasPorMesTodasFiliais(@Param("vendedor") String vendedor,
+                                                        @Param("dataInicio") LocalDate dataInicio,
+                                                        @Param("dataFim") LocalDate dataFim);
+
+    // Marcas d'água gravadas (ultimo_cliente_id, ultima_data_cadastro, ultimo_pagamento_id); vazio antes da primeira carga
+    @Query(value = "SELECT c.ultimo_cliente_id, c.ultima_data_cadastro, c.ultimo_pagamento_id " +
+           "FROM vendas_diarias_controle c WHERE c.id = 1", nativeQuery = true)
+    List<Object[]> lerControle();
+
+    @Modifying
+    @Query(value = "INSERT INTO vendas_diarias_controle " +
+           "(id, ultimo_cliente_id, ultima_data_cadastro, ultimo_pagamento_id, atualizado_em) " +
+           "VALUES (1, :ultimoClienteId, :ultimaDataCadastro, :ultimoPagamentoId, now()) " +
+           "ON CONFLICT (id) DO UPDATE SET ultimo_cliente_id = EXCLUDED.ultimo_cliente_id, " +
+           "ultima_data_cadastro = EXCLUDED.ultima_data_cadastro, " +
+           "ultimo_pagamento_id = EXCLUDED.ultimo_pagamento_id, atualizado_em = EXCLUDED.atualizado_em",
+           nativeQuery = true)
+    int gravarControle(@Param("ultimoClienteId") Long ultimoClienteId,
+                       @Param("ultimaDataCadastro") LocalDateTime ultimaDataCadastro,
+                       @Param("ultimoPagamentoId") Long ultimoPagamentoId);
+
+    // Dias afetados por vendas novas ou recadastradas e por pagamentos novos desde as marcas
+    // (java.sql.Date ou LocalDate, conforme o driver)
+    @Query(value = "SELECT v.data FROM financeiro_clientes v " +
+           "WHERE v.id > :ultimoClienteId OR v.data_cadastro > :ultimaDataCadastro " +
+           "UNION " +
+           "SELECT v.data FROM financeiro_pagamentos p JOIN financeiro_clientes v ON v.id = p.cliente_id " +
+           "WHERE p.id > :ultimoPagamentoId", nativeQuery = true)
+    List<Object> diasAlterados(@Param("ultimoClienteId") Long ultimoClienteId,
+                               @Param("ultimaDataCadastro") LocalDateTime ultimaDataCadastro,
+                               @Param("ultimoPagamentoId") Long ultimoPagamentoId);
+
+    // Assinatura de cada dia (dia, md5 das linhas do dia), para descobrir os dias que a reconstrução mudou
+    @Query(value = "SELECT d.dia, md5(string_agg(d.filial || '|' || d.vendedor || '|' || d.vendedor_nome || '|' || " +
+           "d.total || '|' || d.quantidade || '|' || d.maior_venda, ',' ORDER BY d.filial, d.vendedor, d.vendedor_nome)) " +
+           "FROM vendas_diarias d GROUP BY d.dia", nativeQuery = true)
+    List<Object[]> assinaturasPorDia();
+
+    // Assinatura apenas dos dias informados (mesmo formato de assinaturasPorDia); dias sem linhas não aparecem
+    @Query(value = "SELECT d.dia, md5(string_agg(d.filial || '|' || d.vendedor || '|' || d.vendedor_nome || '|' || " +
+           "d.total || '|' || d.quantidade || '|' || d.maior_venda, ',' ORDER BY d.filial, d.vendedor, d.vendedor_nome)) " +
+           "FROM vendas_diarias d WHERE d.dia IN :dias GROUP BY d.dia", nativeQuery = true)
+    List<Object[]> assinaturasDosDias(@Param("dias") List<LocalDate> dias);
+
+    @Modifying
+    @Query(value = "DELETE FROM vendas_diarias WHERE dia IN :dias", nativeQuery = true)
+    int removerDias(@Param("dias") List<LocalDate> dias);
+
+    @Modifying
+    @Query(value = "DELETE FROM vendas_diarias", nativeQuery = true)
+    int removerTodos();
+
+    // Recalcula os dias informados a partir das vendas pagas (mesma regra EXISTS das demais consultas)
+    @Modifying
+    @Query(value = "INSERT INTO vendas_diarias (dia, filial, vendedor, vendedor_nome, total, quantidade, maior_venda) " +
+           "SELECT v.data, v.filial, COALESCE(UPPER(v.vendedor), ''), COALESCE(v.vendedor, ''), " +
+           "COALESCE(SUM(v.valor_debito), 0), COUNT(*), COALESCE(MAX(v.valor_debito), 0) " +
+           "FROM financeiro_clientes v WHERE v.data IN :dias AND " +
+           "EXISTS (SELECT 1 FROM financeiro_pagamentos p WHERE p.cliente_id = v.id) " +
+           "GROUP BY v.data, v.filial, COALESCE(UPPER(v.vendedor), ''), COALESCE(v.vendedor, '')", nativeQuery = true)
+    int recalcularDias(@Param("dias") List<LocalDate> dias);
+
+    @Modifying
+    @Query(value = "INSERT INTO vendas_diarias (dia, filial, vendedor, vendedor_nome, total, quantidade, maior_venda) " +
+           "SELECT v.data, v.filial, COALESCE(UPPER(v.vendedor), ''), COALESCE(v.vendedor, ''), " +
+           "COALESCE(SUM(v.valor_debito), 0), COUNT(*), COALESCE(MAX(v.valor_debito), 0) " +
+           "FROM financeiro_clientes v WHERE v.data IS NOT NULL AND " +
+           "EXISTS (SELECT 1 FROM financeiro_pagamentos p WHERE p.cliente_id = v.id) " +
+           "GROUP BY v.data, v.filial, COALESCE(UPPER(v.vendedor), ''), COALESCE(v.vendedor, '')", nativeQuery = true)
+    int recalcularTodos();
+}
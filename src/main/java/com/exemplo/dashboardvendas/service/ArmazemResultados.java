@@ -0,0 +1,253 @@
+package com.exemplo.dashboardvendas.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Arquivo de resultados mapeado em memória, com tamanho fixo. Os registros são acrescentados em sequência
+ * (valor ou remoção de uma chave) e o índice das chaves vivas fica em memória, refeito ao abrir o arquivo
+ * percorrendo os registros. O cabeçalho guarda o fim do último registro completo, atualizado depois de cada
+ * gravação: um registro interrompido no meio é ignorado na próxima abertura.
+ *
+ * Cada valor carrega o período de vendas de onde saiu, para ser removido quando algum dia dele muda.
+ * Com o arquivo cheio os registros vivos são compactados no início; se ainda assim não couber, o
+ * arquivo é esvaziado (é só um cache: os valores são calculados de novo).
+ */
+class ArmazemResultados implements Closeable {
+
+    private static final int MAGICO = 0x44565246;
+    // Trocar quando o layout dos registros ou a forma serializada dos valores mudar: o arquivo antigo é descartado
+    private static final int VERSAO_FORMATO = 1;
+    // Mágico, versão e fim dos registros
+    private static final int CABECALHO = 16;
+    private static final int POSICAO_FIM = 8;
+
+    private static final byte VALOR = 1;
+    private static final byte REMOCAO = 2;
+
+    private final RandomAccessFile arquivo;
+    private final MappedByteBuffer buffer;
+    private final Map<String, Entrada> indice = new HashMap<>();
+    private int fim;
+
+    private ArmazemResultados(RandomAccessFile arquivo, MappedByteBuffer buffer) {
+        this.arquivo = arquivo;
+        this.buffer = buffer;
+    }
+
+    static ArmazemResultados abrir(Path caminho, int capacidade) throws IOException {
+        if (caminho.getParent() != null) {
+            Files.createDirectories(caminho.getParent());
+        }
+        RandomAccessFile arquivo = new RandomAccessFile(caminho.toFile(), "rw");
+        try {
+            boolean novo = arquivo.length() != capacidade;
+            arquivo.setLength(capacidade);
+            MappedByteBuffer buffer = arquivo.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacidade);
+            ArmazemResultados armazem = new ArmazemResultados(arquivo, buffer);
+            if (novo || buffer.getInt(0) != MAGICO || buffer.getInt(4) != VERSAO_FORMATO) {
+                armazem.limpar();
+            } else {
+                armazem.carregarIndice();
+            }
+            return armazem;
+        } catch (IOException | RuntimeException e) {
+            arquivo.close();
+            throw e;
+        }
+    }
+
+    synchronized byte[] ler(String chave) {
+        Entrada entrada = indice.get(chave);
+        if (entrada == null) {
+            return null;
+        }
+        byte[] valor = new byte[entrada.tamanho];
+        buffer.get(entrada.posicaoValor, valor);
+        return valor;
+    }
+
+    /**
+     * Grava o valor da chave, calculado a partir das vendas de dataInicio a dataFim; false se não coube
+     * nem depois de compactar
+     */
+    synchronized boolean gravar(String chave, LocalDate dataInicio, LocalDate dataFim, byte[] valor) {
+        byte[] bytesChave = chave.getBytes(StandardCharsets.UTF_8);
+        int tamanho = tamanhoRegistro(bytesChave.length, valor.length);
+        if (fim + tamanho > buffer.capacity()) {
+            compactar();
+            if (fim + tamanho > buffer.capacity()) {
+                limpar();
+                if (fim + tamanho > buffer.capacity()) {
+                    return false;
+                }
+            }
+        }
+        int posicaoValor = escrever(VALOR, bytesChave, dataInicio.toEpochDay(), dataFim.toEpochDay(), valor);
+        indice.put(chave, new Entrada(posicaoValor, valor.length, dataInicio.toEpochDay(), dataFim.toEpochDay()));
+        return true;
+    }
+
+    /**
+     * Remove os valores cujo período contém algum dos dias (em ordem crescente); devolve quantos saíram
+     */
+    synchronized int removerDias(long[] dias) {
+        List<String> removidas = new ArrayList<>();
+        for (Map.Entry<String, Entrada> item : indice.entrySet()) {
+            Entrada entrada = item.getValue();
+            int posicao = Arrays.binarySearch(dias, entrada.inicio);
+            int primeiroDepois = posicao >= 0 ? posicao : -posicao - 1;
+            if (primeiroDepois < dias.length && dias[primeiroDepois] <= entrada.fim) {
+                removidas.add(item.getKey());
+            }
+        }
+        for (String chave : removidas) {
+            remover(chave);
+        }
+        return removidas.size();
+    }
+
+    synchronized void remover(String chave) {
+        if (indice.remove(chave) == null) {
+            return;
+        }
+        byte[] bytesChave = chave.getBytes(StandardCharsets.UTF_8);
+        if (fim + tamanhoRegistro(bytesChave.length, 0) > buffer.capacity()) {
+            // Sem espaço para o registro de remoção: compactar já descarta o valor
+            compactar();
+            return;
+        }
+        escrever(REMOCAO, bytesChave, 0, 0, new byte[0]);
+    }
+
+    synchronized void limpar() {
+        indice.clear();
+        buffer.putInt(0, MAGICO);
+        buffer.putInt(4, VERSAO_FORMATO);
+        publicarFim(CABECALHO);
+    }
+
+    synchronized int getQuantidade() {
+        return indice.size();
+    }
+
+    synchronized int getBytesUsados() {
+        return fim;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        arquivo.close();
+    }
+
+    // tipo, início, fim, tamanho e bytes da chave, tamanho e bytes do valor
+    private static int tamanhoRegistro(int tamanhoChave, int tamanhoValor) {
+        return 1 + 8 + 8 + 4 + tamanhoChave + 4 + tamanhoValor;
+    }
+
+    private int escrever(byte tipo, byte[] chave, long inicio, long fimPeriodo, byte[] valor) {
+        int posicao = fim;
+        buffer.put(posicao, tipo);
+        buffer.putLong(posicao + 1, inicio);
+        buffer.putLong(posicao + 9, fimPeriodo);
+        buffer.putInt(posicao + 17, chave.length);
+        buffer.put(posicao + 21, chave);
+        int posicaoValor = posicao + 21 + chave.length + 4;
+        buffer.putInt(posicaoValor - 4, valor.length);
+        buffer.put(posicaoValor, valor);
+        publicarFim(posicaoValor + valor.length);
+        return posicaoValor;
+    }
+
+    private void publicarFim(int novoFim) {
+        fim = novoFim;
+        buffer.putInt(POSICAO_FIM, novoFim);
+    }
+
+    private void carregarIndice() {
+        int limite = buffer.getInt(POSICAO_FIM);
+        if (limite < CABECALHO || limite > buffer.capacity()) {
+            limpar();
+            return;
+        }
+        int posicao = CABECALHO;
+        while (posicao < limite) {
+            if (posicao + 21 > limite) {
+                break;
+            }
+            byte tipo = buffer.get(posicao);
+            long inicio = buffer.getLong(posicao + 1);
+            long fimPeriodo = buffer.getLong(posicao + 9);
+            int tamanhoChave = buffer.getInt(posicao + 17);
+            if ((tipo != VALOR && tipo != REMOCAO) || tamanhoChave < 0 || posicao + 25L + tamanhoChave > limite) {
+                break;
+            }
+            byte[] chave = new byte[tamanhoChave];
+            buffer.get(posicao + 21, chave);
+            int posicaoValor = posicao + 25 + tamanhoChave;
+            int tamanhoValor = buffer.getInt(posicaoValor - 4);
+            if (tamanhoValor < 0 || (long) posicaoValor + tamanhoValor > limite) {
+                break;
+            }
+            String texto = new String(chave, StandardCharsets.UTF_8);
+            if (tipo == VALOR) {
+                indice.put(texto, new Entrada(posicaoValor, tamanhoValor, inicio, fimPeriodo));
+            } else {
+                indice.remove(texto);
+            }
+            posicao = posicaoValor + tamanhoValor;
+        }
+        // Registros ilegíveis no fim são descartados
+        publicarFim(posicao);
+    }
+
+    /**
+     * Reescreve só os valores vivos a partir do início, na ordem em que estão no arquivo (cada registro
+     * só se move para trás). O fim avança a cada registro reescrito: uma queda no meio perde só os que
+     * ainda não tinham sido movidos.
+     */
+    private void compactar() {
+        List<Map.Entry<String, Entrada>> vivas = new ArrayList<>(indice.entrySet());
+        vivas.sort(Comparator.comparingInt(item -> item.getValue().posicaoValor));
+        publicarFim(CABECALHO);
+        Map<String, Entrada> novoIndice = new HashMap<>();
+        for (Map.Entry<String, Entrada> item : vivas) {
+            Entrada entrada = item.getValue();
+            byte[] valor = new byte[entrada.tamanho];
+            buffer.get(entrada.posicaoValor, valor);
+            int posicaoValor = escrever(VALOR, item.getKey().getBytes(StandardCharsets.UTF_8),
+                entrada.inicio, entrada.fim, valor);
+            novoIndice.put(item.getKey(), new Entrada(posicaoValor, entrada.tamanho, entrada.inicio, entrada.fim));
+        }
+        indice.clear();
+        indice.putAll(novoIndice);
+    }
+
+    private static class Entrada {
+        private final int posicaoValor;
+        private final int tamanho;
+        private final long inicio;
+        private final long fim;
+
+        private Entrada(int posicaoValor, int tamanho, long inicio, long fim) {
+            this.posicaoValor = posicaoValor;
+            this.tamanho = tamanho;
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+    }
+}
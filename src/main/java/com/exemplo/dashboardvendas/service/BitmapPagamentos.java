@@ -0,0 +1,206 @@
+package com.exemplo.dashboardvendas.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Conjunto dos cliente_id que têm pelo menos um registro em financeiro_pagamentos, no lugar do
+ * EXISTS (SELECT 1 FROM financeiro_pagamentos p WHERE p.cliente_id = v.id) das consultas.
+ *
+ * Os ids são divididos em blocos de 65536 (16 bits altos como chave). Cada bloco guarda os 16 bits
+ * baixos em um array ordenado quando tem até 4096 ids, ou em um bitmap de 8 KB acima disso.
+ * A estrutura é imutável: acréscimos geram uma nova versão que só copia os blocos alterados,
+ * então as leituras podem ser feitas de qualquer thread sem sincronização.
+ */
+public class BitmapPagamentos {
+
+    private static final int BITS_BLOCO = 16;
+    private static final int PALAVRAS_BLOCO = (1 << BITS_BLOCO) / 64;
+    // Acima desta quantidade o bitmap (8 KB) ocupa menos que o array de char
+    private static final int LIMITE_ARRAY = 4096;
+
+    private static final BitmapPagamentos VAZIO = new BitmapPagamentos(new long[0], new Bloco[0]);
+
+    private final long[] chaves;
+    private final Bloco[] blocos;
+    private final long cardinalidade;
+
+    private BitmapPagamentos(long[] chaves, Bloco[] blocos) {
+        this.chaves = chaves;
+        this.blocos = blocos;
+        long soma = 0;
+        for (Bloco bloco : blocos) soma += bloco.cardinalidade();
+        this.cardinalidade = soma;
+    }
+
+    public static BitmapPagamentos vazio() {
+        return VAZIO;
+    }
+
+    public boolean contem(long clienteId) {
+        if (clienteId < 0) {
+            return false;
+        }
+        int i = Arrays.binarySearch(chaves, clienteId >>> BITS_BLOCO);
+        return i >= 0 && blocos[i].contem((int) (clienteId & 0xFFFF));
+    }
+
+    public long getCardinalidade() {
+        return cardinalidade;
+    }
+
+    /**
+     * Tamanho aproximado em bytes dos blocos, para acompanhamento
+     */
+    public long getTamanhoBytes() {
+        long bytes = chaves.length * 8L;
+        for (Bloco bloco : blocos) bytes += bloco.tamanhoBytes();
+        return bytes;
+    }
+
+    /**
+     * Nova versão com os ids informados (em qualquer ordem, com repetições) acrescentados
+     */
+    public BitmapPagamentos comIds(Iterable<Long> clienteIds) {
+        Map<Long, long[]> alterados = new HashMap<>();
+        for (Long clienteId : clienteIds) {
+            if (clienteId == null || clienteId < 0 || contem(clienteId)) continue;
+            long chave = clienteId >>> BITS_BLOCO;
+            long[] palavras = alterados.computeIfAbsent(chave, this::expandir);
+            int baixo = (int) (clienteId & 0xFFFF);
+            palavras[baixo >>> 6] |= 1L << baixo;
+        }
+        if (alterados.isEmpty()) {
+            return this;
+        }
+
+        Map<Long, Bloco> porChave = new HashMap<>();
+        for (int i = 0; i < chaves.length; i++) porChave.put(chaves[i], blocos[i]);
+        alterados.forEach((chave, palavras) -> porChave.put(chave, compactar(palavras)));
+        return deMapa(porChave);
+    }
+
+    private long[] expandir(long chave) {
+        long[] palavras = new long[PALAVRAS_BLOCO];
+        int i = Arrays.binarySearch(chaves, chave);
+        if (i >= 0) {
+            blocos[i].preencher(palavras);
+        }
+        return palavras;
+    }
+
+    private static BitmapPagamentos deMapa(Map<Long, Bloco> porChave) {
+        long[] chaves = porChave.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        Bloco[] blocos = new Bloco[chaves.length];
+        for (int i = 0; i < chaves.length; i++) blocos[i] = porChave.get(chaves[i]);
+        return new BitmapPagamentos(chaves, blocos);
+    }
+
+    private static Bloco compactar(long[] palavras) {
+        int cardinalidade = 0;
+        for (long palavra : palavras) cardinalidade += Long.bitCount(palavra);
+        if (cardinalidade > LIMITE_ARRAY) {
+            return new BlocoBitmap(palavras.clone(), cardinalidade);
+        }
+
+        char[] valores = new char[cardinalidade];
+        int n = 0;
+        for (int p = 0; p < palavras.length; p++) {
+            long palavra = palavras[p];
+            while (palavra != 0) {
+                valores[n++] = (char) (p * 64 + Long.numberOfTrailingZeros(palavra));
+                palavra &= palavra - 1;
+            }
+        }
+        return new BlocoArray(valores);
+    }
+
+    private interface Bloco {
+        boolean contem(int baixo);
+
+        int cardinalidade();
+
+        long tamanhoBytes();
+
+        void preencher(long[] palavras);
+    }
+
+    private static class BlocoArray implements Bloco {
+        private final char[] valores;
+
+        private BlocoArray(char[] valores) {
+            this.valores = valores;
+        }
+
+        @Override
+        public boolean contem(int baixo) {
+            return Arrays.binarySearch(valores, (char) baixo) >= 0;
+        }
+
+        @Override
+        public int cardinalidade() {
+            return valores.length;
+        }
+
+        @Override
+        public long tamanhoBytes() {
+            return valores.length * 2L;
+        }
+
+        @Override
+        public void preencher(long[] palavras) {
+            for (char valor : valores) palavras[valor >>> 6] |= 1L << valor;
+        }
+    }
+
+    private static class BlocoBitmap implements Bloco {
+        private final long[] palavras;
+        private final int cardinalidade;
+
+        private BlocoBitmap(long[] palavras, int cardinalidade) {
+            this.palavras = palavras;
+            this.cardinalidade = cardinalidade;
+        }
+
+        @Override
+        public boolean contem(int baixo) {
+            return (palavras[baixo >>> 6] & (1L << baixo)) != 0;
+        }
+
+        @Override
+        public int cardinalidade() {
+            return cardinalidade;
+        }
+
+        @Override
+        public long tamanhoBytes() {
+            return palavras.length * 8L;
+        }
+
+        @Override
+        public void preencher(long[] destino) {
+            for (int i = 0; i < palavras.length; i++) destino[i] |= palavras[i];
+        }
+    }
+
+    /**
+     * Montagem da carga completa: os ids chegam em qualquer ordem e cada bloco é compactado no final
+     */
+    public static class Construtor {
+        private final Map<Long, long[]> palavrasPorChave = new HashMap<>();
+
+        public void adicionar(long clienteId) {
+            if (clienteId < 0) return;
+            long[] palavras = palavrasPorChave.computeIfAbsent(clienteId >>> BITS_BLOCO, chave -> new long[PALAVRAS_BLOCO]);
+            int baixo = (int) (clienteId & 0xFFFF);
+            palavras[baixo >>> 6] |= 1L << baixo;
+        }
+
+        public BitmapPagamentos construir() {
+            Map<Long, Bloco> porChave = new HashMap<>();
+            palavrasPorChave.forEach((chave, palavras) -> porChave.put(chave, compactar(palavras)));
+            return deMapa(porChave);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.exemplo.dashboardvendas.service;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Catálogo das filiais e vendedores (em maiúsculas) que aparecem em financeiro_clientes, no lugar
+ * dos SELECT DISTINCT sobre a tabela de vendas.
+ *
+ * Cada nome recebe um id de dicionário (posição de entrada) e cada filial guarda em um BitSet os ids
+ * dos seus vendedores. As listas ordenadas devolvidas ao dashboard são montadas junto com o catálogo,
+ * que é imutável: nomes novos geram uma nova versão, então as leituras não precisam de sincronização.
+ */
+public class CatalogoDimensoes {
+
+    // Mesma ordem das listas que vinham do ORDER BY do PostgreSQL, com acentos junto da letra base
+    private static final Collator ORDEM = Collator.getInstance(new Locale("pt", "BR"));
+
+    private static final CatalogoDimensoes VAZIO = new Construtor().construir();
+
+    private final List<String> nomesFiliais;
+    private final List<String> nomesVendedores;
+    private final Map<String, Integer> idsFiliais;
+    private final Map<String, Integer> idsVendedores;
+    private final List<BitSet> vendedoresPorFilial;
+
+    private final List<String> filiaisOrdenadas;
+    private final List<String> vendedoresOrdenados;
+    private final List<List<String>> vendedoresOrdenadosPorFilial;
+
+    private CatalogoDimensoes(Construtor construtor) {
+        this.nomesFiliais = construtor.nomesFiliais;
+        this.nomesVendedores = construtor.nomesVendedores;
+        this.idsFiliais = construtor.idsFiliais;
+        this.idsVendedores = construtor.idsVendedores;
+        this.vendedoresPorFilial = construtor.vendedoresPorFilial;
+
+        this.filiaisOrdenadas = ordenar(nomesFiliais);
+        this.vendedoresOrdenados = ordenar(nomesVendedores);
+        List<List<String>> porFilial = new ArrayList<>(vendedoresPorFilial.size());
+        for (BitSet ids : vendedoresPorFilial) {
+            List<String> nomes = new ArrayList<>(ids.cardinality());
+            for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+                nomes.add(nomesVendedores.get(id));
+            }
+            porFilial.add(ordenar(nomes));
+        }
+        this.vendedoresOrdenadosPorFilial = porFilial;
+    }
+
+    public static CatalogoDimensoes vazio() {
+        return VAZIO;
+    }
+
+    public List<String> getFiliais() {
+        return filiaisOrdenadas;
+    }
+
+    public List<String> getVendedores() {
+        return vendedoresOrdenados;
+    }
+
+    public List<String> getVendedoresPorFilial(String filial) {
+        Integer id = idsFiliais.get(filial);
+        return id != null ? vendedoresOrdenadosPorFilial.get(id) : Collections.emptyList();
+    }
+
+    public int getQuantidadeFiliais() {
+        return nomesFiliais.size();
+    }
+
+    public int getQuantidadeVendedores() {
+        return nomesVendedores.size();
+    }
+
+    /**
+     * Nova versão com os pares (filial, vendedor) acrescentados, ou o próprio catálogo quando
+     * todos já eram conhecidos
+     */
+    public CatalogoDimensoes comPares(List<Object[]> pares) {
+        boolean novo = false;
+        for (Object[] par : pares) {
+            if (!contem((String) par[0], (String) par[1])) {
+                novo = true;
+                break;
+            }
+        }
+        if (!novo) {
+            return this;
+        }
+
+        Construtor construtor = new Construtor(this);
+        for (Object[] par : pares) {
+            construtor.adicionar((String) par[0], (String) par[1]);
+        }
+        return construtor.construir();
+    }
+
+    private boolean contem(String filial, String vendedor) {
+        if (filial == null) {
+            return true;
+        }
+        Integer idFilial = idsFiliais.get(filial);
+        if (idFilial == null) {
+            return false;
+        }
+        if (vendedor == null) {
+            return true;
+        }
+        Integer idVendedor = idsVendedores.get(vendedor);
+        return idVendedor != null && vendedoresPorFilial.get(idFilial).get(idVendedor);
+    }
+
+    private static List<String> ordenar(List<String> nomes) {
+        List<String> ordenados = new ArrayList<>(nomes);
+        ordenados.sort(ORDEM);
+        return Collections.unmodifiableList(ordenados);
+    }
+
+    /**
+     * Montagem a partir dos pares (filial, vendedor) em qualquer ordem; vendedor nulo registra só a filial
+     */
+    public static class Construtor {
+        private final List<String> nomesFiliais;
+        private final List<String> nomesVendedores;
+        private final Map<String, Integer> idsFiliais;
+        private final Map<String, Integer> idsVendedores;
+        private final List<BitSet> vendedoresPorFilial;
+
+        public Construtor() {
+            this.nomesFiliais = new ArrayList<>();
+            this.nomesVendedores = new ArrayList<>();
+            this.idsFiliais = new HashMap<>();
+            this.idsVendedores = new HashMap<>();
+            this.vendedoresPorFilial = new ArrayList<>();
+        }
+
+        // Parte de um catálogo existente mantendo os ids já atribuídos
+        private Construtor(CatalogoDimensoes base) {
+            this.nomesFiliais = new ArrayList<>(base.nomesFiliais);
+            this.nomesVendedores = new ArrayList<>(base.nomesVendedores);
+            this.idsFiliais = new HashMap<>(base.idsFiliais);
+            this.idsVendedores = new HashMap<>(base.idsVendedores);
+            this.vendedoresPorFilial = new ArrayList<>(base.vendedoresPorFilial.size());
+            for (BitSet ids : base.vendedoresPorFilial) {
+                this.vendedoresPorFilial.add((BitSet) ids.clone());
+            }
+        }
+
+        public void adicionar(String filial, String vendedor) {
+            if (filial == null) {
+                return;
+            }
+            Integer idFilial = idsFiliais.get(filial);
+            if (idFilial == null) {
+                idFilial = nomesFiliais.size();
+                nomesFiliais.add(filial);
+                idsFiliais.put(filial, idFilial);
+                vendedoresPorFilial.add(new BitSet());
+            }
+            if (vendedor == null) {
+                return;
+            }
+            Integer idVendedor = idsVendedores.get(vendedor);
+            if (idVendedor == null) {
+                idVendedor = nomesVendedores.size();
+                nomesVendedores.add(vendedor);
+                idsVendedores.put(vendedor, idVendedor);
+            }
+            vendedoresPorFilial.get(idFilial).set(idVendedor);
+        }
+
+        public CatalogoDimensoes construir() {
+            return new CatalogoDimensoes(this);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.exemplo.dashboardvendas.service;
+
+import com.exemplo.dashboardvendas.repository.FinanceiroClienteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mantém o CatalogoDimensoes com as filiais e vendedores de financeiro_clientes. A carga completa
+ * agrupa a tabela uma vez; depois, cada execução lê só os pares das vendas acima das marcas d'água
+ * (id e data_cadastro), pelos índices, e troca o catálogo apenas quando aparece um nome novo.
+ * A carga completa é refeita periodicamente para retirar nomes que deixaram de existir.
+ *
+ * As marcas podem passar de uma venda cuja transação confirma depois de outra mais nova; por isso
+ * a leitura começa numa janela abaixo delas (dashboard.catalogo.releitura-ids e releitura-s).
+ * Reler pares já conhecidos não troca o catálogo.
+ */
+@Service
+public class CatalogoDimensoesService {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogoDimensoesService.class);
+
+    private static final LocalDateTime SEM_DATA_CADASTRO = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Autowired
+    private FinanceiroClienteRepository financeiroClienteRepository;
+
+    @Value("${dashboard.catalogo.enabled:true}")
+    private boolean habilitado;
+
+    @Value("${dashboard.catalogo.recarga-completa-ms:21600000}")
+    private long intervaloRecargaCompleta;
+
+    // Janela relida abaixo das marcas, para as transações que gravam depois de outras mais novas
+    @Value("${dashboard.catalogo.releitura-ids:1000}")
+    private long releituraIds;
+
+    @Value("${dashboard.catalogo.releitura-s:300}")
+    private long releituraSegundos;
+
+    private final TransactionTemplate transacaoLeitura;
+
+    private volatile CatalogoDimensoes catalogo;
+
+    // Estado do carregador, acessado apenas pela thread do agendamento
+    private long ultimoClienteId;
+    private LocalDateTime ultimaDataCadastro;
+    private long instanteCargaCompleta;
+
+    public CatalogoDimensoesService(PlatformTransactionManager transactionManager) {
+        this.transacaoLeitura = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura.setReadOnly(true);
+    }
+
+    /**
+     * Catálogo atual, ou null enquanto não foi carregado (ou está desabilitado) e as listas
+     * devem vir do banco
+     */
+    public CatalogoDimensoes obterCatalogo() {
+        return catalogo;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${dashboard.catalogo.intervalo-ms:60000}")
+    public void atualizar() {
+        if (!habilitado) {
+            return;
+        }
+
+        try {
+            if (catalogo == null || System.currentTimeMillis() - instanteCargaCompleta > intervaloRecargaCompleta) {
+                cargaCompleta();
+            } else {
+                cargaIncremental();
+            }
+        } catch (RuntimeException e) {
+            logger.error("Falha ao atualizar catálogo de filiais e vendedores; mantendo catálogo anterior", e);
+        }
+    }
+
+    private void cargaCompleta() {
+        long inicio = System.currentTimeMillis();
+        long[] marca = new long[1];
+        LocalDateTime[] marcaCadastro = new LocalDateTime[1];
+
+        CatalogoDimensoes novo = transacaoLeitura.execute(status -> {
+            // Marcas lidas antes dos pares: o que entrar durante a carga volta na próxima execução
+            marca[0] = financeiroClienteRepository.ultimoId();
+            marcaCadastro[0] = financeiroClienteRepository.ultimaDataCadastro();
+            CatalogoDimensoes.Construtor construtor = new CatalogoDimensoes.Construtor();
+            for (Object[] par : financeiroClienteRepository.paresFilialVendedor()) {
+                construtor.adicionar((String) par[0], (String) par[1]);
+            }
+            return construtor.construir();
+        });
+
+        ultimoClienteId = marca[0];
+        ultimaDataCadastro = marcaCadastro[0] != null ? marcaCadastro[0] : SEM_DATA_CADASTRO;
+        catalogo = novo;
+        instanteCargaCompleta = System.currentTimeMillis();
+        logger.info("Catálogo carregado: {} filiais e {} vendedores em {} ms",
+            novo.getQuantidadeFiliais(), novo.getQuantidadeVendedores(), System.currentTimeMillis() - inicio);
+    }
+
+    private void cargaIncremental() {
+        long[] marca = new long[1];
+        LocalDateTime[] marcaCadastro = new LocalDateTime[1];
+        List<Object[]> pares = new ArrayList<>();
+
+        transacaoLeitura.executeWithoutResult(status -> {
+            marca[0] = financeiroClienteRepository.ultimoId();
+            marcaCadastro[0] = financeiroClienteRepository.ultimaDataCadastro();
+            pares.addAll(financeiroClienteRepository.paresFilialVendedorDesde(ultimoClienteId - releituraIds,
+                ultimaDataCadastro.minusSeconds(releituraSegundos)));
+        });
+
+        CatalogoDimensoes atual = catalogo;
+        CatalogoDimensoes novo = atual.comPares(pares);
+        if (novo != atual) {
+            catalogo = novo;
+            logger.info("Catálogo atualizado: {} filiais e {} vendedores",
+                novo.getQuantidadeFiliais(), novo.getQuantidadeVendedores());
+        }
+        ultimoClienteId = Math.max(ultimoClienteId, marca[0]);
+        if (marcaCadastro[0] != null && marcaCadastro[0].isAfter(ultimaDataCadastro)) {
+            ultimaDataCadastro = marcaCadastro[0];
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.exemplo.dashboardvendas.service;
+
+import com.exemplo.dashboardvendas.config.ExecutorConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Controle de admissão das montagens do dashboard, separadas em duas faixas pelo custo estimado
+ * (dias do período vezes filiais): interativa, para os períodos curtos das telas ao vivo, e pesada,
+ * para relatórios de meses ou anos com muitas filiais.
+ *
+ * Cada faixa tem seu executor de seções (as threads limitam as conexões que ela ocupa), um limite
+ * de montagens simultâneas e uma fila de espera curta. Com a fila cheia ou a espera esgotada a
+ * montagem é recusada com 503 e Retry-After, então um relatório anual não tira conexões das
+ * consultas de "hoje".
+ */
+@Service
+public class ControleCargaDashboard {
+    private static final Logger logger = LoggerFactory.getLogger(ControleCargaDashboard.class);
+
+    @Autowired
+    private CatalogoDimensoesService catalogoDimensoesService;
+
+    private final Faixa interativa;
+    private final Faixa pesada;
+    private final long limitePesada;
+    private final long retryAfterSegundos;
+
+    public ControleCargaDashboard(MeterRegistry meterRegistry,
+                                  @Qualifier(ExecutorConfig.EXECUTOR_DASHBOARD) Executor executorInterativo,
+                                  @Qualifier(ExecutorConfig.EXECUTOR_DASHBOARD_PESADO) Executor executorPesado,
+                                  @Value("${dashboard.admissao.limite-pesada:500}") long limitePesada,
+                                  @Value("${dashboard.admissao.retry-after-s:5}") long retryAfterSegundos,
+                                  @Value("${dashboard.admissao.interativa.simultaneas:16}") int simultaneasInterativa,
+                                  @Value("${dashboard.admissao.interativa.fila:64}") int filaInterativa,
+                                  @Value("${dashboard.admissao.interativa.espera-ms:2000}") long esperaInterativa,
+                                  @Value("${dashboard.admissao.pesada.simultaneas:2}") int simultaneasPesada,
+                                  @Value("${dashboard.admissao.pesada.fila:8}") int filaPesada,
+                                  @Value("${dashboard.admissao.pesada.espera-ms:5000}") long esperaPesada) {
+        this.interativa = new Faixa("interativa", executorInterativo, simultaneasInterativa, filaInterativa,
+            esperaInterativa, meterRegistry);
+        this.pesada = new Faixa("pesada", executorPesado, simultaneasPesada, filaPesada, esperaPesada, meterRegistry);
+        this.limitePesada = limitePesada;
+        this.retryAfterSegundos = retryAfterSegundos;
+    }
+
+    /**
+     * Faixa da montagem pelo custo estimado: dias do período vezes filiais, com "todas" contando
+     * as filiais do catálogo (uma só enquanto ele não foi carregado)
+     */
+    public Faixa classificar(List<String> filiais, LocalDate dataInicio, LocalDate dataFim) {
+        long dias = Math.max(1, ChronoUnit.DAYS.between(dataInicio, dataFim) + 1);
+        long quantidadeFiliais;
+        if (filiais != null && !filiais.isEmpty()) {
+            quantidadeFiliais = filiais.size();
+        } else {
+            CatalogoDimensoes catalogo = catalogoDimensoesService.obterCatalogo();
+            quantidadeFiliais = catalogo != null ? Math.max(1, catalogo.getQuantidadeFiliais()) : 1;
+        }
+        return dias * quantidadeFiliais >= limitePesada ? pesada : interativa;
+    }
+
+    /**
+     * Executa a montagem quando a faixa tem vaga, esperando no máximo o prazo da faixa;
+     * lança SobrecargaDashboardException se a fila está cheia ou a espera se esgota
+     */
+    public <T> T executar(Faixa faixa, Supplier<T> montagem) {
+        if (!faixa.entrar()) {
+            faixa.rejeitadas.increment();
+            logger.warn("Montagem do dashboard recusada na faixa {} ({} em andamento, {} na fila)",
+                faixa.nome, faixa.simultaneas - faixa.vagas.availablePermits(), faixa.aguardando.get());
+            throw new SobrecargaDashboardException(
+                "Servidor ocupado com consultas da faixa " + faixa.nome + "; tente novamente em "
+                    + retryAfterSegundos + " s", retryAfterSegundos);
+        }
+        try {
+            return montagem.get();
+        } finally {
+            faixa.vagas.release();
+        }
+    }
+
+    public static class Faixa {
+        private final String nome;
+        private final Executor executor;
+        private final int simultaneas;
+        private final int fila;
+        private final long esperaMs;
+        // Justo, para a fila ser atendida por ordem de chegada
+        private final Semaphore vagas;
+        private final AtomicInteger aguardando = new AtomicInteger();
+        private final Counter rejeitadas;
+
+        private Faixa(String nome, Executor executor, int simultaneas, int fila, long esperaMs,
+                      MeterRegistry meterRegistry) {
+            this.nome = nome;
+            this.executor = executor;
+            this.simultaneas = simultaneas;
+            this.fila = fila;
+            this.esperaMs = esperaMs;
+            this.vagas = new Semaphore(simultaneas, true);
+            this.rejeitadas = Counter.builder("dashboard.admissao.rejeitadas")
+                .description("Montagens do dashboard recusadas com 503 por falta de vaga")
+                .tag("faixa", nome)
+                .register(meterRegistry);
+            Gauge.builder("dashboard.admissao.em-andamento", vagas, v -> simultaneas - v.availablePermits())
+                .tag("faixa", nome)
+                .register(meterRegistry);
+            Gauge.builder("dashboard.admissao.fila", aguardando, AtomicInteger::get)
+                .tag("faixa", nome)
+                .register(meterRegistry);
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        /**
+         * Executor das seções das montagens desta faixa
+         */
+        public Executor getExecutor() {
+            return executor;
+        }
+
+        // Ocupa uma vaga, esperando na fila se preciso; false se a fila está cheia ou a espera se esgotou
+        private boolean entrar() {
+            try {
+                if (vagas.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+                if (aguardando.incrementAndGet() > fila) {
+                    aguardando.decrementAndGet();
+                    return false;
+                }
+                try {
+                    return vagas.tryAcquire(esperaMs, TimeUnit.MILLISECONDS);
+                } finally {
+                    aguardando.decrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Espera por vaga no dashboard interrompida", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.exemplo.dashboardvendas.service;
+
+import com.exemplo.dashboardvendas.config.CacheConfig;
+import com.exemplo.dashboardvendas.dto.DashboardResponse;
+import com.exemplo.dashboardvendas.dto.FiltroDashboard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dashboards de vários filtros de uma vez (/api/dashboard/batch e o canal SSE). Os filtros são
+ * agrupados por janela (datas, tipoPeriodo e vendedor) e cada janela é montada de uma única passada
+ * pelo snapshot (VendaService.montarDashboardsDaJanela), em vez das seções de cada filtro: uma parede
+ * de telas regionais custa uma passada por atualização.
+ *
+ * Compartilha o cache do /api/dashboard: filtros já calculados são lidos dele e os montados aqui
+ * são gravados nele. Janelas fora do snapshot seguem filtro a filtro por getDadosDashboard, que usa
+ * o consolidado diário e os resultados fechados.
+ */
+@Service
+public class DashboardLoteService {
+    private static final Logger logger = LoggerFactory.getLogger(DashboardLoteService.class);
+
+    @Autowired
+    private VendaService vendaService;
+
+    @Autowired
+    private ControleCargaDashboard controleCargaDashboard;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    /**
+     * Resposta de cada filtro distinto, na ordem em que aparecem. Sem vaga na faixa de alguma
+     * janela, lança SobrecargaDashboardException (503) para o lote inteiro.
+     */
+    public Map<FiltroDashboard, DashboardResponse> obterDashboards(Collection<FiltroDashboard> filtros) {
+        Cache cache = cacheManager.getCache(CacheConfig.CACHE_DASHBOARD);
+        Map<FiltroDashboard, DashboardResponse> respostas = new LinkedHashMap<>();
+        Map<List<Object>, List<FiltroDashboard>> janelas = new LinkedHashMap<>();
+        for (FiltroDashboard filtro : new LinkedHashSet<>(filtros)) {
+            DashboardResponse emCache = cache != null ? cache.get(filtro, DashboardResponse.class) : null;
+            // Reserva a posição do filtro na ordem de resposta
+            respostas.put(filtro, emCache);
+            if (emCache == null) {
+                List<Object> janela = Arrays.asList(filtro.getDataInicio(), filtro.getDataFim(),
+                    filtro.getTipoPeriodo(), filtro.getVendedor());
+                janelas.computeIfAbsent(janela, chave -> new ArrayList<>()).add(filtro);
+            }
+        }
+
+        for (List<FiltroDashboard> janela : janelas.values()) {
+            FiltroDashboard primeiro = janela.get(0);
+            // A passada cobre todas as filiais da janela
+            ControleCargaDashboard.Faixa faixa = controleCargaDashboard.classificar(null,
+                primeiro.getDataInicio(), primeiro.getDataFim());
+            List<DashboardResponse> montadas = controleCargaDashboard.executar(faixa,
+                () -> vendaService.montarDashboardsDaJanela(janela));
+
+            if (montadas == null) {
+                for (FiltroDashboard filtro : janela) {
+                    respostas.put(filtro, vendaService.getDadosDashboard(filtro.getFiliais(), filtro.getVendedor(),
+                        filtro.getDataInicio(), filtro.getDataFim(), filtro.isAgruparPorMes(), filtro.getTipoPeriodo()));
+                }
+                continue;
+            }
+            for (int i = 0; i < janela.size(); i++) {
+                respostas.put(janela.get(i), montadas.get(i));
+                if (cache != null) {
+                    cache.put(janela.get(i), montadas.get(i));
+                }
+            }
+        }
+
+        logger.debug("Lote de {} filtro(s) distintos em {} janela(s) calculada(s)", respostas.size(), janelas.size());
+        return respostas;
+    }
+}
@@ -0,0 +1,227 @@
+package com.exemplo.dashboardvendas.service;
+
+import com.exemplo.dashboardvendas.dto.DashboardResponse;
+import com.exemplo.dashboardvendas.dto.FiltroDashboard;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Canal de Server-Sent Events do dashboard. Cada conjunto distinto de filtros (FiltroDashboard)
+ * é uma assinatura, calculada uma única vez por ciclo independente de quantas telas a acompanham;
+ * as assinaturas do ciclo são calculadas juntas pelo DashboardLoteService, com uma passada pelos
+ * dados por janela. O JSON só é enviado quando muda, e o mesmo texto serializado vai para todos os inscritos.
+ *
+ * Uma conexão pode acompanhar várias assinaturas (o dashboard regional acompanha uma por unidade),
+ * cada uma entregue como um evento com nome próprio.
+ */
+@Service
+public class DashboardStreamService {
+    private static final Logger logger = LoggerFactory.getLogger(DashboardStreamService.class);
+
+    public static final String EVENTO_PADRAO = "dashboard";
+
+    @Autowired
+    private DashboardLoteService dashboardLoteService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Tempo de vida de cada conexão; o EventSource do navegador reconecta sozinho ao expirar
+    @Value("${dashboard.stream.timeout-ms:300000}")
+    private long timeoutConexao;
+
+    // Comentário periódico para manter a conexão aberta em proxies e detectar clientes que saíram
+    @Value("${dashboard.stream.heartbeat-ms:30000}")
+    private long intervaloHeartbeat;
+
+    private final Map<FiltroDashboard, Assinatura> assinaturas = new ConcurrentHashMap<>();
+    private final Set<Conexao> conexoes = ConcurrentHashMap.newKeySet();
+
+    private long ultimoHeartbeat = System.currentTimeMillis();
+
+    /**
+     * Abre uma conexão que recebe os dados de cada filtro informado, com o evento de nome
+     * igual à chave do mapa. O estado atual é enviado de imediato.
+     */
+    public SseEmitter assinar(Map<String, FiltroDashboard> filtrosPorEvento) {
+        SseEmitter emitter = new SseEmitter(timeoutConexao);
+        Conexao conexao = new Conexao(emitter);
+
+        emitter.onCompletion(conexao::encerrar);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(erro -> conexao.encerrar());
+
+        conexoes.add(conexao);
+        List<Assinatura> novas = new ArrayList<>();
+        for (Map.Entry<String, FiltroDashboard> entrada : filtrosPorEvento.entrySet()) {
+            Inscricao inscricao = new Inscricao(conexao, entrada.getKey());
+            Assinatura assinatura = inscrever(entrada.getValue(), inscricao);
+            conexao.inscricoes.put(inscricao, assinatura);
+
+            String atual;
+            synchronized (assinatura) {
+                atual = assinatura.json;
+                if (atual != null) {
+                    enviar(inscricao, atual);
+                }
+            }
+            if (atual == null) {
+                novas.add(assinatura);
+            }
+        }
+        // Primeira tela com estes filtros: calcula agora em vez de esperar o próximo ciclo
+        if (!novas.isEmpty()) {
+            publicar(novas);
+        }
+
+        logger.debug("Conexão SSE aberta com {} assinatura(s); {} conexões, {} filtros distintos",
+            filtrosPorEvento.size(), conexoes.size(), assinaturas.size());
+        return emitter;
+    }
+
+    private Assinatura inscrever(FiltroDashboard filtro, Inscricao inscricao) {
+        // compute é atômico por chave, então não corre com a remoção de assinaturas vazias
+        return assinaturas.compute(filtro, (chave, existente) -> {
+            Assinatura assinatura = existente != null ? existente : new Assinatura(chave);
+            assinatura.inscritos.add(inscricao);
+            return assinatura;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${dashboard.stream.intervalo-ms:5000}")
+    public void publicarTodas() {
+        List<Assinatura> ativas = new ArrayList<>();
+        for (Assinatura assinatura : assinaturas.values()) {
+            if (assinatura.inscritos.isEmpty()) {
+                assinaturas.computeIfPresent(assinatura.filtro,
+                    (chave, atual) -> atual.inscritos.isEmpty() ? null : atual);
+                continue;
+            }
+            ativas.add(assinatura);
+        }
+        if (!ativas.isEmpty()) {
+            publicar(ativas);
+        }
+
+        long agora = System.currentTimeMillis();
+        if (agora - ultimoHeartbeat >= intervaloHeartbeat) {
+            ultimoHeartbeat = agora;
+            for (Conexao conexao : conexoes) {
+                try {
+                    conexao.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    conexao.encerrar();
+                }
+            }
+        }
+    }
+
+    private void publicar(List<Assinatura> lote) {
+        List<FiltroDashboard> filtros = new ArrayList<>();
+        for (Assinatura assinatura : lote) {
+            filtros.add(assinatura.filtro);
+        }
+
+        Map<FiltroDashboard, DashboardResponse> dados;
+        try {
+            // Compartilha o cache do /api/dashboard: o mesmo cálculo atende as duas rotas
+            dados = dashboardLoteService.obterDashboards(filtros);
+        } catch (SobrecargaDashboardException e) {
+            // Tenta de novo no próximo ciclo; os inscritos continuam com os últimos dados enviados
+            logger.warn("Stream de {} filtro(s) adiado: {}", filtros.size(), e.getReason());
+            return;
+        } catch (RuntimeException e) {
+            logger.error("Erro ao calcular dados do stream para {}", filtros, e);
+            return;
+        }
+
+        for (Assinatura assinatura : lote) {
+            try {
+                enviarSeMudou(assinatura, objectMapper.writeValueAsString(dados.get(assinatura.filtro)));
+            } catch (JsonProcessingException e) {
+                logger.error("Erro ao serializar dados do stream para {}", assinatura.filtro, e);
+            }
+        }
+    }
+
+    private void enviarSeMudou(Assinatura assinatura, String json) {
+        synchronized (assinatura) {
+            if (json.equals(assinatura.json)) {
+                return;
+            }
+            assinatura.json = json;
+            for (Inscricao inscricao : assinatura.inscritos) {
+                enviar(inscricao, json);
+            }
+        }
+    }
+
+    private void enviar(Inscricao inscricao, String json) {
+        try {
+            inscricao.conexao.emitter.send(SseEmitter.event()
+                .name(inscricao.evento)
+                .data(json, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Conexão SSE encerrada pelo cliente: {}", e.getMessage());
+            inscricao.conexao.encerrar();
+        }
+    }
+
+    private static class Assinatura {
+        private final FiltroDashboard filtro;
+        private final Set<Inscricao> inscritos = new CopyOnWriteArraySet<>();
+        // Último JSON enviado; escrito apenas sob o lock da assinatura
+        private volatile String json;
+
+        private Assinatura(FiltroDashboard filtro) {
+            this.filtro = filtro;
+        }
+    }
+
+    private static class Inscricao {
+        private final Conexao conexao;
+        private final String evento;
+
+        private Inscricao(Conexao conexao, String evento) {
+            this.conexao = conexao;
+            this.evento = evento;
+        }
+    }
+
+    private class Conexao {
+        private final SseEmitter emitter;
+        private final Map<Inscricao, Assinatura> inscricoes = new ConcurrentHashMap<>();
+
+        private Conexao(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        // Idempotente: pode ser chamado pelo callback do emitter e por uma falha de envio
+        private void encerrar() {
+            conexoes.remove(this);
+            inscricoes.forEach((inscricao, assinatura) -> assinatura.inscritos.remove(inscricao));
+            inscricoes.clear();
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                // Já encerrado pelo container
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.exemplo.dashboardvendas.service;
+
+import com.exemplo.dashboardvendas.dto.FiltroDashboard;
+import com.exemplo.dashboardvendas.repository.FinanceiroClienteRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Exportação das vendas pagas de um filtro (/api/vendas/export) em CSV ou JSON Lines.
+ *
+ * As linhas vêm de um cursor do servidor (fetchSize do repositório, dentro de uma transação somente
+ * leitura) e são escritas na resposta uma a uma: a memória usada não depende do tamanho do período.
+ * A consulta devolve colunas escalares, então nenhuma entidade entra no contexto de persistência.
+ *
+ * Cada exportação ocupa uma conexão até o fim da transferência; o número de exportações simultâneas
+ * é limitado para não esgotar o pool das montagens do dashboard (503 com Retry-After acima dele).
+ */
+@Service
+public class ExportacaoVendasService {
+    private static final Logger logger = LoggerFactory.getLogger(ExportacaoVendasService.class);
+
+    private static final String CABECALHO_CSV = "id,data,filial,vendedor,cliente,forma_pagamento,"
+        + "valor_debito,valor_pago,total_pago,pagamentos,ultimo_pagamento";
+
+    public enum Formato { CSV, JSONL }
+
+    @Autowired
+    private FinanceiroClienteRepository financeiroClienteRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final TransactionTemplate transacaoLeitura;
+
+    private final Semaphore vagas;
+
+    private final long retryAfterSegundos;
+
+    public ExportacaoVendasService(PlatformTransactionManager transactionManager,
+                                   @Value("${dashboard.exportacao.simultaneas:2}") int simultaneas,
+                                   @Value("${dashboard.admissao.retry-after-s:5}") long retryAfterSegundos) {
+        this.transacaoLeitura = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura.setReadOnly(true);
+        this.vagas = new Semaphore(simultaneas);
+        this.retryAfterSegundos = retryAfterSegundos;
+    }
+
+    /**
+     * Reserva uma vaga de exportação e devolve o corpo que escreve as vendas do filtro (filiais, vendedor
+     * e datas; os demais campos são ignorados). Sem vaga, lança SobrecargaDashboardException.
+     *
+     * A vaga volta quando o corpo termina ou, se ele nunca rodar (tarefa recusada, prazo esgotado ou
+     * cliente desconectado antes), no fim do processamento assíncrono da requisição, que sempre ocorre
+     */
+    public StreamingResponseBody exportar(FiltroDashboard filtro, Formato formato, WebAsyncManager processamento) {
+        if (!vagas.tryAcquire()) {
+            throw new SobrecargaDashboardException("Exportações simultâneas no limite; tente novamente em "
+                + retryAfterSegundos + " s", retryAfterSegundos);
+        }
+        AtomicBoolean devolvida = new AtomicBoolean();
+        Runnable devolver = () -> {
+            if (devolvida.compareAndSet(false, true)) {
+                vagas.release();
+            }
+        };
+        processamento.registerCallableInterceptor(ExportacaoVendasService.class.getName(),
+            new CallableProcessingInterceptor() {
+                @Override
+                public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                    devolver.run();
+                }
+            });
+
+        return saida -> {
+            try {
+                escrever(filtro, formato, new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), 64 * 1024));
+            } finally {
+                devolver.run();
+            }
+        };
+    }
+
+    private void escrever(FiltroDashboard filtro, Formato formato, Writer saida) throws IOException {
+        Timer.Sample amostra = Timer.start(meterRegistry);
+        long inicio = System.currentTimeMillis();
+        long linhas;
+        try {
+            linhas = transacaoLeitura.execute(status -> {
+                try (Stream<Object[]> vendas = filtro.getFiliais() != null ?
+                        financeiroClienteRepository.exportarVendas(filtro.getFiliais(), filtro.getVendedor(),
+                            filtro.getDataInicio(), filtro.getDataFim()) :
+                        financeiroClienteRepository.exportarVendasTodasFiliais(filtro.getVendedor(),
+                            filtro.getDataInicio(), filtro.getDataFim())) {
+                    return formato == Formato.CSV ? escreverCsv(vendas.iterator(), saida)
+                        : escreverJsonLines(vendas.iterator(), saida);
+                } catch (IOException e) {
+                    // Cliente desconectou: a transação é desfeita e o cursor fechado
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            logger.info("Exportação de {} interrompida: {}", filtro, e.getCause().getMessage());
+            throw e.getCause();
+        }
+
+        amostra.stop(Timer.builder("dashboard.exportacao")
+            .tag("formato", formato.name().toLowerCase())
+            .register(meterRegistry));
+        Counter.builder("dashboard.exportacao.linhas")
+            .tag("formato", formato.name().toLowerCase())
+            .register(meterRegistry)
+            .increment(linhas);
+        logger.info("Exportação {} de {}: {} linhas em {} ms", formato, filtro, linhas, System.currentTimeMillis() - inicio);
+    }
+
+    private static long escreverCsv(Iterator<Object[]> vendas, Writer saida) throws IOException {
+        saida.write(CABECALHO_CSV);
+        saida.write("\r\n");
+        long linhas = 0;
+        while (vendas.hasNext()) {
+            Object[] venda = vendas.next();
+            for (int i = 0; i < venda.length; i++) {
+                if (i > 0) {
+                    saida.write(',');
+                }
+                saida.write(campoCsv(valorColuna(i, venda[i])));
+            }
+            saida.write("\r\n");
+            linhas++;
+        }
+        saida.flush();
+        return linhas;
+    }
+
+    private long escreverJsonLines(Iterator<Object[]> vendas, Writer saida) throws IOException {
+        // Sem AUTO_CLOSE_TARGET: a resposta é fechada pelo Spring MVC
+        JsonGenerator gerador = objectMapper.getFactory().createGenerator(saida)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        String[] campos = CABECALHO_CSV.split(",");
+        long linhas = 0;
+        while (vendas.hasNext()) {
+            Object[] venda = vendas.next();
+            gerador.writeStartObject();
+            for (int i = 0; i < venda.length; i++) {
+                Object valor = valorColuna(i, venda[i]);
+                if (valor == null) {
+                    gerador.writeNullField(campos[i]);
+                } else if (valor instanceof BigDecimal) {
+                    gerador.writeNumberField(campos[i], (BigDecimal) valor);
+                } else if (valor instanceof Number) {
+                    gerador.writeNumberField(campos[i], ((Number) valor).longValue());
+                } else {
+                    gerador.writeStringField(campos[i], valor.toString());
+                }
+            }
+            gerador.writeEndObject();
+            gerador.writeRaw('\n');
+            linhas++;
+        }
+        gerador.flush();
+        return linhas;
+    }
+
+    // Datas no formato ISO, independentemente do tipo devolvido pelo driver
+    private static Object valorColuna(int coluna, Object valor) {
+        if (valor == null) {
+            return null;
+        }
+        if (coluna == 1) {
+            return SnapshotVendasService.paraLocalDate(valor);
+        }
+        if (coluna == 10) {
+            return SnapshotVendasService.paraLocalDateTime(valor);
+        }
+        return valor;
+    }
+
+    // Aspas (RFC 4180) quando o campo contém separador, aspas ou quebra de linha
+    private static String campoCsv(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        String texto = valor instanceof BigDecimal ? ((BigDecimal) valor).toPlainString() : valor.toString();
+        if (texto.indexOf(',') < 0 && texto.indexOf('"') < 0 && texto.indexOf('\n') < 0 && texto.indexOf('\r') < 0) {
+            return texto;
+        }
+        return '"' + texto.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,206 @@
+package com.exemplo.dashboardvendas.service;
+
+import com.exemplo.dashboardvendas.model.Meta;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Metas ativas em memória, para achar sem consulta a meta de uma filial em um período.
+ *
+ * Em cada filial as metas ficam ordenadas por data de início, com uma árvore de máximos sobre as
+ * datas de fim. A meta que vale para o período é a sobreposta de início mais recente (a mesma de
+ * findMetasAtivasPorFilialEPeriodo, ordenada por data_inicio DESC): a busca binária limita as metas
+ * que começam até o fim do período e a árvore acha, entre elas, a última que termina depois do início,
+ * em O(log n).
+ *
+ * Imutável: cada alteração gera um novo índice, refazendo só as filiais afetadas.
+ */
+public class IndiceMetas {
+
+    private final Map<Long, Registro> porId;
+    private final Map<String, MetasFilial> porFilial;
+
+    private IndiceMetas(Map<Long, Registro> porId, Map<String, MetasFilial> porFilial) {
+        this.porId = porId;
+        this.porFilial = porFilial;
+    }
+
+    public static IndiceMetas de(Collection<Meta> metasAtivas) {
+        Map<Long, Registro> porId = new HashMap<>();
+        for (Meta meta : metasAtivas) {
+            if (Boolean.TRUE.equals(meta.getAtiva())) {
+                porId.put(meta.getId(), new Registro(meta));
+            }
+        }
+        Map<String, List<Registro>> agrupadas = new HashMap<>();
+        for (Registro registro : porId.values()) {
+            agrupadas.computeIfAbsent(registro.filial, f -> new ArrayList<>()).add(registro);
+        }
+        Map<String, MetasFilial> porFilial = new HashMap<>();
+        agrupadas.forEach((filial, registros) -> porFilial.put(filial, new MetasFilial(registros)));
+        return new IndiceMetas(porId, porFilial);
+    }
+
+    /**
+     * Novo índice com a meta gravada: substitui a versão anterior do mesmo id, ou a retira se foi desativada
+     */
+    public IndiceMetas comAlteracao(Meta meta) {
+        Map<Long, Registro> novoPorId = new HashMap<>(porId);
+        Registro anterior = novoPorId.remove(meta.getId());
+        Registro atual = Boolean.TRUE.equals(meta.getAtiva()) ? new Registro(meta) : null;
+        if (atual != null) {
+            novoPorId.put(atual.id, atual);
+        }
+
+        Map<String, MetasFilial> novoPorFilial = new HashMap<>(porFilial);
+        if (anterior != null) {
+            refazer(novoPorFilial, novoPorId, anterior.filial);
+        }
+        if (atual != null && (anterior == null || !atual.filial.equals(anterior.filial))) {
+            refazer(novoPorFilial, novoPorId, atual.filial);
+        }
+        return new IndiceMetas(novoPorId, novoPorFilial);
+    }
+
+    /**
+     * Valor da meta ativa da filial que se sobrepõe ao período, ou null se não houver
+     */
+    public BigDecimal valorMeta(String filial, LocalDate dataInicio, LocalDate dataFim) {
+        MetasFilial metas = porFilial.get(filial);
+        return metas != null ? metas.valorSobreposto(dataInicio.toEpochDay(), dataFim.toEpochDay()) : null;
+    }
+
+    public int getTamanho() {
+        return porId.size();
+    }
+
+    /**
+     * Indica se os dois índices têm as mesmas metas, com os mesmos períodos e valores
+     */
+    public boolean mesmoConteudo(IndiceMetas outro) {
+        return porId.equals(outro.porId);
+    }
+
+    private static void refazer(Map<String, MetasFilial> porFilial, Map<Long, Registro> porId, String filial) {
+        List<Registro> registros = new ArrayList<>();
+        for (Registro registro : porId.values()) {
+            if (registro.filial.equals(filial)) {
+                registros.add(registro);
+            }
+        }
+        if (registros.isEmpty()) {
+            porFilial.remove(filial);
+        } else {
+            porFilial.put(filial, new MetasFilial(registros));
+        }
+    }
+
+    // Cópia dos campos usados da entidade, que é mutável e pertence à sessão que a gravou
+    private static class Registro {
+        private final long id;
+        private final String filial;
+        private final long inicio;
+        private final long fim;
+        private final BigDecimal valor;
+
+        private Registro(Meta meta) {
+            this.id = meta.getId();
+            this.filial = meta.getFilial();
+            this.inicio = meta.getDataInicio().toEpochDay();
+            this.fim = meta.getDataFim().toEpochDay();
+            this.valor = meta.getValorMeta();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Registro)) return false;
+            Registro outro = (Registro) o;
+            return id == outro.id && inicio == outro.inicio && fim == outro.fim &&
+                   filial.equals(outro.filial) && valor.compareTo(outro.valor) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, filial, inicio, fim);
+        }
+    }
+
+    private static class MetasFilial {
+        // Ordenadas por início e id: entre metas com o mesmo início vale a criada por último
+        private final long[] inicios;
+        private final long[] fins;
+        private final BigDecimal[] valores;
+        // Árvore de segmentos (raiz em 1) com o maior fim de cada intervalo de posições
+        private final long[] maioresFins;
+
+        private MetasFilial(List<Registro> registros) {
+            registros.sort(Comparator.<Registro>comparingLong(r -> r.inicio).thenComparingLong(r -> r.id));
+            int n = registros.size();
+            inicios = new long[n];
+            fins = new long[n];
+            valores = new BigDecimal[n];
+            for (int i = 0; i < n; i++) {
+                Registro registro = registros.get(i);
+                inicios[i] = registro.inicio;
+                fins[i] = registro.fim;
+                valores[i] = registro.valor;
+            }
+            maioresFins = new long[4 * n];
+            montar(1, 0, n);
+        }
+
+        private void montar(int no, int esquerda, int direita) {
+            if (direita - esquerda == 1) {
+                maioresFins[no] = fins[esquerda];
+                return;
+            }
+            int meio = (esquerda + direita) >>> 1;
+            montar(2 * no, esquerda, meio);
+            montar(2 * no + 1, meio, direita);
+            maioresFins[no] = Math.max(maioresFins[2 * no], maioresFins[2 * no + 1]);
+        }
+
+        private BigDecimal valorSobreposto(long diaInicio, long diaFim) {
+            int limite = primeiraComInicioApos(diaFim);
+            int posicao = ultimaComFimAPartirDe(1, 0, inicios.length, limite, diaInicio);
+            return posicao >= 0 ? valores[posicao] : null;
+        }
+
+        // Quantidade de metas que começam até o dia informado
+        private int primeiraComInicioApos(long dia) {
+            int baixo = 0;
+            int alto = inicios.length;
+            while (baixo < alto) {
+                int meio = (baixo + alto) >>> 1;
+                if (inicios[meio] <= dia) {
+                    baixo = meio + 1;
+                } else {
+                    alto = meio;
+                }
+            }
+            return baixo;
+        }
+
+        // Maior posição abaixo de limite cujo fim é pelo menos o dia informado, ou -1
+        private int ultimaComFimAPartirDe(int no, int esquerda, int direita, int limite, long dia) {
+            if (esquerda >= limite || maioresFins[no] < dia) {
+                return -1;
+            }
+            if (direita - esquerda == 1) {
+                return esquerda;
+            }
+            int meio = (esquerda + direita) >>> 1;
+            int posicao = ultimaComFimAPartirDe(2 * no + 1, meio, direita, limite, dia);
+            return posicao >= 0 ? posicao : ultimaComFimAPartirDe(2 * no, esquerda, meio, limite, dia);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.exemplo.dashboardvendas.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marcas d'água de uma leitura de financeiro_clientes e financeiro_pagamentos (maior id de venda, maior
+ * data_cadastro e maior id de pagamento vistos). Comparar marcas, e não instantes, vale também quando as
+ * leituras vêm de bancos diferentes (réplica atrasada e primário).
+ */
+final class MarcasDados {
+
+    private final long ultimoClienteId;
+    private final LocalDateTime ultimaDataCadastro;
+    private final long ultimoPagamentoId;
+
+    MarcasDados(long ultimoClienteId, LocalDateTime ultimaDataCadastro, long ultimoPagamentoId) {
+        this.ultimoClienteId = ultimoClienteId;
+        this.ultimaDataCadastro = ultimaDataCadastro;
+        this.ultimoPagamentoId = ultimoPagamentoId;
+    }
+
+    /**
+     * Indica se esta leitura já chegou a todas as marcas da outra
+     */
+    boolean alcanca(MarcasDados outras) {
+        return ultimoClienteId >= outras.ultimoClienteId
+            && !ultimaDataCadastro.isBefore(outras.ultimaDataCadastro)
+            && ultimoPagamentoId >= outras.ultimoPagamentoId;
+    }
+
+    @Override
+    public String toString() {
+        return "clientes<=" + ultimoClienteId + ", cadastro<=" + ultimaDataCadastro + ", pagamentos<=" + ultimoPagamentoId;
+    }
+}
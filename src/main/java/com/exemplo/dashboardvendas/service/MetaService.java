@@ -1,10 +1,18 @@
 package com.exemplo.dashboardvendas.service;
 
+import com.exemplo.dashboardvendas.config.CacheConfig;
 import com.exemplo.dashboardvendas.model.Meta;
 import com.exemplo.dashboardvendas.repository.MetaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -12,9 +20,17 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Metas por filial e período. As consultas do dashboard são respondidas por um IndiceMetas em memória,
+ * carregado na inicialização e atualizado a cada alteração feita por aqui (depois do commit); a recarga
+ * periódica absorve alterações feitas direto no banco. Enquanto o índice não foi carregado (ou está
+ * desabilitado), as consultas vão ao banco.
+ */
 @Service
 public class MetaService {
+    private static final Logger logger = LoggerFactory.getLogger(MetaService.class);
     
     @Autowired
     private MetaRepository metaRepository;
@@ -22,11 +38,61 @@ public class MetaService {
     // Valor padrão de meta caso não exista no banco
     private static final BigDecimal META_PADRAO = new BigDecimal("1000000.00");
     
+    @Value("${dashboard.metas.indice.enabled:true}")
+    private boolean indiceHabilitado;
+    
+    private volatile IndiceMetas indice;
+    
+    // Incrementada depois do commit de cada alteração de meta e quando a recarga encontra metas diferentes
+    private final AtomicLong versao = new AtomicLong();
+    
+    /**
+     * Versão das metas nesta execução da aplicação
+     */
+    public long getVersao() {
+        return versao.get();
+    }
+    
+    /**
+     * Recarrega o índice com todas as metas ativas. Sincronizado com aplicarAlteracao: uma alteração
+     * confirmada durante a leitura é aplicada depois da troca do índice, não perdida por ela
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${dashboard.metas.indice.recarga-ms:300000}")
+    public synchronized void recarregarIndice() {
+        if (!indiceHabilitado) {
+            return;
+        }
+        
+        try {
+            long inicio = System.currentTimeMillis();
+            // Fora de transação somente leitura, então lida no primário: uma réplica atrasada desfaria
+            // alterações já aplicadas ao índice
+            IndiceMetas novo = IndiceMetas.de(metaRepository.findByAtivaTrue());
+            IndiceMetas atual = indice;
+            indice = novo;
+            if (atual != null && !atual.mesmoConteudo(novo)) {
+                logger.info("Metas alteradas fora da aplicação absorvidas pela recarga do índice");
+                versao.incrementAndGet();
+            }
+            logger.debug("Índice de metas recarregado: {} metas ativas em {} ms",
+                novo.getTamanho(), System.currentTimeMillis() - inicio);
+        } catch (RuntimeException e) {
+            logger.error("Falha ao recarregar índice de metas; mantendo índice anterior", e);
+        }
+    }
+    
     /**
      * Busca a meta para uma filial em um período específico
      * Se não encontrar, retorna a meta padrão
      */
+    @Transactional(readOnly = true)
     public BigDecimal obterMetaPorFilialEPeriodo(String filial, LocalDate dataInicio, LocalDate dataFim) {
+        IndiceMetas atual = indice;
+        if (atual != null) {
+            BigDecimal valor = atual.valorMeta(filial, dataInicio, dataFim);
+            return valor != null ? valor : META_PADRAO;
+        }
+        
         List<Meta> metas = metaRepository.findMetasAtivasPorFilialEPeriodo(filial, dataInicio, dataFim);
         
         if (!metas.isEmpty()) {
@@ -40,9 +106,19 @@ public class MetaService {
      * Busca metas para múltiplas filiais em um período
      * Retorna um Map com filial -> valor da meta
      */
+    @Transactional(readOnly = true)
     public Map<String, BigDecimal> obterMetasPorFiliaisEPeriodo(List<String> filiais, LocalDate dataInicio, LocalDate dataFim) {
         Map<String, BigDecimal> metasMap = new HashMap<>();
         
+        IndiceMetas atual = indice;
+        if (atual != null) {
+            for (String filial : filiais) {
+                BigDecimal valor = atual.valorMeta(filial, dataInicio, dataFim);
+                metasMap.put(filial, valor != null ? valor : META_PADRAO);
+            }
+            return metasMap;
+        }
+        
         List<Meta> metas = metaRepository.findMetasAtivasPorFiliaisEPeriodo(filiais, dataInicio, dataFim);
         
         // Mapear metas encontradas
@@ -64,36 +140,44 @@ public class MetaService {
      * Salva ou atualiza uma meta
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CACHE_DASHBOARD, allEntries = true)
     public Meta salvarMeta(Meta meta) {
-        return metaRepository.save(meta);
+        Meta salva = metaRepository.save(meta);
+        registrarAlteracao(salva);
+        return salva;
     }
     
     /**
      * Cria uma nova meta
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CACHE_DASHBOARD, allEntries = true)
     public Meta criarMeta(String filial, BigDecimal valorMeta, LocalDate dataInicio, LocalDate dataFim, String descricao) {
         Meta meta = new Meta(filial, valorMeta, dataInicio, dataFim);
         meta.setDescricao(descricao);
-        return metaRepository.save(meta);
+        Meta salva = metaRepository.save(meta);
+        registrarAlteracao(salva);
+        return salva;
     }
     
     /**
      * Desativa uma meta
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CACHE_DASHBOARD, allEntries = true)
     public void desativarMeta(Long id) {
         Optional<Meta> metaOpt = metaRepository.findById(id);
         if (metaOpt.isPresent()) {
             Meta meta = metaOpt.get();
             meta.setAtiva(false);
-            metaRepository.save(meta);
+            registrarAlteracao(metaRepository.save(meta));
         }
     }
     
     /**
      * Lista todas as metas ativas
      */
+    @Transactional(readOnly = true)
     public List<Meta> listarMetasAtivas() {
         return metaRepository.findByAtivaTrue();
     }
@@ -101,6 +185,7 @@ public class MetaService {
     /**
      * Lista metas de uma filial específica
      */
+    @Transactional(readOnly = true)
     public List<Meta> listarMetasPorFilial(String filial) {
         return metaRepository.findByFilialOrderByDataInicioDesc(filial);
     }
@@ -108,7 +193,27 @@ public class MetaService {
     /**
      * Busca meta por ID
      */
+    @Transactional(readOnly = true)
     public Optional<Meta> buscarPorId(Long id) {
         return metaRepository.findById(id);
     }
+    
+    // Só depois do commit: antes dele o índice mostraria uma meta que ainda pode ser desfeita, e um
+    // dashboard montado com as metas antigas levaria a versão nova
+    private void registrarAlteracao(Meta meta) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                aplicarAlteracao(meta);
+            }
+        });
+    }
+    
+    private synchronized void aplicarAlteracao(Meta meta) {
+        IndiceMetas atual = indice;
+        if (atual != null) {
+            indice = atual.comAlteracao(meta);
+        }
+        versao.incrementAndGet();
+    }
 }
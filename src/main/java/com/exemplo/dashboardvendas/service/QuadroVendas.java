@@ -0,0 +1,230 @@
+package com.exemplo.dashboardvendas.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Acumuladores de uma passada do SnapshotVendas por uma janela (período atual e anterior, com o filtro
+ * de vendedor): por filial, por filial e vendedor e por filial e dia. Cada conjunto de filiais é
+ * respondido somando as suas filiais, sem percorrer as linhas de novo; os métodos devolvem as mesmas
+ * colunas das consultas equivalentes do SnapshotVendas.
+ *
+ * Preenchido só pela thread que faz a passada e lido depois, na mesma thread.
+ */
+class QuadroVendas {
+
+    private final String[] nomesFiliais;
+    private final Map<String, Integer> idsFiliais = new HashMap<>();
+    private final String[] nomesVendedores;
+    private final int[] vendedorUpper;
+    private final int totalVendedoresUpper;
+
+    // Período atual, com o filtro de vendedor
+    private final long[] total;
+    private final long[] numero;
+    private final long[] maior;
+    private final String[] clienteMaior;
+    private final String[] vendedorMaior;
+
+    // Período anterior, com o filtro de vendedor
+    private final long[] totalAnterior;
+    private final long[] numeroAnterior;
+
+    // Ranking, sem o filtro de vendedor: filial x vendedor no atual, filial x vendedor em maiúsculas no anterior
+    private final long[] porVendedor;
+    private final long[] porVendedorAnterior;
+
+    // Gráfico: filial x dia a partir de diaInicio
+    private final int diaInicio;
+    private final int dias;
+    private final long[] porDia;
+    private final boolean[] comVenda;
+
+    QuadroVendas(String[] nomesFiliais, String[] nomesVendedores, int[] vendedorUpper, int totalVendedoresUpper,
+                 int diaInicio, int dias) {
+        this.nomesFiliais = nomesFiliais;
+        this.nomesVendedores = nomesVendedores;
+        this.vendedorUpper = vendedorUpper;
+        this.totalVendedoresUpper = totalVendedoresUpper;
+        this.diaInicio = diaInicio;
+        this.dias = dias;
+        for (int f = 0; f < nomesFiliais.length; f++) {
+            idsFiliais.put(nomesFiliais[f], f);
+        }
+
+        int n = nomesFiliais.length;
+        total = new long[n];
+        numero = new long[n];
+        maior = new long[n];
+        clienteMaior = new String[n];
+        vendedorMaior = new String[n];
+        totalAnterior = new long[n];
+        numeroAnterior = new long[n];
+        porVendedor = new long[n * nomesVendedores.length];
+        porVendedorAnterior = new long[n * totalVendedoresUpper];
+        porDia = new long[n * dias];
+        comVenda = new boolean[n * dias];
+    }
+
+    // Venda do período atual que passa no filtro de vendedor
+    void somarVenda(int filial, int dia, long centavos, String cliente, String vendedor) {
+        if (numero[filial] == 0 || centavos > maior[filial]) {
+            maior[filial] = centavos;
+            clienteMaior[filial] = cliente;
+            vendedorMaior[filial] = vendedor;
+        }
+        total[filial] += centavos;
+        numero[filial]++;
+        int d = dia - diaInicio;
+        if (d < dias) {
+            porDia[filial * dias + d] += centavos;
+            comVenda[filial * dias + d] = true;
+        }
+    }
+
+    // Venda do período anterior que passa no filtro de vendedor
+    void somarVendaAnterior(int filial, long centavos) {
+        totalAnterior[filial] += centavos;
+        numeroAnterior[filial]++;
+    }
+
+    // Venda do período atual com vendedor, para o ranking
+    void somarVendedor(int filial, int vendedor, long centavos) {
+        porVendedor[filial * nomesVendedores.length + vendedor] += centavos;
+    }
+
+    // Venda do período anterior com vendedor, para o ranking
+    void somarVendedorAnterior(int filial, int vendedor, long centavos) {
+        porVendedorAnterior[filial * totalVendedoresUpper + vendedorUpper[vendedor]] += centavos;
+    }
+
+    /**
+     * Mesmas colunas de SnapshotVendas.resumoVendasPorFilial:
+     * filial, total, numero, maior_venda, cliente_maior_venda, vendedor_maior_venda
+     */
+    List<Object[]> resumoVendasPorFilial(Collection<String> filtroFiliais) {
+        boolean[] mascara = mascaraFiliais(filtroFiliais);
+        List<Object[]> resultado = new ArrayList<>();
+        for (int f = 0; f < nomesFiliais.length; f++) {
+            if (numero[f] == 0 || (mascara != null && !mascara[f])) continue;
+            resultado.add(new Object[]{
+                nomesFiliais[f], SnapshotVendas.paraDecimal(total[f]), numero[f],
+                SnapshotVendas.paraDecimal(maior[f]), clienteMaior[f], vendedorMaior[f]
+            });
+        }
+        return resultado;
+    }
+
+    /**
+     * Resumo do período anterior nas mesmas colunas, sem a maior venda (a comparação só usa os totais)
+     */
+    List<Object[]> resumoAnteriorPorFilial(Collection<String> filtroFiliais) {
+        boolean[] mascara = mascaraFiliais(filtroFiliais);
+        List<Object[]> resultado = new ArrayList<>();
+        for (int f = 0; f < nomesFiliais.length; f++) {
+            if (numeroAnterior[f] == 0 || (mascara != null && !mascara[f])) continue;
+            resultado.add(new Object[]{
+                nomesFiliais[f], SnapshotVendas.paraDecimal(totalAnterior[f]), numeroAnterior[f], null, null, null
+            });
+        }
+        return resultado;
+    }
+
+    /**
+     * Mesmas colunas de SnapshotVendas.topVendedoresComAnterior: vendedor, total, total_anterior
+     */
+    List<Object[]> topVendedoresComAnterior(Collection<String> filtroFiliais) {
+        boolean[] mascara = mascaraFiliais(filtroFiliais);
+        long[] atual = somarPorFilial(porVendedor, nomesVendedores.length, mascara);
+        long[] anterior = somarPorFilial(porVendedorAnterior, totalVendedoresUpper, mascara);
+
+        List<Object[]> resultado = new ArrayList<>();
+        for (int v = 0; v < atual.length; v++) {
+            if (atual[v] <= 0) continue;
+            resultado.add(new Object[]{
+                nomesVendedores[v], SnapshotVendas.paraDecimal(atual[v]),
+                SnapshotVendas.paraDecimal(anterior[vendedorUpper[v]])
+            });
+        }
+        resultado.sort((a, b) -> ((BigDecimal) b[1]).compareTo((BigDecimal) a[1]));
+        return resultado;
+    }
+
+    /**
+     * Mesmas colunas de SnapshotVendas.vendedorQueMaisVendeu: vendedor, total (maior total primeiro)
+     */
+    List<Object[]> vendedorQueMaisVendeu(String filial) {
+        long[] totais = somarPorFilial(porVendedor, nomesVendedores.length,
+            filial != null ? mascaraFiliais(List.of(filial)) : null);
+        List<Object[]> resultado = new ArrayList<>();
+        for (int v = 0; v < totais.length; v++) {
+            if (totais[v] == 0) continue;
+            resultado.add(new Object[]{nomesVendedores[v], SnapshotVendas.paraDecimal(totais[v])});
+        }
+        resultado.sort((a, b) -> ((BigDecimal) b[1]).compareTo((BigDecimal) a[1]));
+        return resultado;
+    }
+
+    /**
+     * Mesmas colunas de SnapshotVendas.unidadeQueMaisVendeu: filial, total (maior total primeiro)
+     */
+    List<Object[]> unidadeQueMaisVendeu() {
+        List<Object[]> resultado = new ArrayList<>();
+        for (Object[] linha : resumoVendasPorFilial(null)) {
+            resultado.add(new Object[]{linha[0], linha[1]});
+        }
+        resultado.sort((a, b) -> ((BigDecimal) b[1]).compareTo((BigDecimal) a[1]));
+        return resultado;
+    }
+
+    /**
+     * Mesmas colunas de SnapshotVendas.dadosGraficoVendasPorPeriodo: data, total (um ponto por dia com
+     * venda). Também serve ao gráfico por mês, que soma os dias no mês de cada um
+     */
+    List<Object[]> dadosGrafico(Collection<String> filtroFiliais) {
+        boolean[] mascara = mascaraFiliais(filtroFiliais);
+        List<Object[]> resultado = new ArrayList<>();
+        for (int d = 0; d < dias; d++) {
+            long totalDia = 0;
+            boolean venda = false;
+            for (int f = 0; f < nomesFiliais.length; f++) {
+                if (mascara != null && !mascara[f]) continue;
+                totalDia += porDia[f * dias + d];
+                venda |= comVenda[f * dias + d];
+            }
+            if (venda) {
+                resultado.add(new Object[]{LocalDate.ofEpochDay(diaInicio + d), SnapshotVendas.paraDecimal(totalDia)});
+            }
+        }
+        return resultado;
+    }
+
+    private long[] somarPorFilial(long[] matriz, int colunas, boolean[] mascara) {
+        long[] soma = new long[colunas];
+        for (int f = 0; f < nomesFiliais.length; f++) {
+            if (mascara != null && !mascara[f]) continue;
+            int linha = f * colunas;
+            for (int c = 0; c < colunas; c++) {
+                soma[c] += matriz[linha + c];
+            }
+        }
+        return soma;
+    }
+
+    private boolean[] mascaraFiliais(Collection<String> filtroFiliais) {
+        if (filtroFiliais == null || filtroFiliais.isEmpty()) {
+            return null;
+        }
+        boolean[] mascara = new boolean[nomesFiliais.length];
+        for (String filial : filtroFiliais) {
+            Integer id = idsFiliais.get(filial);
+            if (id != null) mascara[id] = true;
+        }
+        return mascara;
+    }
+}
@@ -0,0 +1,205 @@
+package com.exemplo.dashboardvendas.service;
+
+import com.exemplo.dashboardvendas.dto.DashboardResponse;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Resultados do dashboard de períodos já encerrados (fim antes de hoje), guardados em um
+ * ArmazemResultados em disco para sobreviver a reinícios: a mesma consulta sobre um período
+ * fechado dá sempre a mesma resposta, a não ser que cheguem vendas ou pagamentos com data retroativa.
+ *
+ * A invalidação vem do VendasDiariasService, que já descobre os dias alterados pelas marcas d'água
+ * gravadas no banco (inclusive o que entrou com a aplicação parada) e compara os dias antes e depois
+ * da reconstrução noturna, que absorve exclusões. Cada valor é removido quando algum dia do seu
+ * período muda. O armazém só é usado depois da primeira atualização do consolidado nesta execução.
+ *
+ * Um valor só é gravado se nenhuma invalidação ocorreu durante o cálculo e se a fonte do cálculo já
+ * enxerga tudo o que a última passada do consolidado viu: uma venda que falte na fonte ainda não foi
+ * vista pelo consolidado, que vai invalidar o dia quando a vir. Quando o snapshot atende o período, a
+ * comparação é pelas marcas d'água dele, e não pelo relógio, porque ele pode ter lido de uma réplica
+ * atrasada. Fora do snapshot o cálculo lê o consolidado e as vendas no banco, o que só é seguro sem
+ * réplicas (tudo no primário); com réplicas, o valor é calculado e não é gravado.
+ */
+@Service
+public class ResultadosFechadosService {
+    private static final Logger logger = LoggerFactory.getLogger(ResultadosFechadosService.class);
+
+    @Autowired
+    private SnapshotVendasService snapshotVendasService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${dashboard.fechados.enabled:true}")
+    private boolean habilitado;
+
+    @Value("${dashboard.fechados.arquivo:data/resultados-fechados.dat}")
+    private String caminhoArquivo;
+
+    @Value("${dashboard.fechados.capacidade-mb:64}")
+    private int capacidadeMb;
+
+    // Com réplicas, as leituras fora do snapshot podem estar até dashboard.replicas.atraso-maximo-ms atrás
+    @Value("${dashboard.replicas.urls:}")
+    private String urlsReplicas;
+
+    private ArmazemResultados armazem;
+
+    // Mapeador dos valores gravados: números sem tipo (como os do ranking) voltam como BigDecimal,
+    // e as partes do dashboard que não dependem do período ficam de fora
+    private ObjectMapper mapeador;
+
+    // Incrementada a cada invalidação; um cálculo que atravessou uma invalidação não é gravado
+    private final AtomicLong geracao = new AtomicLong();
+
+    // Marcas da última atualização do consolidado (null enquanto não houve nenhuma nesta execução)
+    private volatile MarcasDados marcasConsolidado;
+
+    private Counter acertos;
+    private Counter faltas;
+
+    @PostConstruct
+    public void abrir() {
+        mapeador = objectMapper.copy()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+            .addMixIn(DashboardResponse.class, DashboardSemPartesAtuais.class);
+        acertos = Counter.builder("dashboard.fechados.leituras").tag("resultado", "acerto").register(meterRegistry);
+        faltas = Counter.builder("dashboard.fechados.leituras").tag("resultado", "falta").register(meterRegistry);
+        if (!habilitado) {
+            return;
+        }
+
+        try {
+            armazem = ArmazemResultados.abrir(Path.of(caminhoArquivo), capacidadeMb * 1024 * 1024);
+            Gauge.builder("dashboard.fechados.entradas", armazem, ArmazemResultados::getQuantidade)
+                .register(meterRegistry);
+            Gauge.builder("dashboard.fechados.bytes", armazem, ArmazemResultados::getBytesUsados)
+                .register(meterRegistry);
+            logger.info("Resultados de períodos fechados: {} entradas em {}", armazem.getQuantidade(), caminhoArquivo);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Armazém de resultados fechados indisponível em {}; períodos fechados serão recalculados",
+                caminhoArquivo, e);
+        }
+    }
+
+    @PreDestroy
+    public void fechar() {
+        if (armazem != null) {
+            try {
+                armazem.close();
+            } catch (IOException e) {
+                logger.warn("Falha ao fechar armazém de resultados fechados", e);
+            }
+        }
+    }
+
+    /**
+     * Indica se resultados de dataInicio a dataFim podem vir do armazém: período encerrado e
+     * invalidação já acompanhando o consolidado
+     */
+    public boolean atende(LocalDate dataInicio, LocalDate dataFim) {
+        return armazem != null && marcasConsolidado != null && dataFim.isBefore(LocalDate.now());
+    }
+
+    /**
+     * Valor da chave calculado sobre as vendas de dataInicio a dataFim: lido do armazém ou calculado
+     * e gravado nele. Fora de um período atendido, apenas calcula.
+     */
+    public <T> T obter(String chave, LocalDate dataInicio, LocalDate dataFim, Class<T> tipo, Supplier<T> calculo) {
+        if (!atende(dataInicio, dataFim)) {
+            return calculo.get();
+        }
+
+        byte[] gravado = armazem.ler(chave);
+        if (gravado != null) {
+            try {
+                T valor = mapeador.readValue(gravado, tipo);
+                acertos.increment();
+                return valor;
+            } catch (IOException e) {
+                logger.warn("Resultado fechado ilegível para {}; recalculando", chave, e);
+                armazem.remover(chave);
+            }
+        }
+        faltas.increment();
+
+        long geracaoInicial = geracao.get();
+        boolean fonteAtualizada = fonteAlcancaConsolidado(dataInicio);
+        T valor = calculo.get();
+        if (fonteAtualizada) {
+            gravar(chave, dataInicio, dataFim, valor, geracaoInicial);
+        }
+        return valor;
+    }
+
+    // As marcas são lidas antes do snapshot, que é publicado antes delas: o snapshot obtido é pelo menos tão novo
+    private boolean fonteAlcancaConsolidado(LocalDate dataInicio) {
+        MarcasDados marcasSnapshot = snapshotVendasService.getMarcas();
+        if (snapshotVendasService.obterSnapshot(dataInicio) != null) {
+            return marcasSnapshot != null && marcasSnapshot.alcanca(marcasConsolidado);
+        }
+        return !StringUtils.hasText(urlsReplicas);
+    }
+
+    /**
+     * Chamado pelo VendasDiariasService depois de cada atualização confirmada, com as marcas d'água
+     * gravadas no controle e os dias recalculados (ou que mudaram na reconstrução)
+     */
+    synchronized void consolidadoAtualizado(MarcasDados marcas, Collection<LocalDate> diasAlterados) {
+        // Dias de hoje em diante não pertencem a nenhum período fechado
+        long hoje = LocalDate.now().toEpochDay();
+        long[] dias = diasAlterados.stream().mapToLong(LocalDate::toEpochDay).filter(dia -> dia < hoje).sorted().toArray();
+        if (armazem != null && dias.length > 0) {
+            geracao.incrementAndGet();
+            int removidos = armazem.removerDias(dias);
+            if (removidos > 0) {
+                logger.debug("{} resultado(s) fechado(s) invalidado(s) por {} dia(s) alterado(s)",
+                    removidos, dias.length);
+            }
+        }
+        marcasConsolidado = marcas;
+    }
+
+    private synchronized void gravar(String chave, LocalDate dataInicio, LocalDate dataFim, Object valor,
+                                     long geracaoInicial) {
+        if (geracao.get() != geracaoInicial) {
+            return;
+        }
+        try {
+            if (!armazem.gravar(chave, dataInicio, dataFim, mapeador.writeValueAsBytes(valor))) {
+                logger.debug("Resultado fechado de {} maior que o armazém; não gravado", chave);
+            }
+        } catch (IOException e) {
+            logger.warn("Falha ao serializar resultado fechado de {}", chave, e);
+        }
+    }
+
+    // Listas dos filtros e metas mudam sem relação com as vendas do período: não são gravadas e
+    // voltam nulas, para o VendaService preencher com os valores atuais
+    @JsonIgnoreProperties({"filiais", "vendedores", "metas"})
+    private abstract static class DashboardSemPartesAtuais {
+    }
+}
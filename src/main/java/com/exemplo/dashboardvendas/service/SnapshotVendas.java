@@ -0,0 +1,653 @@
+package com.exemplo.dashboardvendas.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cópia colunar de financeiro_clientes para uma janela de datas.
+ *
+ * As linhas ficam em arrays primitivos (dia em epoch-day, valor em centavos, filial e vendedor
+ * codificados em dicionário e estado de pagamento). A carga completa gera um segmento base
+ * ordenado por dia; linhas novas ou alteradas depois dela entram em um segmento delta pequeno,
+ * sem ordem, e cada aplicação de delta publica uma nova versão do snapshot.
+ *
+ * Uma versão publicada nunca muda: as colunas do base são compartilhadas entre versões, mas o estado
+ * das suas linhas é copiado na primeira alteração do delta, para que uma consulta ainda em andamento
+ * na versão anterior não veja linhas removidas ou pagas antes da versão que as substitui.
+ *
+ * As consultas retornam as mesmas colunas das consultas equivalentes de FinanceiroClienteRepository.
+ */
+public class SnapshotVendas {
+
+    static final byte NAO_PAGO = 0;
+    static final byte PAGO = 1;
+    static final byte REMOVIDO = 2;
+
+    private static final int TODOS = -1;
+    private static final int NENHUM = -2;
+
+    private final LocalDate inicioJanela;
+    private final Segmento base;
+    private final Segmento delta;
+    private final Map<Long, Integer> linhaDeltaPorId;
+
+    // Dicionários compartilhados entre versões (só o carregador acrescenta nomes)
+    private final Dicionario dicionarioFiliais;
+    private final Dicionario dicionarioVendedores;
+    private final Dicionario dicionarioVendedoresUpper;
+
+    // Cópia dos dicionários no momento em que esta versão foi publicada
+    private final String[] nomesFiliais;
+    private final String[] nomesVendedores;
+    private final int[] vendedorUpper;
+    private final int totalVendedoresUpper;
+
+    private SnapshotVendas(LocalDate inicioJanela, Segmento base, Segmento delta, Map<Long, Integer> linhaDeltaPorId,
+                           Dicionario dicionarioFiliais, Dicionario dicionarioVendedores,
+                           Dicionario dicionarioVendedoresUpper, List<Integer> vendedorUpper) {
+        this.inicioJanela = inicioJanela;
+        this.base = base;
+        this.delta = delta;
+        this.linhaDeltaPorId = linhaDeltaPorId;
+        this.dicionarioFiliais = dicionarioFiliais;
+        this.dicionarioVendedores = dicionarioVendedores;
+        this.dicionarioVendedoresUpper = dicionarioVendedoresUpper;
+        this.nomesFiliais = dicionarioFiliais.nomes();
+        this.nomesVendedores = dicionarioVendedores.nomes();
+        this.vendedorUpper = vendedorUpper.stream().mapToInt(Integer::intValue).toArray();
+        this.totalVendedoresUpper = dicionarioVendedoresUpper.tamanho();
+    }
+
+    public LocalDate getInicioJanela() {
+        return inicioJanela;
+    }
+
+    public int getTamanho() {
+        return base.tamanho + delta.tamanho;
+    }
+
+    public int getTamanhoDelta() {
+        return delta.tamanho;
+    }
+
+    /**
+     * Indica se o snapshot contém todas as linhas a partir da data informada
+     */
+    public boolean cobre(LocalDate dataInicio) {
+        return dataInicio != null && !dataInicio.isBefore(inicioJanela);
+    }
+
+    /**
+     * Gera uma nova versão com as linhas novas ou alteradas (mesmas colunas de carregarVendasDesde)
+     * e os clientes que receberam pagamento. O estado de pagamento das linhas vem do bitmap, que já
+     * deve incluir clientesPagos. Deve ser chamado apenas pela thread do carregador.
+     */
+    SnapshotVendas aplicarDelta(List<Object[]> linhas, List<Long> clientesPagos, BitmapPagamentos pagamentos) {
+        // Estado do base copiado só se alguma linha dele mudar
+        Segmento novaBase = base;
+        Segmento novoDelta = delta.copiar(delta.tamanho + linhas.size());
+        Map<Long, Integer> novoIndice = new HashMap<>(linhaDeltaPorId);
+        List<Integer> novoVendedorUpper = new ArrayList<>();
+        for (int v : vendedorUpper) novoVendedorUpper.add(v);
+
+        for (Object[] linha : linhas) {
+            long id = ((Number) linha[0]).longValue();
+            LocalDate data = linha[1] != null ? SnapshotVendasService.paraLocalDate(linha[1]) : null;
+
+            // A versão anterior da linha deixa de contar; a nova entra no delta
+            int linhaBase = base.linhaDoId(id);
+            if (linhaBase >= 0 && novaBase.estado[linhaBase] != REMOVIDO) {
+                if (novaBase == base) novaBase = base.comEstadoProprio();
+                novaBase.estado[linhaBase] = REMOVIDO;
+            }
+            Integer linhaDelta = novoIndice.get(id);
+            if (data == null || data.isBefore(inicioJanela)) {
+                if (linhaDelta != null) novoDelta.estado[linhaDelta] = REMOVIDO;
+                continue;
+            }
+
+            int posicao = linhaDelta != null ? linhaDelta : novoDelta.tamanho++;
+            novoDelta.gravar(posicao, id, data, (BigDecimal) linha[2],
+                idFilial((String) linha[3]), idVendedor((String) linha[4], novoVendedorUpper),
+                (String) linha[5], pagamentos.contem(id));
+            novoIndice.put(id, posicao);
+        }
+
+        for (Long clienteId : clientesPagos) {
+            Integer linhaDelta = novoIndice.get(clienteId);
+            if (linhaDelta != null) {
+                if (novoDelta.estado[linhaDelta] == NAO_PAGO) novoDelta.estado[linhaDelta] = PAGO;
+                continue;
+            }
+            int linhaBase = base.linhaDoId(clienteId);
+            if (linhaBase >= 0 && novaBase.estado[linhaBase] == NAO_PAGO) {
+                if (novaBase == base) novaBase = base.comEstadoProprio();
+                novaBase.estado[linhaBase] = PAGO;
+            }
+        }
+
+        return new SnapshotVendas(inicioJanela, novaBase, novoDelta, novoIndice,
+            dicionarioFiliais, dicionarioVendedores, dicionarioVendedoresUpper, novoVendedorUpper);
+    }
+
+    /**
+     * Mesmas colunas de resumoVendasPorFilial:
+     * filial, total, numero, maior_venda, cliente_maior_venda, vendedor_maior_venda
+     */
+    public List<Object[]> resumoVendasPorFilial(Collection<String> filtroFiliais, String vendedor,
+                                                LocalDate dataInicio, LocalDate dataFim) {
+        boolean[] mascara = mascaraFiliais(filtroFiliais);
+        int idVendedor = idVendedorUpper(vendedor);
+        if (idVendedor == NENHUM) {
+            return new ArrayList<>();
+        }
+
+        int n = nomesFiliais.length;
+        long[] total = new long[n];
+        long[] numero = new long[n];
+        long[] maior = new long[n];
+        Segmento[] segmentoMaior = new Segmento[n];
+        int[] linhaMaior = new int[n];
+        int diaInicio = (int) dataInicio.toEpochDay();
+        int diaFim = (int) dataFim.toEpochDay();
+
+        for (Segmento s : segmentos()) {
+            int fim = s.limiteSuperior(diaFim);
+            for (int i = s.limiteInferior(diaInicio); i < fim; i++) {
+                if (s.estado[i] != PAGO) continue;
+                if (s.dias[i] < diaInicio || s.dias[i] > diaFim) continue;
+                int f = s.filiais[i];
+                if (mascara != null && !mascara[f]) continue;
+                if (idVendedor != TODOS && !vendedorConfere(s, i, idVendedor)) continue;
+
+                long valor = s.centavos[i];
+                total[f] += valor;
+                numero[f]++;
+                if (segmentoMaior[f] == null || valor > maior[f]) {
+                    maior[f] = valor;
+                    segmentoMaior[f] = s;
+                    linhaMaior[f] = i;
+                }
+            }
+        }
+
+        List<Object[]> resultado = new ArrayList<>();
+        for (int f = 0; f < n; f++) {
+            if (numero[f] == 0) continue;
+            Segmento s = segmentoMaior[f];
+            int linha = linhaMaior[f];
+            resultado.add(new Object[]{
+                nomesFiliais[f], paraDecimal(total[f]), numero[f], paraDecimal(maior[f]),
+                s.nomes[linha], s.vendedores[linha] >= 0 ? nomesVendedores[s.vendedores[linha]] : null
+            });
+        }
+        return resultado;
+    }
+
+    /**
+     * Mesmas colunas de topVendedoresComAnterior: vendedor, total, total_anterior,
+     * ordenado pelo total do período atual
+     */
+    public List<Object[]> topVendedoresComAnterior(Collection<String> filtroFiliais,
+                                                   LocalDate dataInicio, LocalDate dataFim,
+                                                   LocalDate dataInicioAnterior, LocalDate dataFimAnterior) {
+        boolean[] mascara = mascaraFiliais(filtroFiliais);
+        long[] totalAtual = new long[nomesVendedores.length];
+        long[] totalAnterior = new long[totalVendedoresUpper];
+
+        acumularPorVendedor(mascara, dataInicio, dataFim, totalAtual, false);
+        acumularPorVendedor(mascara, dataInicioAnterior, dataFimAnterior, totalAnterior, true);
+
+        List<Object[]> resultado = new ArrayList<>();
+        for (int v = 0; v < totalAtual.length; v++) {
+            if (totalAtual[v] <= 0) continue;
+            resultado.add(new Object[]{
+                nomesVendedores[v], paraDecimal(totalAtual[v]), paraDecimal(totalAnterior[vendedorUpper[v]])
+            });
+        }
+        resultado.sort((a, b) -> ((BigDecimal) b[1]).compareTo((BigDecimal) a[1]));
+        return resultado;
+    }
+
+    /**
+     * Mesmas colunas de vendedorQueMaisVendeu: vendedor, total (maior total primeiro)
+     */
+    public List<Object[]> vendedorQueMaisVendeu(String filial, LocalDate dataInicio, LocalDate dataFim) {
+        boolean[] mascara = filial != null ? mascaraFiliais(List.of(filial)) : null;
+        long[] total = new long[nomesVendedores.length];
+        acumularPorVendedor(mascara, dataInicio, dataFim, total, false);
+
+        List<Object[]> resultado = new ArrayList<>();
+        for (int v = 0; v < total.length; v++) {
+            if (total[v] == 0) continue;
+            resultado.add(new Object[]{nomesVendedores[v], paraDecimal(total[v])});
+        }
+        resultado.sort((a, b) -> ((BigDecimal) b[1]).compareTo((BigDecimal) a[1]));
+        return resultado;
+    }
+
+    /**
+     * Mesmas colunas de unidadeQueMaisVendeu: filial, total (maior total primeiro)
+     */
+    public List<Object[]> unidadeQueMaisVendeu(String vendedor, LocalDate dataInicio, LocalDate dataFim) {
+        List<Object[]> resultado = new ArrayList<>();
+        for (Object[] linha : resumoVendasPorFilial(null, vendedor, dataInicio, dataFim)) {
+            resultado.add(new Object[]{linha[0], linha[1]});
+        }
+        resultado.sort((a, b) -> ((BigDecimal) b[1]).compareTo((BigDecimal) a[1]));
+        return resultado;
+    }
+
+    /**
+     * Mesmas colunas de dadosGraficoVendasPorPeriodo: data, total (um ponto por dia com venda)
+     */
+    public List<Object[]> dadosGraficoVendasPorPeriodo(Collection<String> filtroFiliais, String vendedor,
+                                                       LocalDate dataInicio, LocalDate dataFim) {
+        return dadosGrafico(filtroFiliais, vendedor, dataInicio, dataFim, false);
+    }
+
+    /**
+     * Mesmas colunas de dadosGraficoVendasPorMes: primeiro dia do mês, total
+     */
+    public List<Object[]> dadosGraficoVendasPorMes(Collection<String> filtroFiliais, String vendedor,
+                                                   LocalDate dataInicio, LocalDate dataFim) {
+        return dadosGrafico(filtroFiliais, vendedor, dataInicio, dataFim, true);
+    }
+
+    private List<Object[]> dadosGrafico(Collection<String> filtroFiliais, String vendedor,
+                                        LocalDate dataInicio, LocalDate dataFim, boolean porMes) {
+        List<Object[]> resultado = new ArrayList<>();
+        boolean[] mascara = mascaraFiliais(filtroFiliais);
+        int idVendedor = idVendedorUpper(vendedor);
+        int diaInicio = (int) dataInicio.toEpochDay();
+        int diaFim = (int) Math.min(dataFim.toEpochDay(), Math.max(base.diaMaximo, delta.diaMaximo));
+        if (idVendedor == NENHUM || diaFim < diaInicio) {
+            return resultado;
+        }
+
+        // Um acumulador por dia da janela; o delta não é ordenado, então não dá para agrupar em sequência
+        int dias = diaFim - diaInicio + 1;
+        long[] totais = new long[dias];
+        boolean[] comVenda = new boolean[dias];
+
+        for (Segmento s : segmentos()) {
+            int fim = s.limiteSuperior(diaFim);
+            for (int i = s.limiteInferior(diaInicio); i < fim; i++) {
+                if (s.estado[i] != PAGO) continue;
+                int d = s.dias[i];
+                if (d < diaInicio || d > diaFim) continue;
+                if (mascara != null && !mascara[s.filiais[i]]) continue;
+                if (idVendedor != TODOS && !vendedorConfere(s, i, idVendedor)) continue;
+
+                totais[d - diaInicio] += s.centavos[i];
+                comVenda[d - diaInicio] = true;
+            }
+        }
+
+        LocalDate chaveAtual = null;
+        long totalAtual = 0;
+        for (int d = 0; d < dias; d++) {
+            if (!comVenda[d]) continue;
+            LocalDate data = LocalDate.ofEpochDay(diaInicio + d);
+            LocalDate chave = porMes ? data.withDayOfMonth(1) : data;
+            if (!chave.equals(chaveAtual)) {
+                if (chaveAtual != null) {
+                    resultado.add(new Object[]{chaveAtual, paraDecimal(totalAtual)});
+                }
+                chaveAtual = chave;
+                totalAtual = 0;
+            }
+            totalAtual += totais[d];
+        }
+        if (chaveAtual != null) {
+            resultado.add(new Object[]{chaveAtual, paraDecimal(totalAtual)});
+        }
+        return resultado;
+    }
+
+    /**
+     * Uma passada pelas linhas do período atual e do anterior acumulando, para todas as filiais, o que
+     * as consultas acima calculam para um filtro; vários conjuntos de filiais da mesma janela são
+     * respondidos depois pelo QuadroVendas (lote do dashboard)
+     */
+    QuadroVendas quadro(String vendedor, LocalDate dataInicio, LocalDate dataFim,
+                        LocalDate dataInicioAnterior, LocalDate dataFimAnterior) {
+        int idVendedor = idVendedorUpper(vendedor);
+        int diaInicio = (int) dataInicio.toEpochDay();
+        int diaFim = (int) dataFim.toEpochDay();
+        int diaInicioAnterior = (int) dataInicioAnterior.toEpochDay();
+        int diaFimAnterior = (int) dataFimAnterior.toEpochDay();
+        // O gráfico vai até o último dia com venda, como em dadosGrafico
+        int diaFimGrafico = (int) Math.min(diaFim, Math.max(base.diaMaximo, delta.diaMaximo));
+        QuadroVendas quadro = new QuadroVendas(nomesFiliais, nomesVendedores, vendedorUpper, totalVendedoresUpper,
+            diaInicio, Math.max(0, diaFimGrafico - diaInicio + 1));
+
+        int primeiroDia = Math.min(diaInicio, diaInicioAnterior);
+        int ultimoDia = Math.max(diaFim, diaFimAnterior);
+        for (Segmento s : segmentos()) {
+            int fim = s.limiteSuperior(ultimoDia);
+            for (int i = s.limiteInferior(primeiroDia); i < fim; i++) {
+                if (s.estado[i] != PAGO) continue;
+                int d = s.dias[i];
+                boolean atual = d >= diaInicio && d <= diaFim;
+                boolean anterior = d >= diaInicioAnterior && d <= diaFimAnterior;
+                if (!atual && !anterior) continue;
+
+                int f = s.filiais[i];
+                int v = s.vendedores[i];
+                long valor = s.centavos[i];
+                boolean comVendedor = v >= 0 && v < vendedorUpper.length;
+                boolean confere = idVendedor == TODOS || (idVendedor != NENHUM && vendedorConfere(s, i, idVendedor));
+                if (atual) {
+                    if (comVendedor) quadro.somarVendedor(f, v, valor);
+                    if (confere) quadro.somarVenda(f, d, valor, s.nomes[i], v >= 0 ? nomesVendedores[v] : null);
+                }
+                if (anterior) {
+                    if (comVendedor) quadro.somarVendedorAnterior(f, v, valor);
+                    if (confere) quadro.somarVendaAnterior(f, valor);
+                }
+            }
+        }
+        return quadro;
+    }
+
+    private void acumularPorVendedor(boolean[] mascara, LocalDate dataInicio, LocalDate dataFim,
+                                     long[] totais, boolean porUpper) {
+        int diaInicio = (int) dataInicio.toEpochDay();
+        int diaFim = (int) dataFim.toEpochDay();
+        for (Segmento s : segmentos()) {
+            int fim = s.limiteSuperior(diaFim);
+            for (int i = s.limiteInferior(diaInicio); i < fim; i++) {
+                if (s.estado[i] != PAGO) continue;
+                if (s.dias[i] < diaInicio || s.dias[i] > diaFim) continue;
+                if (mascara != null && !mascara[s.filiais[i]]) continue;
+                int v = s.vendedores[i];
+                if (v < 0 || v >= vendedorUpper.length) continue;
+                totais[porUpper ? vendedorUpper[v] : v] += s.centavos[i];
+            }
+        }
+    }
+
+    private Segmento[] segmentos() {
+        return new Segmento[]{base, delta};
+    }
+
+    private boolean vendedorConfere(Segmento s, int linha, int idVendedorUpper) {
+        int v = s.vendedores[linha];
+        return v >= 0 && vendedorUpper[v] == idVendedorUpper;
+    }
+
+    private boolean[] mascaraFiliais(Collection<String> filtroFiliais) {
+        if (filtroFiliais == null || filtroFiliais.isEmpty()) {
+            return null;
+        }
+        boolean[] mascara = new boolean[nomesFiliais.length];
+        for (String filial : filtroFiliais) {
+            int id = dicionarioFiliais.id(filial);
+            if (id >= 0 && id < mascara.length) mascara[id] = true;
+        }
+        return mascara;
+    }
+
+    private int idVendedorUpper(String vendedor) {
+        if (vendedor == null) {
+            return TODOS;
+        }
+        int id = dicionarioVendedoresUpper.id(vendedor);
+        return id >= 0 && id < totalVendedoresUpper ? id : NENHUM;
+    }
+
+    private int idFilial(String filial) {
+        return dicionarioFiliais.adicionar(filial);
+    }
+
+    private int idVendedor(String vendedor, List<Integer> vendedorUpper) {
+        if (vendedor == null) {
+            return -1;
+        }
+        int id = dicionarioVendedores.adicionar(vendedor);
+        if (id == vendedorUpper.size()) {
+            vendedorUpper.add(dicionarioVendedoresUpper.adicionar(vendedor.toUpperCase()));
+        }
+        return id;
+    }
+
+    static long paraCentavos(BigDecimal valor) {
+        return valor.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    static BigDecimal paraDecimal(long centavos) {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    /**
+     * Dicionário de nomes com ids sequenciais. Acréscimos só pela thread do carregador;
+     * as buscas por nome podem ser feitas de qualquer thread.
+     */
+    static class Dicionario {
+        private final List<String> nomes = new ArrayList<>();
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+        int adicionar(String nome) {
+            Integer id = ids.get(nome);
+            if (id != null) {
+                return id;
+            }
+            nomes.add(nome);
+            ids.put(nome, nomes.size() - 1);
+            return nomes.size() - 1;
+        }
+
+        int id(String nome) {
+            Integer id = ids.get(nome);
+            return id != null ? id : -1;
+        }
+
+        int tamanho() {
+            return nomes.size();
+        }
+
+        String[] nomes() {
+            return nomes.toArray(new String[0]);
+        }
+    }
+
+    /**
+     * Conjunto de colunas de um segmento. O base é ordenado por dia e tem índice por id;
+     * o delta não tem ordem e é percorrido inteiro.
+     */
+    private static class Segmento {
+        private final boolean ordenado;
+        private int tamanho;
+        private int diaMaximo = Integer.MIN_VALUE;
+
+        private long[] ids;
+        private int[] dias;
+        private long[] centavos;
+        private int[] filiais;
+        private int[] vendedores;
+        private byte[] estado;
+        private String[] nomes;
+
+        private IndiceIds indice;
+
+        private Segmento(boolean ordenado, int capacidade) {
+            this.ordenado = ordenado;
+            this.ids = new long[capacidade];
+            this.dias = new int[capacidade];
+            this.centavos = new long[capacidade];
+            this.filiais = new int[capacidade];
+            this.vendedores = new int[capacidade];
+            this.estado = new byte[capacidade];
+            this.nomes = new String[capacidade];
+        }
+
+        // Mesmas colunas e índice, com uma cópia do estado que pode ser alterada sem afetar esta instância
+        private Segmento comEstadoProprio() {
+            Segmento copia = new Segmento(ordenado, 0);
+            copia.tamanho = tamanho;
+            copia.diaMaximo = diaMaximo;
+            copia.ids = ids;
+            copia.dias = dias;
+            copia.centavos = centavos;
+            copia.filiais = filiais;
+            copia.vendedores = vendedores;
+            copia.estado = estado.clone();
+            copia.nomes = nomes;
+            copia.indice = indice;
+            return copia;
+        }
+
+        private void garantirCapacidade(int capacidade) {
+            if (capacidade <= ids.length) return;
+            int novo = Math.max(capacidade, ids.length * 2);
+            ids = Arrays.copyOf(ids, novo);
+            dias = Arrays.copyOf(dias, novo);
+            centavos = Arrays.copyOf(centavos, novo);
+            filiais = Arrays.copyOf(filiais, novo);
+            vendedores = Arrays.copyOf(vendedores, novo);
+            estado = Arrays.copyOf(estado, novo);
+            nomes = Arrays.copyOf(nomes, novo);
+        }
+
+        private void gravar(int linha, long id, LocalDate data, BigDecimal valorDebito,
+                            int filial, int vendedor, String nome, boolean foiPago) {
+            ids[linha] = id;
+            dias[linha] = (int) data.toEpochDay();
+            centavos[linha] = valorDebito != null ? paraCentavos(valorDebito) : 0L;
+            filiais[linha] = filial;
+            vendedores[linha] = vendedor;
+            estado[linha] = foiPago ? PAGO : NAO_PAGO;
+            nomes[linha] = nome;
+            diaMaximo = Math.max(diaMaximo, dias[linha]);
+        }
+
+        private Segmento copiar(int capacidade) {
+            Segmento copia = new Segmento(ordenado, Math.max(capacidade, 16));
+            System.arraycopy(ids, 0, copia.ids, 0, tamanho);
+            System.arraycopy(dias, 0, copia.dias, 0, tamanho);
+            System.arraycopy(centavos, 0, copia.centavos, 0, tamanho);
+            System.arraycopy(filiais, 0, copia.filiais, 0, tamanho);
+            System.arraycopy(vendedores, 0, copia.vendedores, 0, tamanho);
+            System.arraycopy(estado, 0, copia.estado, 0, tamanho);
+            System.arraycopy(nomes, 0, copia.nomes, 0, tamanho);
+            copia.tamanho = tamanho;
+            copia.diaMaximo = diaMaximo;
+            return copia;
+        }
+
+        private int linhaDoId(long id) {
+            return indice != null ? indice.obter(id) : -1;
+        }
+
+        // Primeira linha com dia >= diaInicio (o delta é sempre percorrido inteiro)
+        private int limiteInferior(int diaInicio) {
+            return ordenado ? primeiraLinhaAPartirDe(diaInicio) : 0;
+        }
+
+        // Primeira linha com dia > diaFim
+        private int limiteSuperior(int diaFim) {
+            return ordenado ? primeiraLinhaAPartirDe((long) diaFim + 1) : tamanho;
+        }
+
+        private int primeiraLinhaAPartirDe(long dia) {
+            int baixo = 0;
+            int alto = tamanho;
+            while (baixo < alto) {
+                int meio = (baixo + alto) >>> 1;
+                if (dias[meio] < dia) {
+                    baixo = meio + 1;
+                } else {
+                    alto = meio;
+                }
+            }
+            return baixo;
+        }
+    }
+
+    /**
+     * Mapa id -> linha com endereçamento aberto, sem boxing, para o segmento base
+     */
+    private static class IndiceIds {
+        private final long[] chaves;
+        private final int[] linhas;
+        private final int mascara;
+
+        private IndiceIds(long[] ids, int tamanho) {
+            int capacidade = Integer.highestOneBit(Math.max(tamanho, 8) * 2 - 1) << 1;
+            this.chaves = new long[capacidade];
+            this.linhas = new int[capacidade];
+            this.mascara = capacidade - 1;
+            Arrays.fill(linhas, -1);
+            for (int i = 0; i < tamanho; i++) {
+                int p = posicao(ids[i]);
+                while (linhas[p] >= 0 && chaves[p] != ids[i]) p = (p + 1) & mascara;
+                chaves[p] = ids[i];
+                linhas[p] = i;
+            }
+        }
+
+        private int obter(long id) {
+            int p = posicao(id);
+            while (linhas[p] >= 0) {
+                if (chaves[p] == id) return linhas[p];
+                p = (p + 1) & mascara;
+            }
+            return -1;
+        }
+
+        private int posicao(long id) {
+            long h = id * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mascara;
+        }
+    }
+
+    /**
+     * Acumula linhas já ordenadas por data e gera o segmento base de um novo snapshot
+     */
+    public static class Construtor {
+        private final LocalDate inicioJanela;
+        private final Segmento base = new Segmento(true, 1024);
+        private final Dicionario dicionarioFiliais = new Dicionario();
+        private final Dicionario dicionarioVendedores = new Dicionario();
+        private final Dicionario dicionarioVendedoresUpper = new Dicionario();
+        private final List<Integer> vendedorUpper = new ArrayList<>();
+
+        public Construtor(LocalDate inicioJanela) {
+            this.inicioJanela = inicioJanela;
+        }
+
+        public void adicionar(long id, LocalDate data, BigDecimal valorDebito, String filial,
+                              String vendedor, String nome, boolean foiPago) {
+            if (base.tamanho > 0 && data.toEpochDay() < base.dias[base.tamanho - 1]) {
+                throw new IllegalArgumentException("Linhas devem ser adicionadas em ordem de data");
+            }
+            base.garantirCapacidade(base.tamanho + 1);
+
+            int idVendedor = -1;
+            if (vendedor != null) {
+                idVendedor = dicionarioVendedores.adicionar(vendedor);
+                if (idVendedor == vendedorUpper.size()) {
+                    vendedorUpper.add(dicionarioVendedoresUpper.adicionar(vendedor.toUpperCase()));
+                }
+            }
+            base.gravar(base.tamanho, id, data, valorDebito, dicionarioFiliais.adicionar(filial),
+                idVendedor, nome, foiPago);
+            base.tamanho++;
+        }
+
+        public SnapshotVendas construir() {
+            base.indice = new IndiceIds(base.ids, base.tamanho);
+            return new SnapshotVendas(inicioJanela, base, new Segmento(false, 16), new HashMap<>(),
+                dicionarioFiliais, dicionarioVendedores, dicionarioVendedoresUpper, vendedorUpper);
+        }
+    }
+}
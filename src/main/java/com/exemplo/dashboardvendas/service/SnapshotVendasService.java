@@ -0,0 +1,323 @@
+package com.exemplo.dashboardvendas.service;
+
+import com.exemplo.dashboardvendas.repository.FinanceiroClienteRepository;
+import com.exemplo.dashboardvendas.repository.FinanceiroPagamentoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Mantém em memória um SnapshotVendas da janela configurada, para que o VendaService
+ * responda ao dashboard sem consultar o PostgreSQL a cada atualização das telas.
+ *
+ * Depois da carga completa, cada execução busca apenas o que passou das marcas d'água
+ * (id e data_cadastro de financeiro_clientes, id de financeiro_pagamentos) e aplica no snapshot.
+ * A carga completa é refeita periodicamente para absorver exclusões, que não aparecem no delta.
+ *
+ * Uma transação pode gravar depois de outra com id ou data_cadastro maior; quando a marca já passou
+ * dela, a linha ficaria de fora. Por isso cada execução relê uma janela abaixo das marcas
+ * (dashboard.snapshot.releitura-ids e releitura-s) e descarta o que já foi aplicado nela.
+ *
+ * O estado de pagamento de cada venda vem de um BitmapPagamentos com os cliente_id pagos, carregado
+ * junto com o snapshot e acrescido dos pagamentos novos, em vez de um EXISTS por linha no SQL.
+ */
+@Service
+public class SnapshotVendasService {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotVendasService.class);
+
+    private static final LocalDateTime SEM_DATA_CADASTRO = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Autowired
+    private FinanceiroClienteRepository financeiroClienteRepository;
+
+    @Autowired
+    private FinanceiroPagamentoRepository financeiroPagamentoRepository;
+
+    @Value("${dashboard.snapshot.enabled:true}")
+    private boolean habilitado;
+
+    // Quantidade de anos completos (além do atual) mantidos em memória
+    @Value("${dashboard.snapshot.janela-anos:3}")
+    private int janelaAnos;
+
+    @Value("${dashboard.snapshot.recarga-completa-ms:21600000}")
+    private long intervaloRecargaCompleta;
+
+    // Acima deste tamanho o delta é incorporado ao segmento ordenado por uma nova carga completa
+    @Value("${dashboard.snapshot.max-linhas-delta:100000}")
+    private int maxLinhasDelta;
+
+    // Janela relida abaixo das marcas, para as transações que gravam depois de outras mais novas
+    @Value("${dashboard.snapshot.releitura-ids:1000}")
+    private long releituraIds;
+
+    @Value("${dashboard.snapshot.releitura-s:300}")
+    private long releituraSegundos;
+
+    private final TransactionTemplate transacaoLeitura;
+
+    private volatile SnapshotVendas snapshot;
+
+    private volatile BitmapPagamentos pagamentos = BitmapPagamentos.vazio();
+
+    // Marcas do snapshot publicado, trocadas logo depois dele (ver getVersao)
+    private volatile String versao;
+
+    // Marcas d'água do snapshot publicado (ver getMarcas)
+    private volatile MarcasDados marcas;
+
+    // Estado do carregador, acessado apenas pela thread do agendamento
+    private long ultimoClienteId;
+    private LocalDateTime ultimaDataCadastro;
+    private long ultimoPagamentoId;
+    private long instanteCargaCompleta;
+
+    // Vendas (id e data_cadastro) e pagamentos já aplicados que ainda caem na janela de releitura
+    private final Map<Long, LocalDateTime> vendasRelidas = new HashMap<>();
+    private final Set<Long> pagamentosRelidos = new HashSet<>();
+
+    public SnapshotVendasService(PlatformTransactionManager transactionManager) {
+        this.transacaoLeitura = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura.setReadOnly(true);
+    }
+
+    /**
+     * Retorna o snapshot atual se ele contém todas as vendas a partir de dataInicio, ou null
+     * quando a consulta deve ir ao banco (snapshot desabilitado, ainda não carregado ou fora da janela)
+     */
+    public SnapshotVendas obterSnapshot(LocalDate dataInicio) {
+        SnapshotVendas atual = snapshot;
+        if (atual == null || !atual.cobre(dataInicio)) {
+            return null;
+        }
+        return atual;
+    }
+
+    /**
+     * Versão das vendas e pagamentos em memória: instante da carga completa e marcas d'água aplicadas.
+     * Muda sempre que o snapshot muda (inclusive exclusões, absorvidas pela carga completa);
+     * null enquanto o snapshot está desabilitado ou ainda não foi carregado
+     */
+    public String getVersao() {
+        return versao;
+    }
+
+    /**
+     * Marcas d'água já aplicadas no snapshot publicado, lidas do mesmo banco (réplica ou primário) que as
+     * linhas; null enquanto o snapshot não foi carregado
+     */
+    MarcasDados getMarcas() {
+        return marcas;
+    }
+
+    /**
+     * Indica se o cliente tem pagamento registrado, segundo a última atualização do carregador
+     */
+    public boolean possuiPagamento(long clienteId) {
+        return pagamentos.contem(clienteId);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${dashboard.snapshot.intervalo-ms:15000}")
+    public void atualizar() {
+        if (!habilitado) {
+            return;
+        }
+
+        LocalDate inicioJanela = LocalDate.now().minusYears(janelaAnos).withDayOfYear(1);
+        SnapshotVendas atual = snapshot;
+
+        try {
+            if (atual == null
+                    || !atual.getInicioJanela().equals(inicioJanela)
+                    || atual.getTamanhoDelta() > maxLinhasDelta
+                    || System.currentTimeMillis() - instanteCargaCompleta > intervaloRecargaCompleta) {
+                cargaCompleta(inicioJanela);
+            } else {
+                cargaIncremental(atual);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Falha ao atualizar snapshot de vendas; mantendo snapshot anterior", e);
+        }
+    }
+
+    private void cargaCompleta(LocalDate inicioJanela) {
+        long inicio = System.currentTimeMillis();
+
+        long[] marcas = new long[2];
+        LocalDateTime[] marcaCadastro = new LocalDateTime[1];
+        BitmapPagamentos[] novosPagamentos = new BitmapPagamentos[1];
+
+        // O stream precisa de uma transação aberta para usar cursor no servidor
+        SnapshotVendas novo = transacaoLeitura.execute(status -> {
+            // Marcas lidas antes da carga: o que entrar durante ela volta no próximo delta,
+            // e reaplicar uma linha ou pagamento já carregado apenas o substitui
+            marcas[0] = financeiroClienteRepository.ultimoId();
+            marcaCadastro[0] = financeiroClienteRepository.ultimaDataCadastro();
+            marcas[1] = financeiroPagamentoRepository.ultimoId();
+            novosPagamentos[0] = carregarPagamentos();
+            return carregar(inicioJanela, novosPagamentos[0]);
+        });
+
+        ultimoClienteId = marcas[0];
+        ultimaDataCadastro = marcaCadastro[0] != null ? marcaCadastro[0] : SEM_DATA_CADASTRO;
+        ultimoPagamentoId = marcas[1];
+        // A primeira execução incremental reaplica a janela de releitura uma vez
+        vendasRelidas.clear();
+        pagamentosRelidos.clear();
+        pagamentos = novosPagamentos[0];
+        snapshot = novo;
+        instanteCargaCompleta = System.currentTimeMillis();
+        publicarVersao();
+        logger.info("Snapshot de vendas carregado: {} linhas desde {} e {} clientes pagos ({} KB) em {} ms",
+            novo.getTamanho(), inicioJanela, novosPagamentos[0].getCardinalidade(),
+            novosPagamentos[0].getTamanhoBytes() / 1024, System.currentTimeMillis() - inicio);
+    }
+
+    private BitmapPagamentos carregarPagamentos() {
+        BitmapPagamentos.Construtor construtor = new BitmapPagamentos.Construtor();
+        try (Stream<Number> clientes = financeiroPagamentoRepository.clientesComPagamento()) {
+            clientes.forEach(clienteId -> construtor.adicionar(clienteId.longValue()));
+        }
+        return construtor.construir();
+    }
+
+    private SnapshotVendas carregar(LocalDate inicioJanela, BitmapPagamentos pagos) {
+        SnapshotVendas.Construtor construtor = new SnapshotVendas.Construtor(inicioJanela);
+
+        try (Stream<Object[]> linhas = financeiroClienteRepository.carregarVendasDesde(inicioJanela)) {
+            linhas.forEach(linha -> {
+                long id = ((Number) linha[0]).longValue();
+                construtor.adicionar(
+                    id,
+                    paraLocalDate(linha[1]),
+                    (BigDecimal) linha[2],
+                    (String) linha[3],
+                    (String) linha[4],
+                    (String) linha[5],
+                    pagos.contem(id)
+                );
+            });
+        }
+        return construtor.construir();
+    }
+
+    private void cargaIncremental(SnapshotVendas atual) {
+        long inicio = System.currentTimeMillis();
+        List<Object[]> clientes = new ArrayList<>();
+        List<Object[]> pagamentosLidos = new ArrayList<>();
+
+        transacaoLeitura.executeWithoutResult(status -> {
+            clientes.addAll(financeiroClienteRepository.vendasNovasOuAlteradas(ultimoClienteId - releituraIds,
+                ultimaDataCadastro.minusSeconds(releituraSegundos)));
+            pagamentosLidos.addAll(financeiroPagamentoRepository.pagamentosNovos(ultimoPagamentoId - releituraIds));
+        });
+
+        // O que foi relido sem mudança já está no snapshot
+        clientes.removeIf(cliente -> {
+            long id = ((Number) cliente[0]).longValue();
+            return vendasRelidas.containsKey(id)
+                && Objects.equals(vendasRelidas.get(id), paraLocalDateTime(cliente[6]));
+        });
+        pagamentosLidos.removeIf(pagamento -> pagamentosRelidos.contains(((Number) pagamento[0]).longValue()));
+
+        if (clientes.isEmpty() && pagamentosLidos.isEmpty()) {
+            return;
+        }
+
+        long novoUltimoClienteId = ultimoClienteId;
+        LocalDateTime novaDataCadastro = ultimaDataCadastro;
+        for (Object[] cliente : clientes) {
+            novoUltimoClienteId = Math.max(novoUltimoClienteId, ((Number) cliente[0]).longValue());
+            LocalDateTime dataCadastro = paraLocalDateTime(cliente[6]);
+            if (dataCadastro != null && dataCadastro.isAfter(novaDataCadastro)) {
+                novaDataCadastro = dataCadastro;
+            }
+        }
+
+        long novoUltimoPagamentoId = ultimoPagamentoId;
+        List<Long> clientesPagos = new ArrayList<>();
+        for (Object[] pagamento : pagamentosLidos) {
+            novoUltimoPagamentoId = Math.max(novoUltimoPagamentoId, ((Number) pagamento[0]).longValue());
+            clientesPagos.add(((Number) pagamento[1]).longValue());
+        }
+
+        // As marcas só avançam depois que o delta foi aplicado
+        BitmapPagamentos novosPagamentos = pagamentos.comIds(clientesPagos);
+        snapshot = atual.aplicarDelta(clientes, clientesPagos, novosPagamentos);
+        this.pagamentos = novosPagamentos;
+        ultimoClienteId = novoUltimoClienteId;
+        ultimaDataCadastro = novaDataCadastro;
+        ultimoPagamentoId = novoUltimoPagamentoId;
+        lembrarRelidos(clientes, pagamentosLidos);
+        publicarVersao();
+        logger.debug("Delta aplicado ao snapshot: {} vendas, {} pagamentos em {} ms",
+            clientes.size(), clientesPagos.size(), System.currentTimeMillis() - inicio);
+    }
+
+    // Guarda o que foi aplicado e esquece o que as marcas novas já não releem
+    private void lembrarRelidos(List<Object[]> clientes, List<Object[]> pagamentos) {
+        for (Object[] cliente : clientes) {
+            vendasRelidas.put(((Number) cliente[0]).longValue(), paraLocalDateTime(cliente[6]));
+        }
+        for (Object[] pagamento : pagamentos) {
+            pagamentosRelidos.add(((Number) pagamento[0]).longValue());
+        }
+
+        long desdeClienteId = ultimoClienteId - releituraIds;
+        LocalDateTime desdeCadastro = ultimaDataCadastro.minusSeconds(releituraSegundos);
+        vendasRelidas.entrySet().removeIf(venda -> venda.getKey() <= desdeClienteId
+            && (venda.getValue() == null || !venda.getValue().isAfter(desdeCadastro)));
+        long desdePagamentoId = ultimoPagamentoId - releituraIds;
+        pagamentosRelidos.removeIf(id -> id <= desdePagamentoId);
+    }
+
+    private void publicarVersao() {
+        marcas = new MarcasDados(ultimoClienteId, ultimaDataCadastro, ultimoPagamentoId);
+        versao = Long.toString(instanteCargaCompleta, 36) + "." + Long.toString(ultimoClienteId, 36) + "."
+            + Long.toString(ultimaDataCadastro.toEpochSecond(ZoneOffset.UTC), 36) + "." + Long.toString(ultimoPagamentoId, 36);
+    }
+
+    static LocalDate paraLocalDate(Object valor) {
+        if (valor instanceof LocalDate) {
+            return (LocalDate) valor;
+        }
+        if (valor instanceof java.sql.Date) {
+            return ((java.sql.Date) valor).toLocalDate();
+        }
+        if (valor instanceof java.sql.Timestamp) {
+            return ((java.sql.Timestamp) valor).toLocalDateTime().toLocalDate();
+        }
+        return LocalDate.parse(valor.toString().substring(0, 10));
+    }
+
+    static LocalDateTime paraLocalDateTime(Object valor) {
+        if (valor == null) {
+            return null;
+        }
+        if (valor instanceof LocalDateTime) {
+            return (LocalDateTime) valor;
+        }
+        if (valor instanceof java.sql.Timestamp) {
+            return ((java.sql.Timestamp) valor).toLocalDateTime();
+        }
+        return LocalDateTime.parse(valor.toString().replace(' ', 'T'));
+    }
+}
@@ -0,0 +1,31 @@
+package com.exemplo.dashboardvendas.service;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Montagem do dashboard recusada pelo controle de carga: vira 503 com Retry-After,
+ * para o cliente tentar de novo depois em vez de esperar na fila
+ */
+public class SobrecargaDashboardException extends ResponseStatusException {
+
+    private final long retryAfterSegundos;
+
+    public SobrecargaDashboardException(String motivo, long retryAfterSegundos) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, motivo);
+        this.retryAfterSegundos = retryAfterSegundos;
+    }
+
+    public long getRetryAfterSegundos() {
+        return retryAfterSegundos;
+    }
+
+    // Cabeçalhos que o ResponseStatusExceptionResolver copia para a resposta
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSegundos));
+        return headers;
+    }
+}
@@ -1,10 +1,25 @@
 package com.exemplo.dashboardvendas.service;
 
+import com.exemplo.dashboardvendas.config.CacheConfig;
+import com.exemplo.dashboardvendas.config.ContadorConsultasSql;
 import com.exemplo.dashboardvendas.dto.DashboardResponse;
-import com.exemplo.dashboardvendas.model.FinanceiroCliente;
+import com.exemplo.dashboardvendas.dto.FiltroDashboard;
+import com.exemplo.dashboardvendas.dto.SerieGrafico;
 import com.exemplo.dashboardvendas.repository.FinanceiroClienteRepository;
+import com.exemplo.dashboardvendas.repository.VendaDiariaRepository;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,187 +29,366 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 @Service
 public class VendaService {
     private static final Logger logger = LoggerFactory.getLogger(VendaService.class);
     
+    // Valores aceitos na tag tipoPeriodo das métricas; o resto vira "outro" para não abrir séries novas
+    private static final Set<String> TIPOS_PERIODO = Set.of("dia", "semana", "mes", "mes-passado",
+                                                            "trimestre", "ano", "personalizado");
+    
     @Autowired
     private FinanceiroClienteRepository financeiroClienteRepository;
     
     @Autowired
     private MetaService metaService;
     
+    @Autowired
+    private SnapshotVendasService snapshotVendasService;
+    
+    @Autowired
+    private VendaDiariaRepository vendaDiariaRepository;
+    
+    @Autowired
+    private VendasDiariasService vendasDiariasService;
+    
+    @Autowired
+    private CatalogoDimensoesService catalogoDimensoesService;
+    
+    @Autowired
+    private VersaoDadosService versaoDadosService;
+    
+    @Autowired
+    private ControleCargaDashboard controleCargaDashboard;
+    
+    @Autowired
+    private ResultadosFechadosService resultadosFechadosService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private final TransactionTemplate transacaoLeitura;
+    
+    private final long prazoSecoesMs;
+    
+    // Máximo de pontos (dias, ou meses no gráfico por mês) da série do gráfico; períodos maiores são recusados
+    @Value("${dashboard.grafico.max-pontos:3700}")
+    private long maxPontosGrafico;
+    
+    public VendaService(PlatformTransactionManager transactionManager,
+                        @Value("${dashboard.secoes.prazo-ms:10000}") long prazoSecoesMs) {
+        this.prazoSecoesMs = prazoSecoesMs;
+        this.transacaoLeitura = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura.setReadOnly(true);
+        // O timeout da transação vira timeout das consultas, encerrando as seções que passarem do prazo
+        this.transacaoLeitura.setTimeout((int) Math.max(1, (prazoSecoesMs + 999) / 1000));
+    }
+    
+    /**
+     * Dados completos do dashboard. O resultado fica em cache pela forma canônica dos filtros,
+     * e chamadas simultâneas com a mesma chave aguardam um único cálculo (sync = true).
+     *
+     * As seções são independentes entre si e rodam em paralelo no executor da faixa de carga
+     * (ControleCargaDashboard), cada uma com sua transação somente leitura; a resposta é montada
+     * quando todas terminam ou o prazo dashboard.secoes.prazo-ms se esgota (504). Sem vaga na
+     * faixa, a montagem é recusada com 503. Períodos já encerrados vêm do ResultadosFechadosService
+     * sem passar pelas seções; só filiais, vendedores e metas são lidos de novo.
+     *
+     * Cada cálculo (falta no cache) registra o tempo em dashboard.montagem e a quantidade de comandos
+     * SQL em dashboard.sql.consultas, por tipoPeriodo, número de filiais e faixa; cada seção registra o
+     * seu tempo em dashboard.secao.
+     */
+    @Cacheable(cacheNames = CacheConfig.CACHE_DASHBOARD, keyGenerator = "dashboardKeyGenerator", sync = true)
     public DashboardResponse getDadosDashboard(java.util.List<String> filiais, String vendedor, 
                                              LocalDate dataInicio, LocalDate dataFim, boolean agruparPorMes, String tipoPeriodo) {
+        validarSerieGrafico(dataInicio, dataFim, agruparPorMes);
+        ControleCargaDashboard.Faixa faixa = controleCargaDashboard.classificar(filiais, dataInicio, dataFim);
+        Tags tags = Tags.of(
+            "tipoPeriodo", tipoPeriodo == null ? "nenhum" : TIPOS_PERIODO.contains(tipoPeriodo) ? tipoPeriodo : "outro",
+            "filiais", (filiais == null || filiais.isEmpty()) ? "todas" : String.valueOf(new TreeSet<>(filiais).size()),
+            "faixa", faixa.getNome());
+        AtomicInteger consultas = ContadorConsultasSql.iniciar();
+        Timer.Sample amostra = Timer.start(meterRegistry);
+        try {
+            // Lida antes de qualquer consulta, para que os dados nunca sejam mais antigos que a versão
+            String versao = versaoDadosService.versaoAtual();
+            FiltroDashboard filtro = FiltroDashboard.de(filiais, vendedor, dataInicio, dataFim, agruparPorMes, tipoPeriodo);
+            // O ranking sempre compara com o período anterior, então ele faz parte dos dados da resposta
+            LocalDate[] anterior = calcularPeriodoAnterior(dataInicio, dataFim, tipoPeriodo);
+            LocalDate inicioDados = anterior[0].isBefore(dataInicio) ? anterior[0] : dataInicio;
+            LocalDate fimDados = anterior[1].isAfter(dataFim) ? anterior[1] : dataFim;
+            DashboardResponse resposta = resultadosFechadosService.obter(
+                chave("dashboard", filtro, anterior[0], anterior[1]), inicioDados, fimDados, DashboardResponse.class,
+                () -> controleCargaDashboard.executar(faixa, () -> montarDashboard(
+                    filiais, vendedor, dataInicio, dataFim, agruparPorMes, tipoPeriodo, faixa.getExecutor())));
+            if (resposta.getFiliais() == null) {
+                completarPartesAtuais(resposta, filtro);
+            }
+            resposta.setVersaoDados(versao);
+            return resposta;
+        } finally {
+            ContadorConsultasSql.encerrar();
+            amostra.stop(Timer.builder("dashboard.montagem")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+            DistributionSummary.builder("dashboard.sql.consultas")
+                .description("Comandos SQL executados para montar um dashboard")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(consultas.get());
+        }
+    }
+    
+    // Dashboard lido dos resultados fechados: listas dos filtros e metas como estão agora
+    private void completarPartesAtuais(DashboardResponse resposta, FiltroDashboard filtro) {
+        List<String> filiaisFiltro = filtro.getFiliais();
+        resposta.setFiliais(obterFiliais());
+        resposta.setVendedores(obterVendedores());
+        resposta.setMetas(filiaisFiltro != null ?
+            metaService.obterMetasPorFiliaisEPeriodo(filiaisFiltro, filtro.getDataInicio(), filtro.getDataFim()) :
+            new HashMap<>());
+    }
+    
+    /**
+     * Dashboards de vários filtros da mesma janela (datas, tipoPeriodo e vendedor; só as filiais e o
+     * agrupamento do gráfico variam), montados de uma única passada pelo snapshot em vez das seções de
+     * cada filtro. Devolve as respostas na ordem dos filtros, ou null se o snapshot não cobre o período
+     * atual e o anterior: aí cada filtro segue por getDadosDashboard. O tempo de cada janela fica em
+     * dashboard.lote.
+     */
+    public List<DashboardResponse> montarDashboardsDaJanela(List<FiltroDashboard> filtros) {
+        FiltroDashboard janela = filtros.get(0);
+        LocalDate dataInicio = janela.getDataInicio();
+        LocalDate dataFim = janela.getDataFim();
+        String tipoPeriodo = janela.getTipoPeriodo();
+        for (FiltroDashboard filtro : filtros) {
+            validarSerieGrafico(dataInicio, dataFim, filtro.isAgruparPorMes());
+        }
+        // Lida antes da passada, como em getDadosDashboard
+        String versao = versaoDadosService.versaoAtual();
+        LocalDate[] anterior = calcularPeriodoAnterior(dataInicio, dataFim, tipoPeriodo);
+        SnapshotVendas snapshot = snapshotVendasService.obterSnapshot(
+            anterior[0].isBefore(dataInicio) ? anterior[0] : dataInicio);
+        if (snapshot == null) {
+            return null;
+        }
         
-        // Calcular total de vendas - somar todas as filiais
-        BigDecimal totalVendas = BigDecimal.ZERO;
-        Long numeroVendas = 0L;
-        BigDecimal somaTickets = BigDecimal.ZERO;
-        
-        if (filiais != null && !filiais.isEmpty()) {
-            for (String f : filiais) {
-                BigDecimal vendaFilial = financeiroClienteRepository.somaVendasPorFiltros(f, vendedor, dataInicio, dataFim);
-                Long numeroFilial = financeiroClienteRepository.contarVendasPorFiltros(f, vendedor, dataInicio, dataFim);
-                
-                if (vendaFilial != null) totalVendas = totalVendas.add(vendaFilial);
-                if (numeroFilial != null) numeroVendas += numeroFilial;
+        Timer.Sample amostra = Timer.start(meterRegistry);
+        QuadroVendas quadro = snapshot.quadro(janela.getVendedor(), dataInicio, dataFim, anterior[0], anterior[1]);
+        boolean comparar = tipoPeriodo != null && !tipoPeriodo.equals("personalizado");
+        List<Object[]> unidadeMax = quadro.unidadeQueMaisVendeu();
+        List<String> listaFiliais = obterFiliais();
+        List<String> listaVendedores = obterVendedores();
+        
+        List<DashboardResponse> respostas = new ArrayList<>();
+        for (FiltroDashboard filtro : filtros) {
+            List<String> filiaisFiltro = filtro.getFiliais();
+            ResumoVendas resumo = new ResumoVendas();
+            for (Object[] linha : quadro.resumoVendasPorFilial(filiaisFiltro)) {
+                resumo.acumular(linha);
             }
+            BigDecimal ticketMedio = resumo.numero > 0 ?
+                resumo.total.divide(new BigDecimal(resumo.numero), 2, java.math.RoundingMode.HALF_UP) :
+                BigDecimal.ZERO;
             
-            // Calcular ticket médio geral
-            if (numeroVendas > 0) {
-                somaTickets = totalVendas.divide(new BigDecimal(numeroVendas), 2, java.math.RoundingMode.HALF_UP);
+            String filialParaVendedor = (filiaisFiltro != null && !filiaisFiltro.isEmpty()) ? filiaisFiltro.get(0) : null;
+            DashboardResponse.MaxResponse maxResponse = montarDadosMax(resumo,
+                quadro.vendedorQueMaisVendeu(filialParaVendedor), unidadeMax);
+            
+            SerieGrafico.Construtor serie = new SerieGrafico.Construtor(dataInicio, fimDaSerie(dataFim),
+                filtro.isAgruparPorMes());
+            processarDadosGrafico(quadro.dadosGrafico(filiaisFiltro), serie);
+            
+            DashboardResponse response = new DashboardResponse(resumo.total, resumo.numero, ticketMedio, maxResponse,
+                serie.construir(), montarTop10(quadro.topVendedoresComAnterior(filiaisFiltro)),
+                listaFiliais, listaVendedores);
+            if (comparar) {
+                ResumoVendas resumoAnterior = new ResumoVendas();
+                for (Object[] linha : quadro.resumoAnteriorPorFilial(filiaisFiltro)) {
+                    resumoAnterior.acumular(linha);
+                }
+                response.setComparison(calcularComparacaoMultiplasFiliais(resumoAnterior, resumo.total,
+                    resumo.numero, ticketMedio));
             }
-        } else {
-            // Se não há filiais selecionadas, buscar todas
-            totalVendas = financeiroClienteRepository.somaVendasPorFiltros(null, vendedor, dataInicio, dataFim);
-            numeroVendas = financeiroClienteRepository.contarVendasPorFiltros(null, vendedor, dataInicio, dataFim);
-            somaTickets = financeiroClienteRepository.ticketMedioPorFiltros(null, vendedor, dataInicio, dataFim);
+            response.setMetas(filiaisFiltro != null ?
+                metaService.obterMetasPorFiliaisEPeriodo(filiaisFiltro, dataInicio, dataFim) :
+                new HashMap<>());
+            response.setVersaoDados(versao);
+            respostas.add(response);
         }
         
-        BigDecimal ticketMedio = somaTickets;
-        
-        // Obter dados MAX - buscar entre todas as filiais selecionadas
-        DashboardResponse.MaxResponse maxResponse = obterDadosMaxMultiplasFiliais(filiais, vendedor, dataInicio, dataFim);
+        amostra.stop(Timer.builder("dashboard.lote")
+            .publishPercentileHistogram()
+            .register(meterRegistry));
+        return respostas;
+    }
+    
+    private static String chave(String tipo, Object... partes) {
+        StringBuilder chave = new StringBuilder(tipo);
+        for (Object parte : partes) {
+            chave.append('|').append(parte);
+        }
+        return chave.toString();
+    }
+    
+    private DashboardResponse montarDashboard(List<String> filiais, String vendedor, LocalDate dataInicio,
+                                              LocalDate dataFim, boolean agruparPorMes, String tipoPeriodo,
+                                              Executor executor) {
+        
+        // Trabalhar sempre com a forma canônica, para que filtros com a mesma chave de cache
+        // produzam exatamente o mesmo resultado
+        FiltroDashboard filtro = FiltroDashboard.de(filiais, vendedor, dataInicio, dataFim, agruparPorMes, tipoPeriodo);
+        List<String> filiaisFiltro = filtro.getFiliais();
+        String vendedorFiltro = filtro.getVendedor();
+        long inicio = System.nanoTime();
+        
+        // Comparação com o período anterior apenas se não for período personalizado;
+        // as variações dependem do período atual e são calculadas na montagem
+        boolean comparar = tipoPeriodo != null && !tipoPeriodo.equals("personalizado");
+        LocalDate[] periodoAnterior = comparar ? calcularPeriodoAnterior(dataInicio, dataFim, tipoPeriodo) : null;
+        boolean resumoComAnterior = comparar && resumirComAnteriorNoBanco(dataInicio, dataFim, periodoAnterior);
+        
+        // Resumo por filial em uma única consulta (soma, contagem e maior venda),
+        // consolidado em memória para todas as filiais selecionadas; quando os dois períodos
+        // iriam ao banco, a mesma consulta traz também o total e a contagem do período anterior
+        CompletableFuture<ResumoVendas[]> resumoFuture = secao(executor, "resumo", () -> resumoComAnterior ?
+            obterResumoVendasComAnterior(filiaisFiltro, vendedorFiltro, dataInicio, dataFim, periodoAnterior) :
+            new ResumoVendas[]{obterResumoVendas(filiaisFiltro, vendedorFiltro, dataInicio, dataFim, true), null});
+        
+        // Vendedor e unidade que mais venderam (a maior venda já vem do resumo)
+        CompletableFuture<List<Object[]>> vendedorMaxFuture = secao(executor, "vendedorMax",
+            () -> obterVendedorQueMaisVendeu(filiaisFiltro, dataInicio, dataFim));
+        CompletableFuture<List<Object[]>> unidadeMaxFuture = secao(executor, "unidadeMax",
+            () -> obterUnidadeQueMaisVendeu(vendedorFiltro, dataInicio, dataFim));
         
         // Obter dados para gráfico (agregando todas as filiais)
-        List<Map<String, Object>> dadosGrafico = agruparPorMes ? 
-            obterDadosGraficoPorMesMultiplasFiliais(filiais, vendedor, dataInicio, dataFim) :
-            obterDadosGraficoMultiplasFiliais(filiais, vendedor, dataInicio, dataFim);
+        CompletableFuture<SerieGrafico> graficoFuture = secao(executor, "grafico",
+            () -> obterDadosGrafico(filiaisFiltro, vendedorFiltro, dataInicio, dataFim, agruparPorMes));
         
         // Obter top 10 vendedores (agregando todas as filiais)
-        List<Map<String, Object>> top10Vendedores = obterTop10VendedoresMultiplasFiliais(filiais, dataInicio, dataFim, tipoPeriodo);
-        
-        // Obter listas para filtros
-        List<String> todasFiliais = financeiroClienteRepository.findDistinctFiliais();
-        List<String> vendedores = financeiroClienteRepository.findDistinctVendedores();
+        CompletableFuture<List<Map<String, Object>>> top10Future = secao(executor, "top10Vendedores",
+            () -> obterTop10VendedoresMultiplasFiliais(filiaisFiltro, dataInicio, dataFim, tipoPeriodo));
+        
+        // Listas para filtros: do catálogo em memória, ou do banco enquanto ele não foi carregado
+        CatalogoDimensoes catalogo = catalogoDimensoesService.obterCatalogo();
+        CompletableFuture<List<String>> filiaisFuture = catalogo != null ?
+            CompletableFuture.completedFuture(catalogo.getFiliais()) :
+            secao(executor, "filiais", () -> financeiroClienteRepository.findDistinctFiliais());
+        CompletableFuture<List<String>> vendedoresFuture = catalogo != null ?
+            CompletableFuture.completedFuture(catalogo.getVendedores()) :
+            secao(executor, "vendedores", () -> financeiroClienteRepository.findDistinctVendedores());
         
         // Buscar metas do banco de dados para as filiais selecionadas
-        Map<String, BigDecimal> metas = new HashMap<>();
-        if (filiais != null && !filiais.isEmpty()) {
-            metas = metaService.obterMetasPorFiliaisEPeriodo(filiais, dataInicio, dataFim);
-            logger.debug("Metas obtidas do banco de dados: {}", metas);
+        CompletableFuture<Map<String, BigDecimal>> metasFuture = (filiaisFiltro != null && !filiaisFiltro.isEmpty()) ?
+            secao(executor, "metas", () -> metaService.obterMetasPorFiliaisEPeriodo(filiaisFiltro, dataInicio, dataFim)) :
+            CompletableFuture.completedFuture(new HashMap<>());
+        
+        // Resumo do período anterior em seção própria quando não veio junto com o atual
+        CompletableFuture<ResumoVendas> resumoAnteriorFuture = comparar && !resumoComAnterior ?
+            secao(executor, "resumoAnterior",
+                () -> obterResumoAnterior(filiaisFiltro, vendedorFiltro, periodoAnterior[0], periodoAnterior[1])) :
+            CompletableFuture.completedFuture(null);
+        
+        aguardarSecoes(resumoFuture, vendedorMaxFuture, unidadeMaxFuture, graficoFuture, top10Future,
+            filiaisFuture, vendedoresFuture, metasFuture, resumoAnteriorFuture);
+        
+        ResumoVendas resumo = resumoFuture.join()[0];
+        BigDecimal totalVendas = resumo.total;
+        Long numeroVendas = resumo.numero;
+        BigDecimal ticketMedio = BigDecimal.ZERO;
+        
+        // Calcular ticket médio geral
+        if (numeroVendas > 0) {
+            ticketMedio = totalVendas.divide(new BigDecimal(numeroVendas), 2, java.math.RoundingMode.HALF_UP);
         }
+        
+        DashboardResponse.MaxResponse maxResponse = montarDadosMax(resumo, vendedorMaxFuture.join(), unidadeMaxFuture.join());
+        SerieGrafico dadosGrafico = graficoFuture.join();
+        List<Map<String, Object>> top10Vendedores = top10Future.join();
+        Map<String, BigDecimal> metas = metasFuture.join();
+        logger.debug("Metas obtidas do banco de dados: {}", metas);
 
         // Debug logs
         logger.debug("getDadosDashboard params filiais={}, vendedor={}, dataInicio={}, dataFim={}, agruparPorMes={}, tipoPeriodo={}",
-            filiais, vendedor, dataInicio, dataFim, agruparPorMes, tipoPeriodo);
+            filiaisFiltro, vendedorFiltro, dataInicio, dataFim, agruparPorMes, tipoPeriodo);
         logger.debug("Totals -> totalVendas={}, numeroVendas={}, ticketMedio={}, dadosGrafico.size={}, top10.size={}",
-            totalVendas, numeroVendas, ticketMedio, dadosGrafico != null ? dadosGrafico.size() : 0,
+            totalVendas, numeroVendas, ticketMedio, dadosGrafico.getValores().length,
             top10Vendedores != null ? top10Vendedores.size() : 0);
         
-        // Calcular comparação com período anterior (apenas se não for período personalizado)
+        // Calcular comparação com período anterior
         DashboardResponse.ComparisonData comparison = null;
-        if (tipoPeriodo != null && !tipoPeriodo.equals("personalizado")) {
-            comparison = calcularComparacaoMultiplasFiliais(filiais, vendedor, dataInicio, dataFim, 
-                                          totalVendas, numeroVendas, ticketMedio, tipoPeriodo);
+        if (comparar) {
+            ResumoVendas resumoAnterior = resumoComAnterior ? resumoFuture.join()[1] : resumoAnteriorFuture.join();
+            comparison = calcularComparacaoMultiplasFiliais(resumoAnterior, totalVendas, numeroVendas, ticketMedio);
         }
         
         DashboardResponse response = new DashboardResponse(totalVendas, numeroVendas, ticketMedio, maxResponse, 
-                                                          dadosGrafico, top10Vendedores, todasFiliais, vendedores);
+                                                          dadosGrafico, top10Vendedores, filiaisFuture.join(), vendedoresFuture.join());
         response.setComparison(comparison);
         response.setMetas(metas);
         
+        logger.debug("getDadosDashboard montado em {} ms", (System.nanoTime() - inicio) / 1_000_000);
         return response;
     }
     
-    private DashboardResponse.ComparisonData calcularComparacao(String filial, String vendedor,
-                                                                LocalDate dataInicio, LocalDate dataFim,
-                                                                BigDecimal totalAtual, Long numeroAtual, BigDecimal ticketAtual,
-                                                                String tipoPeriodo) {
-        LocalDate dataInicioAnterior;
-        LocalDate dataFimAnterior;
-        
-        // Calcular período anterior baseado no tipo de período
-        switch (tipoPeriodo) {
-            case "mes":
-                // Para "este mês", comparar com o mesmo período do mês anterior
-                // Se dataFim for o último dia do mês, ajustar para o dia atual do mês anterior
-                LocalDate hoje = LocalDate.now();
-                dataInicioAnterior = dataInicio.minusMonths(1);
-                
-                // Se estamos comparando o mês atual e dataFim é o último dia do mês,
-                // ajustar para o dia de hoje do mês anterior
-                if (dataFim.getMonth() == hoje.getMonth() && 
-                    dataFim.getYear() == hoje.getYear() &&
-                    dataFim.getDayOfMonth() == dataFim.lengthOfMonth()) {
-                    // Estamos no mês atual, então comparar até o dia correspondente do mês anterior
-                    dataFimAnterior = dataInicio.minusMonths(1).withDayOfMonth(hoje.getDayOfMonth());
-                } else {
-                    // Mês completo ou outro caso
-                    dataFimAnterior = dataFim.minusMonths(1);
-                }
-                break;
-                
-            case "ano":
-                // Para "este ano", comparar com o mesmo período do ano anterior
-                LocalDate hojeAno = LocalDate.now();
-                dataInicioAnterior = dataInicio.minusYears(1);
-                
-                // Se estamos comparando o ano atual e dataFim é o último dia do ano,
-                // ajustar para o dia de hoje do ano anterior
-                if (dataFim.getYear() == hojeAno.getYear() &&
-                    dataFim.getDayOfYear() == dataFim.lengthOfYear()) {
-                    // Estamos no ano atual, então comparar até o dia correspondente do ano anterior
-                    dataFimAnterior = hojeAno.minusYears(1);
-                } else {
-                    // Ano completo ou outro caso
-                    dataFimAnterior = dataFim.minusYears(1);
-                }
-                break;
-                
-            case "trimestre":
-                // Para "trimestre", comparar com o trimestre anterior
-                dataInicioAnterior = dataInicio.minusMonths(3);
-                dataFimAnterior = dataFim.minusMonths(3);
-                break;
-                
-            case "semana":
-                // Para "esta semana", comparar com o mesmo período da semana anterior
-                LocalDate hojeSemana = LocalDate.now();
-                dataInicioAnterior = dataInicio.minusWeeks(1);
-                
-                // Se dataFim é domingo (fim da semana) e estamos na semana atual,
-                // ajustar para o dia de hoje da semana anterior
-                if (dataFim.getDayOfWeek() == java.time.DayOfWeek.SUNDAY &&
-                    !hojeSemana.isAfter(dataFim) && !hojeSemana.isBefore(dataInicio)) {
-                    // Estamos na semana atual, então comparar até o dia correspondente da semana anterior
-                    dataFimAnterior = hojeSemana.minusWeeks(1);
-                } else {
-                    // Semana completa ou outro caso
-                    dataFimAnterior = dataFim.minusWeeks(1);
-                }
-                break;
-                
-            default:
-                // Para "dia", "ontem", etc: subtrair o número de dias do período
-                long diasPeriodo = java.time.temporal.ChronoUnit.DAYS.between(dataInicio, dataFim) + 1;
-                dataInicioAnterior = dataInicio.minusDays(diasPeriodo);
-                dataFimAnterior = dataFim.minusDays(diasPeriodo);
-                break;
+    /**
+     * Agenda uma seção do dashboard no executor da faixa, dentro de uma transação somente leitura própria
+     * (e portanto com sua própria conexão), registrando o tempo gasto no timer dashboard.secao
+     */
+    private <T> CompletableFuture<T> secao(Executor executor, String nome, Supplier<T> calculo) {
+        return CompletableFuture.supplyAsync(() -> {
+            Timer.Sample amostra = Timer.start(meterRegistry);
+            String resultado = "erro";
+            try {
+                T valor = transacaoLeitura.execute(status -> calculo.get());
+                resultado = "ok";
+                return valor;
+            } finally {
+                long nanos = amostra.stop(Timer.builder("dashboard.secao")
+                    .tag("secao", nome)
+                    .tag("resultado", resultado)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+                logger.debug("Seção {} calculada em {} ms", nome, nanos / 1_000_000);
+            }
+        }, executor);
+    }
+    
+    private void aguardarSecoes(CompletableFuture<?>... secoes) {
+        try {
+            CompletableFuture.allOf(secoes).get(prazoSecoesMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // As consultas em andamento são interrompidas pelo timeout da própria transação
+            for (CompletableFuture<?> secao : secoes) {
+                secao.cancel(true);
+            }
+            throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT,
+                "Dashboard não calculado dentro de " + prazoSecoesMs + " ms");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Erro ao calcular seção do dashboard", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cálculo do dashboard interrompido", e);
         }
-        
-        // Buscar dados do período anterior
-        BigDecimal totalAnterior = financeiroClienteRepository.somaVendasPorFiltros(filial, vendedor, dataInicioAnterior, dataFimAnterior);
-        Long numeroAnterior = financeiroClienteRepository.contarVendasPorFiltros(filial, vendedor, dataInicioAnterior, dataFimAnterior);
-        BigDecimal ticketAnterior = financeiroClienteRepository.ticketMedioPorFiltros(filial, vendedor, dataInicioAnterior, dataFimAnterior);
-        
-        // Calcular variações percentuais
-        Double variacaoTotal = calcularVariacaoPercentual(totalAnterior, totalAtual);
-        Double variacaoNumero = calcularVariacaoPercentual(
-            numeroAnterior != null ? BigDecimal.valueOf(numeroAnterior) : BigDecimal.ZERO,
-            numeroAtual != null ? BigDecimal.valueOf(numeroAtual) : BigDecimal.ZERO
-        );
-        Double variacaoTicket = calcularVariacaoPercentual(ticketAnterior, ticketAtual);
-        
-        logger.debug("Comparação: período atual {}->{} vs anterior {}->{}. Variações: total={}%, numero={}%, ticket={}%",
-            dataInicio, dataFim, dataInicioAnterior, dataFimAnterior, variacaoTotal, variacaoNumero, variacaoTicket);
-        
-        return new DashboardResponse.ComparisonData(variacaoTotal, variacaoNumero, variacaoTicket);
     }
     
-    private Double calcularVariacaoPercentual(BigDecimal anterior, BigDecimal atual) {
+    // Métodos estáticos e visíveis no pacote abaixo: também são medidos pelo VendaServiceBenchmark (src/jmh)
+    static Double calcularVariacaoPercentual(BigDecimal anterior, BigDecimal atual) {
         if (anterior == null || atual == null) {
             return null;
         }
@@ -214,42 +408,97 @@ public class VendaService {
     }
     
     
-    private DashboardResponse.MaxResponse obterDadosMaxMultiplasFiliais(List<String> filiais, String vendedor, 
-                                                       LocalDate dataInicio, LocalDate dataFim) {
-        
-        BigDecimal maiorVenda = BigDecimal.ZERO;
-        String clienteMaiorVenda = "";
-        String vendedorMaiorVenda = "";
-        
-        // Se não há filiais específicas, buscar em todas
-        if (filiais == null || filiais.isEmpty()) {
-            List<FinanceiroCliente> maioresVendas = financeiroClienteRepository.maiorVendaPorFiltros(null, vendedor, dataInicio, dataFim);
-            if (!maioresVendas.isEmpty()) {
-                FinanceiroCliente vendaMaior = maioresVendas.get(0);
-                if (vendaMaior.getValorDebito() != null) {
-                    maiorVenda = vendaMaior.getValorDebito();
-                    clienteMaiorVenda = vendaMaior.getNome();
-                    vendedorMaiorVenda = vendaMaior.getVendedor() != null ? vendaMaior.getVendedor() : "";
-                }
-            }
+    // Sem precisaMaiorVenda (comparação com o período anterior), períodos longos fora do snapshot
+    // são somados no consolidado diário, que não guarda o cliente da maior venda
+    private ResumoVendas obterResumoVendas(List<String> filiais, String vendedor,
+                                           LocalDate dataInicio, LocalDate dataFim, boolean precisaMaiorVenda) {
+        List<Object[]> linhas;
+        SnapshotVendas snapshot = snapshotVendasService.obterSnapshot(dataInicio);
+        boolean todasFiliais = filiais == null || filiais.isEmpty();
+        
+        if (snapshot != null) {
+            linhas = snapshot.resumoVendasPorFilial(filiais, vendedor, dataInicio, dataFim);
+        } else if (!precisaMaiorVenda && vendasDiariasService.atende(dataInicio, dataFim)) {
+            linhas = todasFiliais ?
+                vendaDiariaRepository.resumoVendasTodasFiliais(vendedor, dataInicio, dataFim) :
+                vendaDiariaRepository.resumoVendasPorFilial(filiais, vendedor, dataInicio, dataFim);
+        } else if (!todasFiliais) {
+            linhas = financeiroClienteRepository.resumoVendasPorFilial(filiais, vendedor, dataInicio, dataFim);
         } else {
-            // Buscar a maior venda entre todas as filiais selecionadas
-            for (String filial : filiais) {
-                List<FinanceiroCliente> maioresVendas = financeiroClienteRepository.maiorVendaPorFiltros(filial, vendedor, dataInicio, dataFim);
-                if (!maioresVendas.isEmpty()) {
-                    FinanceiroCliente vendaMaior = maioresVendas.get(0);
-                    if (vendaMaior.getValorDebito() != null && vendaMaior.getValorDebito().compareTo(maiorVenda) > 0) {
-                        maiorVenda = vendaMaior.getValorDebito();
-                        clienteMaiorVenda = vendaMaior.getNome();
-                        vendedorMaiorVenda = vendaMaior.getVendedor() != null ? vendaMaior.getVendedor() : "";
-                    }
-                }
-            }
+            // Se não há filiais selecionadas, buscar todas
+            linhas = financeiroClienteRepository.resumoVendasTodasFiliais(vendedor, dataInicio, dataFim);
         }
         
-        // Vendedor que mais vendeu (considerando todas as filiais)
+        ResumoVendas resumo = new ResumoVendas();
+        for (Object[] linha : linhas) {
+            resumo.acumular(linha);
+        }
+        return resumo;
+    }
+    
+    // Resumo do período anterior, para a comparação; se já encerrado, vem dos resultados fechados
+    private ResumoVendas obterResumoAnterior(List<String> filiais, String vendedor,
+                                             LocalDate dataInicio, LocalDate dataFim) {
+        return resultadosFechadosService.obter(chave("resumo", filiais, vendedor, dataInicio, dataFim),
+            dataInicio, dataFim, ResumoVendas.class,
+            () -> obterResumoVendas(filiais, vendedor, dataInicio, dataFim, false));
+    }
+    
+    /**
+     * Indica se os resumos atual e anterior devem sair juntos de resumoVendasComAnterior*: só quando
+     * os dois iriam a financeiro_clientes. Com o período atual no snapshot (lido em memória) ou o
+     * anterior no consolidado diário ou nos resultados fechados, cada um continua na fonte mais barata,
+     * em seções paralelas
+     */
+    private boolean resumirComAnteriorNoBanco(LocalDate dataInicio, LocalDate dataFim, LocalDate[] periodoAnterior) {
+        return snapshotVendasService.obterSnapshot(dataInicio) == null
+            && !vendasDiariasService.atende(periodoAnterior[0], periodoAnterior[1])
+            && !resultadosFechadosService.atende(periodoAnterior[0], periodoAnterior[1]);
+    }
+    
+    // Resumos do período atual e do anterior, nesta ordem, em uma passada pela união dos dois períodos
+    private ResumoVendas[] obterResumoVendasComAnterior(List<String> filiais, String vendedor,
+                                                        LocalDate dataInicio, LocalDate dataFim,
+                                                        LocalDate[] periodoAnterior) {
+        List<Object[]> linhas = (filiais == null || filiais.isEmpty()) ?
+            financeiroClienteRepository.resumoVendasComAnteriorTodasFiliais(vendedor, dataInicio, dataFim,
+                periodoAnterior[0], periodoAnterior[1]) :
+            financeiroClienteRepository.resumoVendasComAnteriorPorFilial(filiais, vendedor, dataInicio, dataFim,
+                periodoAnterior[0], periodoAnterior[1]);
+        
+        ResumoVendas atual = new ResumoVendas();
+        ResumoVendas anterior = new ResumoVendas();
+        for (Object[] linha : linhas) {
+            atual.acumular(linha);
+            anterior.acumularTotais((BigDecimal) linha[6], (Number) linha[7]);
+        }
+        return new ResumoVendas[]{atual, anterior};
+    }
+    
+    // Vendedor que mais vendeu (considerando a primeira filial selecionada)
+    private List<Object[]> obterVendedorQueMaisVendeu(List<String> filiais, LocalDate dataInicio, LocalDate dataFim) {
         String filialParaVendedor = (filiais != null && !filiais.isEmpty()) ? filiais.get(0) : null;
-        List<Object[]> vendedorMax = financeiroClienteRepository.vendedorQueMaisVendeu(filialParaVendedor, dataInicio, dataFim);
+        SnapshotVendas snapshot = snapshotVendasService.obterSnapshot(dataInicio);
+        return snapshot != null ?
+            snapshot.vendedorQueMaisVendeu(filialParaVendedor, dataInicio, dataFim) :
+            financeiroClienteRepository.vendedorQueMaisVendeu(filialParaVendedor, dataInicio, dataFim);
+    }
+    
+    // Unidade que mais vendeu
+    private List<Object[]> obterUnidadeQueMaisVendeu(String vendedor, LocalDate dataInicio, LocalDate dataFim) {
+        SnapshotVendas snapshot = snapshotVendasService.obterSnapshot(dataInicio);
+        return snapshot != null ?
+            snapshot.unidadeQueMaisVendeu(vendedor, dataInicio, dataFim) :
+            financeiroClienteRepository.unidadeQueMaisVendeu(vendedor, dataInicio, dataFim);
+    }
+    
+    private DashboardResponse.MaxResponse montarDadosMax(ResumoVendas resumo, List<Object[]> vendedorMax,
+                                                         List<Object[]> unidadeMax) {
+        
+        BigDecimal maiorVenda = resumo.maiorVenda;
+        String clienteMaiorVenda = resumo.clienteMaiorVenda;
+        String vendedorMaiorVenda = resumo.vendedorMaiorVenda;
+        
         String vendedorQueMaisVendeu = "";
         BigDecimal totalVendedorMax = BigDecimal.ZERO;
         
@@ -259,8 +508,6 @@ public class VendaService {
             totalVendedorMax = (BigDecimal) resultado[1];
         }
         
-        // Unidade que mais vendeu
-        List<Object[]> unidadeMax = financeiroClienteRepository.unidadeQueMaisVendeu(vendedor, dataInicio, dataFim);
         String unidadeQueMaisVendeu = "";
         BigDecimal totalUnidadeMax = BigDecimal.ZERO;
         
@@ -276,40 +523,17 @@ public class VendaService {
     }
     
     // Método para calcular comparação para múltiplas filiais (agregado)
+    // (resumoAnterior: mesmo resumo por filial do período atual, calculado no período anterior)
     private DashboardResponse.ComparisonData calcularComparacaoMultiplasFiliais(
-            List<String> filiais, String vendedor, LocalDate dataInicio, LocalDate dataFim,
-            BigDecimal totalAtual, Long numeroAtual, BigDecimal ticketAtual, String tipoPeriodo) {
-        
-        LocalDate dataInicioAnterior;
-        LocalDate dataFimAnterior;
+            ResumoVendas resumoAnterior, BigDecimal totalAtual, Long numeroAtual, BigDecimal ticketAtual) {
         
-        // Lógica de cálculo de período anterior
-        LocalDate[] periodoAnterior = calcularPeriodoAnterior(dataInicio, dataFim, tipoPeriodo);
-        dataInicioAnterior = periodoAnterior[0];
-        dataFimAnterior = periodoAnterior[1];
-        
-        BigDecimal totalAnterior = BigDecimal.ZERO;
-        Long numeroAnterior = 0L;
+        BigDecimal totalAnterior = resumoAnterior.total;
+        Long numeroAnterior = resumoAnterior.numero;
         BigDecimal ticketAnterior = BigDecimal.ZERO;
         
-        // Calcular dados anteriores agregados
-        if (filiais != null && !filiais.isEmpty()) {
-            for (String f : filiais) {
-                BigDecimal totalFilial = financeiroClienteRepository.somaVendasPorFiltros(f, vendedor, dataInicioAnterior, dataFimAnterior);
-                Long numeroFilial = financeiroClienteRepository.contarVendasPorFiltros(f, vendedor, dataInicioAnterior, dataFimAnterior);
-                
-                if (totalFilial != null) totalAnterior = totalAnterior.add(totalFilial);
-                if (numeroFilial != null) numeroAnterior += numeroFilial;
-            }
-            
-            // Ticket médio anterior
-            if (numeroAnterior > 0) {
-                ticketAnterior = totalAnterior.divide(new BigDecimal(numeroAnterior), 2, java.math.RoundingMode.HALF_UP);
-            }
-        } else {
-            totalAnterior = financeiroClienteRepository.somaVendasPorFiltros(null, vendedor, dataInicioAnterior, dataFimAnterior);
-            numeroAnterior = financeiroClienteRepository.contarVendasPorFiltros(null, vendedor, dataInicioAnterior, dataFimAnterior);
-            ticketAnterior = financeiroClienteRepository.ticketMedioPorFiltros(null, vendedor, dataInicioAnterior, dataFimAnterior);
+        // Ticket médio anterior
+        if (numeroAnterior > 0) {
+            ticketAnterior = totalAnterior.divide(new BigDecimal(numeroAnterior), 2, java.math.RoundingMode.HALF_UP);
         }
         
         Double variacaoTotal = calcularVariacaoPercentual(totalAnterior, totalAtual);
@@ -322,7 +546,7 @@ public class VendaService {
         return new DashboardResponse.ComparisonData(variacaoTotal, variacaoNumero, variacaoTicket);
     }
     
-    private LocalDate[] calcularPeriodoAnterior(LocalDate dataInicio, LocalDate dataFim, String tipoPeriodo) {
+    static LocalDate[] calcularPeriodoAnterior(LocalDate dataInicio, LocalDate dataFim, String tipoPeriodo) {
         LocalDate dataInicioAnterior;
         LocalDate dataFimAnterior;
         
@@ -390,38 +614,46 @@ public class VendaService {
     private List<Map<String, Object>> obterTop10VendedoresMultiplasFiliais(
             List<String> filiais, LocalDate dataInicio, LocalDate dataFim, String tipoPeriodo) {
         
-        List<Object[]> dadosRaw;
+        LocalDate[] periodoAnterior = calcularPeriodoAnterior(dataInicio, dataFim, tipoPeriodo);
         
-        if (filiais != null && !filiais.isEmpty()) {
-            dadosRaw = financeiroClienteRepository.topVendedoresMultiplasFiliais(filiais, dataInicio, dataFim);
+        // Ranking e total do período anterior na mesma consulta (vendedor, total, total_anterior)
+        List<Object[]> dadosRaw;
+        SnapshotVendas snapshot = snapshotVendasService.obterSnapshot(
+            periodoAnterior[0].isBefore(dataInicio) ? periodoAnterior[0] : dataInicio);
+        
+        if (snapshot != null) {
+            dadosRaw = snapshot.topVendedoresComAnterior(filiais, dataInicio, dataFim,
+                                                         periodoAnterior[0], periodoAnterior[1]);
+        } else if (vendasDiariasService.atende(dataInicio, dataFim)) {
+            dadosRaw = (filiais != null && !filiais.isEmpty()) ?
+                vendaDiariaRepository.topVendedoresComAnteriorMultiplasFiliais(filiais, dataInicio, dataFim,
+                                                                              periodoAnterior[0], periodoAnterior[1]) :
+                vendaDiariaRepository.topVendedoresComAnteriorTodasFiliais(dataInicio, dataFim,
+                                                                          periodoAnterior[0], periodoAnterior[1]);
+        } else if (filiais != null && !filiais.isEmpty()) {
+            dadosRaw = financeiroClienteRepository.topVendedoresComAnteriorMultiplasFiliais(filiais, dataInicio, dataFim,
+                                                                                           periodoAnterior[0], periodoAnterior[1]);
         } else {
-            dadosRaw = financeiroClienteRepository.top10Vendedores(null, dataInicio, dataFim);
+            dadosRaw = financeiroClienteRepository.topVendedoresComAnterior(null, dataInicio, dataFim,
+                                                                            periodoAnterior[0], periodoAnterior[1]);
         }
         
+        return montarTop10(dadosRaw);
+    }
+    
+    // Linhas (vendedor, total, total_anterior) no formato do ranking, com a variação sobre o anterior
+    private static List<Map<String, Object>> montarTop10(List<Object[]> dadosRaw) {
         List<Map<String, Object>> top10 = new ArrayList<>();
-        LocalDate[] periodoAnterior = calcularPeriodoAnterior(dataInicio, dataFim, tipoPeriodo);
         
         for (Object[] dado : dadosRaw) {
             Map<String, Object> vendedor = new HashMap<>();
             String nomeVendedor = dado[0].toString();
             BigDecimal totalAtual = (BigDecimal) dado[1];
+            BigDecimal totalAnterior = dado[2] != null ? (BigDecimal) dado[2] : BigDecimal.ZERO;
             
             vendedor.put("nome", nomeVendedor);
             vendedor.put("total", totalAtual);
             
-            // Calcular anterior (agregado)
-            BigDecimal totalAnterior = BigDecimal.ZERO;
-            String nomeVendedorUpper = nomeVendedor.toUpperCase();
-            
-            if (filiais != null && !filiais.isEmpty()) {
-                for (String f : filiais) {
-                    BigDecimal totalFilial = financeiroClienteRepository.somaVendasPorFiltros(f, nomeVendedorUpper, periodoAnterior[0], periodoAnterior[1]);
-                    if (totalFilial != null) totalAnterior = totalAnterior.add(totalFilial);
-                }
-            } else {
-                totalAnterior = financeiroClienteRepository.somaVendasPorFiltros(null, nomeVendedorUpper, periodoAnterior[0], periodoAnterior[1]);
-            }
-            
             Double variacao = calcularVariacaoPercentual(totalAnterior, totalAtual);
             vendedor.put("variacao", variacao != null ? variacao : 0.0);
             
@@ -431,99 +663,164 @@ public class VendaService {
         return top10;
     }
 
+    /**
+     * Recusa (400) períodos cuja série do gráfico, até hoje, passaria de dashboard.grafico.max-pontos
+     */
+    private void validarSerieGrafico(LocalDate dataInicio, LocalDate dataFim, boolean porMes) {
+        LocalDate fim = fimDaSerie(dataFim);
+        long pontos = porMes ?
+            java.time.temporal.ChronoUnit.MONTHS.between(dataInicio.withDayOfMonth(1), fim.withDayOfMonth(1)) + 1 :
+            java.time.temporal.ChronoUnit.DAYS.between(dataInicio, fim) + 1;
+        if (pontos > maxPontosGrafico) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Período com " + pontos + (porMes ? " meses" : " dias") + " no gráfico; o máximo é " + maxPontosGrafico);
+        }
+    }
+    
+    // A série vai no máximo até hoje: os dias (ou meses) futuros de mes, trimestre e ano não viram barras zeradas
+    private static LocalDate fimDaSerie(LocalDate dataFim) {
+        LocalDate hoje = LocalDate.now();
+        return dataFim.isAfter(hoje) ? hoje : dataFim;
+    }
+    
+    /**
+     * Série do gráfico, até hoje. Em períodos que chegam até hoje, a parte já encerrada (até ontem, ou
+     * até o fim do mês anterior no gráfico por mês) vem dos resultados fechados e só o restante é calculado
+     */
+    private SerieGrafico obterDadosGrafico(List<String> filiais, String vendedor, LocalDate dataInicio,
+                                           LocalDate fimPeriodo, boolean porMes) {
+        LocalDate dataFim = fimDaSerie(fimPeriodo);
+        LocalDate hoje = LocalDate.now();
+        LocalDate inicioAberto = porMes ? hoje.withDayOfMonth(1) : hoje;
+        LocalDate fimFechado = inicioAberto.minusDays(1);
+        if (!dataInicio.isBefore(inicioAberto) || dataFim.isBefore(inicioAberto)
+                || !resultadosFechadosService.atende(dataInicio, fimFechado)) {
+            return porMes ?
+                obterDadosGraficoPorMesMultiplasFiliais(filiais, vendedor, dataInicio, dataFim) :
+                obterDadosGraficoMultiplasFiliais(filiais, vendedor, dataInicio, dataFim);
+        }
+        
+        SerieGrafico fechada = resultadosFechadosService.obter(
+            chave("grafico", porMes ? SerieGrafico.PASSO_MES : SerieGrafico.PASSO_DIA, filiais, vendedor, dataInicio, fimFechado),
+            dataInicio, fimFechado, SerieGrafico.class, () -> porMes ?
+                obterDadosGraficoPorMesMultiplasFiliais(filiais, vendedor, dataInicio, fimFechado) :
+                obterDadosGraficoMultiplasFiliais(filiais, vendedor, dataInicio, fimFechado));
+        SerieGrafico aberta = porMes ?
+            obterDadosGraficoPorMesMultiplasFiliais(filiais, vendedor, inicioAberto, dataFim) :
+            obterDadosGraficoMultiplasFiliais(filiais, vendedor, inicioAberto, dataFim);
+        return fechada.seguidaDe(aberta);
+    }
+    
     // Obter dados gráficos para múltiplas filiais (aggregated)
-    private List<Map<String, Object>> obterDadosGraficoMultiplasFiliais(
+    private SerieGrafico obterDadosGraficoMultiplasFiliais(
             List<String> filiais, String vendedor, LocalDate dataInicio, LocalDate dataFim) {
         
         // Log para debug
         logger.debug("obterDadosGraficoMultiplasFiliais: filiais={}", filiais);
         
-        Map<String, BigDecimal> agregador = new HashMap<>();
+        SerieGrafico.Construtor serie = new SerieGrafico.Construtor(dataInicio, dataFim, false);
+        SnapshotVendas snapshot = snapshotVendasService.obterSnapshot(dataInicio);
         
-        if (filiais != null && !filiais.isEmpty()) {
+        if (snapshot != null) {
+            processarDadosGrafico(snapshot.dadosGraficoVendasPorPeriodo(filiais, vendedor, dataInicio, dataFim), serie);
+        } else if (vendasDiariasService.atende(dataInicio, dataFim)) {
+            processarDadosGrafico((filiais != null && !filiais.isEmpty()) ?
+                vendaDiariaRepository.dadosGraficoVendasPorPeriodo(filiais, vendedor, dataInicio, dataFim) :
+                vendaDiariaRepository.dadosGraficoVendasPorPeriodoTodasFiliais(vendedor, dataInicio, dataFim), serie);
+        } else if (filiais != null && !filiais.isEmpty()) {
             for (String f : filiais) {
                 List<Object[]> dadosRaw = financeiroClienteRepository.dadosGraficoVendasPorPeriodo(f, vendedor, dataInicio, dataFim);
-                processarDadosGrafico(dadosRaw, agregador);
+                processarDadosGrafico(dadosRaw, serie);
             }
         } else {
             List<Object[]> dadosRaw = financeiroClienteRepository.dadosGraficoVendasPorPeriodo(null, vendedor, dataInicio, dataFim);
-            processarDadosGrafico(dadosRaw, agregador);
+            processarDadosGrafico(dadosRaw, serie);
         }
         
-        return converterMapaParaListaAleatoria(agregador);
+        return serie.construir();
     }
 
     // Obter dados gráficos por mês para múltiplas filiais (aggregated)
-    private List<Map<String, Object>> obterDadosGraficoPorMesMultiplasFiliais(
+    private SerieGrafico obterDadosGraficoPorMesMultiplasFiliais(
             List<String> filiais, String vendedor, LocalDate dataInicio, LocalDate dataFim) {
             
-        Map<String, BigDecimal> agregador = new HashMap<>();
-        
-        if (filiais != null && !filiais.isEmpty()) {
+        SerieGrafico.Construtor serie = new SerieGrafico.Construtor(dataInicio, dataFim, true);
+        SnapshotVendas snapshot = snapshotVendasService.obterSnapshot(dataInicio);
+        
+        if (snapshot != null) {
+            processarDadosGrafico(snapshot.dadosGraficoVendasPorMes(filiais, vendedor, dataInicio, dataFim), serie);
+        } else if (vendasDiariasService.atende(dataInicio, dataFim)) {
+            processarDadosGrafico((filiais != null && !filiais.isEmpty()) ?
+                vendaDiariaRepository.dadosGraficoVendasPorMes(filiais, vendedor, dataInicio, dataFim) :
+                vendaDiariaRepository.dadosGraficoVendasPorMesTodasFiliais(vendedor, dataInicio, dataFim), serie);
+        } else if (filiais != null && !filiais.isEmpty()) {
             for (String f : filiais) {
                 List<Object[]> dadosRaw = financeiroClienteRepository.dadosGraficoVendasPorMes(f, vendedor, dataInicio, dataFim);
-                processarDadosGrafico(dadosRaw, agregador);
+                processarDadosGrafico(dadosRaw, serie);
             }
         } else {
             List<Object[]> dadosRaw = financeiroClienteRepository.dadosGraficoVendasPorMes(null, vendedor, dataInicio, dataFim);
-            processarDadosGrafico(dadosRaw, agregador);
+            processarDadosGrafico(dadosRaw, serie);
         }
         
-        return converterMapaParaListaAleatoria(agregador);
+        return serie.construir();
     }
 
-    private void processarDadosGrafico(List<Object[]> dadosRaw, Map<String, BigDecimal> agregador) {
+    // Linhas (data ou início do mês, total) somadas na posição do dia ou mês da série
+    static void processarDadosGrafico(List<Object[]> dadosRaw, SerieGrafico.Construtor serie) {
         for (Object[] dado : dadosRaw) {
-            Object rawData = dado[0];
-            BigDecimal valor = (BigDecimal) dado[1];
-            String dataStr = "";
-            
-            // Mesma lógica de extração de data do método original
-            if (rawData instanceof java.time.LocalDate) {
-                dataStr = ((java.time.LocalDate) rawData).toString();
-            } else if (rawData instanceof java.sql.Date) {
-                dataStr = ((java.sql.Date) rawData).toLocalDate().toString();
-            } else if (rawData instanceof java.sql.Timestamp) {
-                dataStr = ((java.sql.Timestamp) rawData).toLocalDateTime().toLocalDate().toString();
-            } else if (rawData != null) {
-                String rawStr = rawData.toString();
-                if (rawStr.contains("T")) {
-                    dataStr = rawStr.split("T")[0];
-                } else {
-                    dataStr = rawStr.split(" ")[0];
-                }
-            }
-            
-            if (!dataStr.isEmpty()) {
-                agregador.merge(dataStr, valor, BigDecimal::add);
+            if (dado[0] != null && dado[1] != null) {
+                serie.somar(SnapshotVendasService.paraLocalDate(dado[0]), (BigDecimal) dado[1]);
             }
         }
     }
     
-    private List<Map<String, Object>> converterMapaParaListaAleatoria(Map<String, BigDecimal> mapa) {
-        List<Map<String, Object>> resultado = new ArrayList<>();
-        // Ordenar chaves para garantir ordem cronológica no gráfico
-        List<String> datasOrdenadas = new ArrayList<>(mapa.keySet());
-        java.util.Collections.sort(datasOrdenadas);
-        
-        for (String data : datasOrdenadas) {
-            Map<String, Object> ponto = new HashMap<>();
-            ponto.put("data", data);
-            ponto.put("valor", mapa.get(data));
-            resultado.add(ponto);
+    /**
+     * Consolidação em memória das linhas de resumo por filial
+     * (filial, total, numero, maior_venda, cliente_maior_venda, vendedor_maior_venda).
+     * Gravada pelos campos nos resultados fechados.
+     */
+    @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY)
+    private static class ResumoVendas {
+        private BigDecimal total = BigDecimal.ZERO;
+        private long numero = 0L;
+        private BigDecimal maiorVenda = BigDecimal.ZERO;
+        private String clienteMaiorVenda = "";
+        private String vendedorMaiorVenda = "";
+        
+        private void acumular(Object[] linha) {
+            BigDecimal totalFilial = (BigDecimal) linha[1];
+            Number numeroFilial = (Number) linha[2];
+            BigDecimal maiorFilial = (BigDecimal) linha[3];
+            
+            acumularTotais(totalFilial, numeroFilial);
+            
+            if (maiorFilial != null && maiorFilial.compareTo(maiorVenda) > 0) {
+                maiorVenda = maiorFilial;
+                clienteMaiorVenda = linha[4] != null ? (String) linha[4] : "";
+                vendedorMaiorVenda = linha[5] != null ? (String) linha[5] : "";
+            }
+        }
+        
+        private void acumularTotais(BigDecimal totalFilial, Number numeroFilial) {
+            if (totalFilial != null) total = total.add(totalFilial);
+            if (numeroFilial != null) numero += numeroFilial.longValue();
         }
-        return resultado;
     }
     
     public List<String> obterFiliais() {
-        return financeiroClienteRepository.findDistinctFiliais();
+        CatalogoDimensoes catalogo = catalogoDimensoesService.obterCatalogo();
+        return catalogo != null ? catalogo.getFiliais() : financeiroClienteRepository.findDistinctFiliais();
     }
     
     public List<String> obterVendedores() {
-        return financeiroClienteRepository.findDistinctVendedores();
+        CatalogoDimensoes catalogo = catalogoDimensoesService.obterCatalogo();
+        return catalogo != null ? catalogo.getVendedores() : financeiroClienteRepository.findDistinctVendedores();
     }
     
     public List<String> obterVendedoresPorUnidade(String filial) {
-        return financeiroClienteRepository.findDistinctVendedoresByFilial(filial);
+        CatalogoDimensoes catalogo = catalogoDimensoesService.obterCatalogo();
+        return catalogo != null ? catalogo.getVendedoresPorFilial(filial) :
+            financeiroClienteRepository.findDistinctVendedoresByFilial(filial);
     }
 }
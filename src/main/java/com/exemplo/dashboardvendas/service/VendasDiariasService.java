@@ -0,0 +1,237 @@
+package com.exemplo.dashboardvendas.service;
+
+import com.exemplo.dashboardvendas.repository.FinanceiroClienteRepository;
+import com.exemplo.dashboardvendas.repository.FinanceiroPagamentoRepository;
+import com.exemplo.dashboardvendas.repository.VendaDiariaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mantém a tabela vendas_diarias (total, quantidade e maior venda paga por dia, filial e vendedor)
+ * e decide quando o VendaService pode usá-la no lugar das vendas individuais.
+ *
+ * A cada execução recalcula apenas os dias tocados por vendas ou pagamentos acima das marcas d'água,
+ * gravadas em vendas_diarias_controle junto com os dias recalculados. A reconstrução completa,
+ * agendada para a madrugada, absorve exclusões e vendas que mudaram de data.
+ *
+ * As marcas são MAX(id) e MAX(data_cadastro), que podem passar de uma transação ainda não confirmada;
+ * por isso os dias tocados numa janela abaixo delas (dashboard.rollup.releitura-ids e releitura-s)
+ * também são recalculados, e só contam como alterados os dias cuja assinatura mudou.
+ *
+ * Os dias recalculados (e os que a reconstrução mudou) são repassados ao ResultadosFechadosService,
+ * que descarta os resultados guardados desses dias.
+ */
+@Service
+public class VendasDiariasService {
+    private static final Logger logger = LoggerFactory.getLogger(VendasDiariasService.class);
+
+    private static final LocalDateTime SEM_DATA_CADASTRO = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    // Limite de dias por DELETE/INSERT, para não montar listas IN enormes na primeira atualização
+    private static final int DIAS_POR_LOTE = 500;
+
+    @Autowired
+    private VendaDiariaRepository vendaDiariaRepository;
+
+    @Autowired
+    private FinanceiroClienteRepository financeiroClienteRepository;
+
+    @Autowired
+    private FinanceiroPagamentoRepository financeiroPagamentoRepository;
+
+    @Autowired
+    private ResultadosFechadosService resultadosFechadosService;
+
+    @Value("${dashboard.rollup.enabled:true}")
+    private boolean habilitado;
+
+    // Períodos com pelo menos esta quantidade de dias são respondidos pelo consolidado
+    @Value("${dashboard.rollup.min-dias:45}")
+    private long minDias;
+
+    // Janela abaixo das marcas cujos dias são recalculados de novo a cada execução
+    @Value("${dashboard.rollup.releitura-ids:1000}")
+    private long releituraIds;
+
+    @Value("${dashboard.rollup.releitura-s:300}")
+    private long releituraSegundos;
+
+    private final TransactionTemplate transacao;
+
+    // Só passa a ser usado depois de uma atualização bem-sucedida nesta execução da aplicação
+    private volatile boolean pronto;
+
+    // Incrementada a cada atualização que altera vendas_diarias
+    private final AtomicLong versao = new AtomicLong();
+
+    public VendasDiariasService(PlatformTransactionManager transactionManager) {
+        this.transacao = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Indica se o período deve ser consultado no consolidado diário
+     */
+    public boolean atende(LocalDate dataInicio, LocalDate dataFim) {
+        return habilitado && pronto && ChronoUnit.DAYS.between(dataInicio, dataFim) + 1 >= minDias;
+    }
+
+    /**
+     * Versão do consolidado nesta execução da aplicação; muda a cada reconstrução ou dia recalculado
+     */
+    public long getVersao() {
+        return versao.get();
+    }
+
+    @Scheduled(initialDelayString = "${dashboard.rollup.atraso-inicial-ms:30000}",
+               fixedDelayString = "${dashboard.rollup.intervalo-ms:30000}")
+    public synchronized void atualizar() {
+        if (!habilitado) {
+            return;
+        }
+
+        try {
+            long inicio = System.currentTimeMillis();
+            List<LocalDate> dias = new ArrayList<>();
+            MarcasDados[] marcas = new MarcasDados[1];
+            boolean reconstruido = Boolean.TRUE.equals(transacao.execute(status -> {
+                List<Object[]> controle = vendaDiariaRepository.lerControle();
+                if (controle.isEmpty()) {
+                    dias.addAll(reconstruirNaTransacao(marcas));
+                    return true;
+                }
+                dias.addAll(atualizarNaTransacao(controle.get(0), marcas));
+                return false;
+            }));
+
+            pronto = true;
+            if (reconstruido || !dias.isEmpty()) {
+                versao.incrementAndGet();
+            }
+            resultadosFechadosService.consolidadoAtualizado(marcas[0], dias);
+            if (reconstruido) {
+                logger.info("Consolidado diário reconstruído em {} ms", System.currentTimeMillis() - inicio);
+            } else if (!dias.isEmpty()) {
+                logger.debug("Consolidado diário: {} dia(s) recalculado(s) em {} ms",
+                    dias.size(), System.currentTimeMillis() - inicio);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Falha ao atualizar consolidado diário de vendas", e);
+        }
+    }
+
+    @Scheduled(cron = "${dashboard.rollup.cron-reconstrucao:0 30 3 * * *}")
+    public synchronized void reconstruir() {
+        if (!habilitado) {
+            return;
+        }
+
+        try {
+            long inicio = System.currentTimeMillis();
+            MarcasDados[] marcas = new MarcasDados[1];
+            List<LocalDate> dias = transacao.execute(status -> reconstruirNaTransacao(marcas));
+            pronto = true;
+            versao.incrementAndGet();
+            resultadosFechadosService.consolidadoAtualizado(marcas[0], dias);
+            logger.info("Consolidado diário reconstruído em {} ms ({} dia(s) alterado(s))",
+                System.currentTimeMillis() - inicio, dias.size());
+        } catch (RuntimeException e) {
+            logger.error("Falha ao reconstruir consolidado diário de vendas", e);
+        }
+    }
+
+    // Devolve os dias cujo conteúdo mudou com a reconstrução; as marcas gravadas vão em marcas[0]
+    private List<LocalDate> reconstruirNaTransacao(MarcasDados[] marcas) {
+        // Marcas lidas antes do recálculo: o que entrar durante ele é recalculado de novo na próxima execução
+        Long ultimoClienteId = financeiroClienteRepository.ultimoId();
+        LocalDateTime ultimaDataCadastro = financeiroClienteRepository.ultimaDataCadastro();
+        Long ultimoPagamentoId = financeiroPagamentoRepository.ultimoId();
+
+        Map<LocalDate, String> antes = assinaturas(vendaDiariaRepository.assinaturasPorDia());
+        // DELETE em vez de TRUNCATE para não bloquear as leituras durante a reconstrução
+        vendaDiariaRepository.removerTodos();
+        vendaDiariaRepository.recalcularTodos();
+        marcas[0] = new MarcasDados(ultimoClienteId,
+            ultimaDataCadastro != null ? ultimaDataCadastro : SEM_DATA_CADASTRO, ultimoPagamentoId);
+        vendaDiariaRepository.gravarControle(ultimoClienteId,
+            ultimaDataCadastro != null ? ultimaDataCadastro : SEM_DATA_CADASTRO, ultimoPagamentoId);
+
+        Map<LocalDate, String> depois = assinaturas(vendaDiariaRepository.assinaturasPorDia());
+        return new ArrayList<>(diasAlterados(antes, depois));
+    }
+
+    private static Map<LocalDate, String> assinaturas(List<Object[]> linhas) {
+        Map<LocalDate, String> assinaturas = new HashMap<>();
+        for (Object[] linha : linhas) {
+            assinaturas.put(SnapshotVendasService.paraLocalDate(linha[0]), (String) linha[1]);
+        }
+        return assinaturas;
+    }
+
+    // Dias com assinatura diferente, incluindo os que passaram a ter ou deixaram de ter vendas
+    private static TreeSet<LocalDate> diasAlterados(Map<LocalDate, String> antes, Map<LocalDate, String> depois) {
+        TreeSet<LocalDate> alterados = new TreeSet<>();
+        for (Map.Entry<LocalDate, String> dia : depois.entrySet()) {
+            if (!dia.getValue().equals(antes.remove(dia.getKey()))) {
+                alterados.add(dia.getKey());
+            }
+        }
+        alterados.addAll(antes.keySet());
+        return alterados;
+    }
+
+    // Devolve os dias cujo conteúdo mudou; as marcas confirmadas no controle vão em marcas[0]
+    private List<LocalDate> atualizarNaTransacao(Object[] controle, MarcasDados[] marcas) {
+        Long marcaCliente = ((Number) controle[0]).longValue();
+        LocalDateTime marcaCadastro = SnapshotVendasService.paraLocalDateTime(controle[1]);
+        Long marcaPagamento = ((Number) controle[2]).longValue();
+
+        Long ultimoClienteId = financeiroClienteRepository.ultimoId();
+        LocalDateTime ultimaDataCadastro = financeiroClienteRepository.ultimaDataCadastro();
+        Long ultimoPagamentoId = financeiroPagamentoRepository.ultimoId();
+
+        TreeSet<LocalDate> dias = new TreeSet<>();
+        for (Object dia : vendaDiariaRepository.diasAlterados(marcaCliente - releituraIds,
+                marcaCadastro.minusSeconds(releituraSegundos), marcaPagamento - releituraIds)) {
+            if (dia != null) {
+                dias.add(SnapshotVendasService.paraLocalDate(dia));
+            }
+        }
+        if (dias.isEmpty()) {
+            // Nada na janela nem acima das marcas gravadas: continuam valendo
+            marcas[0] = new MarcasDados(marcaCliente, marcaCadastro, marcaPagamento);
+            return List.of();
+        }
+
+        List<LocalDate> todos = new ArrayList<>(dias);
+        TreeSet<LocalDate> alterados = new TreeSet<>();
+        for (int i = 0; i < todos.size(); i += DIAS_POR_LOTE) {
+            List<LocalDate> lote = todos.subList(i, Math.min(i + DIAS_POR_LOTE, todos.size()));
+            Map<LocalDate, String> antes = assinaturas(vendaDiariaRepository.assinaturasDosDias(lote));
+            vendaDiariaRepository.removerDias(lote);
+            vendaDiariaRepository.recalcularDias(lote);
+            alterados.addAll(diasAlterados(antes, assinaturas(vendaDiariaRepository.assinaturasDosDias(lote))));
+        }
+        marcas[0] = new MarcasDados(ultimoClienteId,
+            ultimaDataCadastro != null ? ultimaDataCadastro : marcaCadastro, ultimoPagamentoId);
+        vendaDiariaRepository.gravarControle(ultimoClienteId,
+            ultimaDataCadastro != null ? ultimaDataCadastro : marcaCadastro, ultimoPagamentoId);
+        // Os dias relidos sem mudança não invalidam nada
+        return new ArrayList<>(alterados);
+    }
+}
@@ -0,0 +1,212 @@
+package com.exemplo.dashboardvendas.service;
+
+import com.exemplo.dashboardvendas.repository.FinanceiroClienteRepository;
+import com.exemplo.dashboardvendas.repository.FinanceiroPagamentoRepository;
+import com.exemplo.dashboardvendas.repository.VendaDiariaRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Na inicialização, roda EXPLAIN em cada consulta nativa de leitura dos repositórios do dashboard,
+ * com valores de exemplo no lugar dos parâmetros, e avisa quando o plano faz Seq Scan nas
+ * tabelas grandes. As consultas não são executadas.
+ */
+@Service
+public class VerificacaoPlanosService {
+    private static final Logger logger = LoggerFactory.getLogger(VerificacaoPlanosService.class);
+
+    private static final List<Class<?>> REPOSITORIOS = List.of(
+        FinanceiroClienteRepository.class, FinanceiroPagamentoRepository.class, VendaDiariaRepository.class);
+
+    // Tabelas em que um Seq Scan indica índice faltando (as demais são pequenas)
+    private static final Set<String> TABELAS_VERIFICADAS = Set.of(
+        "financeiro_clientes", "financeiro_pagamentos", "vendas_diarias");
+
+    // :nome, sem confundir com casts ::tipo
+    private static final Pattern PARAMETRO = Pattern.compile("(?<!:):([A-Za-z]\\w*)");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${dashboard.verificacao-planos.enabled:true}")
+    private boolean habilitado;
+
+    // Consultas (Repositorio.metodo) que leem a tabela inteira por definição, como as cargas completas
+    @Value("${dashboard.verificacao-planos.ignorar:FinanceiroClienteRepository.carregarVendasDesde,FinanceiroPagamentoRepository.clientesComPagamento,FinanceiroClienteRepository.paresFilialVendedor,VendaDiariaRepository.assinaturasPorDia}")
+    private Set<String> ignorar;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verificar() {
+        if (!habilitado) {
+            return;
+        }
+
+        Map<String, Object> exemplos;
+        try {
+            exemplos = valoresDeExemplo();
+        } catch (RuntimeException e) {
+            logger.warn("Verificação de planos não executada: {}", e.getMessage());
+            return;
+        }
+
+        int verificadas = 0;
+        List<String> comSeqScan = new ArrayList<>();
+        for (Class<?> repositorio : REPOSITORIOS) {
+            for (Method metodo : repositorio.getDeclaredMethods()) {
+                Query query = metodo.getAnnotation(Query.class);
+                if (query == null || !query.nativeQuery() || metodo.isAnnotationPresent(Modifying.class)) {
+                    continue;
+                }
+
+                String nome = repositorio.getSimpleName() + "." + metodo.getName();
+                try {
+                    Set<String> tabelas = tabelasComSeqScan(explicar(query.value(), metodo, exemplos));
+                    verificadas++;
+                    if (tabelas.isEmpty()) {
+                        logger.debug("Plano de {} sem Seq Scan", nome);
+                    } else if (ignorar.contains(nome)) {
+                        logger.info("Plano de {} faz Seq Scan em {} (esperado)", nome, tabelas);
+                    } else {
+                        comSeqScan.add(nome);
+                        logger.warn("Plano de {} faz Seq Scan em {}", nome, tabelas);
+                    }
+                } catch (RuntimeException e) {
+                    logger.warn("Não foi possível obter o plano de {}: {}", nome, e.getMessage());
+                }
+            }
+        }
+
+        logger.info("Planos verificados: {} consultas, {} com Seq Scan inesperado {}",
+            verificadas, comSeqScan.size(), comSeqScan.isEmpty() ? "" : comSeqScan);
+    }
+
+    private JsonNode explicar(String sql, Method metodo, Map<String, Object> exemplos) {
+        Map<String, Parameter> parametros = new HashMap<>();
+        for (Parameter parametro : metodo.getParameters()) {
+            Param param = parametro.getAnnotation(Param.class);
+            if (param != null) {
+                parametros.put(param.value(), parametro);
+            }
+        }
+
+        Matcher matcher = PARAMETRO.matcher(sql);
+        StringBuilder comValores = new StringBuilder();
+        while (matcher.find()) {
+            String nome = matcher.group(1);
+            matcher.appendReplacement(comValores,
+                Matcher.quoteReplacement(literal(nome, parametros.get(nome), exemplos)));
+        }
+        matcher.appendTail(comValores);
+
+        String plano = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + comValores, String.class);
+        try {
+            return objectMapper.readTree(plano);
+        } catch (Exception e) {
+            throw new IllegalStateException("Plano em formato inesperado", e);
+        }
+    }
+
+    private String literal(String nome, Parameter parametro, Map<String, Object> exemplos) {
+        if (parametro == null) {
+            throw new IllegalStateException("Parâmetro sem @Param: " + nome);
+        }
+        if (Collection.class.isAssignableFrom(parametro.getType())) {
+            return "(" + literal(nome, tipoElemento(parametro), exemplos) + ")";
+        }
+        return literal(nome, parametro.getType(), exemplos);
+    }
+
+    private String literal(String nome, Class<?> tipo, Map<String, Object> exemplos) {
+        if (LocalDate.class.equals(tipo)) {
+            LocalDate hoje = LocalDate.now();
+            LocalDate data = nome.contains("Fim") ? hoje : hoje.minusDays(30);
+            if (nome.contains("Anterior")) {
+                data = data.minusDays(31);
+            }
+            return "DATE '" + data + "'";
+        }
+        if (LocalDateTime.class.equals(tipo)) {
+            return "TIMESTAMP '" + LocalDateTime.now().minusHours(1).withNano(0).toString().replace('T', ' ') + "'";
+        }
+        if (Long.class.equals(tipo) || long.class.equals(tipo)) {
+            return String.valueOf(exemplos.get(nome.contains("Pagamento") ? "pagamentoId" : "clienteId"));
+        }
+        return texto(exemplos.get(nome.startsWith("filial") ? "filial" : "vendedor"));
+    }
+
+    // Elemento de List<LocalDate>, List<String>...; texto quando o tipo não está declarado
+    private static Class<?> tipoElemento(Parameter parametro) {
+        if (parametro.getParameterizedType() instanceof ParameterizedType generico
+                && generico.getActualTypeArguments()[0] instanceof Class<?> elemento) {
+            return elemento;
+        }
+        return String.class;
+    }
+
+    private static String texto(Object valor) {
+        return "'" + String.valueOf(valor).replace("'", "''") + "'";
+    }
+
+    // Valores reais do banco, para que as estimativas do planejador sejam as de uma requisição comum
+    private Map<String, Object> valoresDeExemplo() {
+        Map<String, Object> exemplos = new HashMap<>();
+        exemplos.put("clienteId", jdbcTemplate.queryForObject(
+            "SELECT GREATEST(COALESCE(MAX(id), 0) - 1000, 0) FROM financeiro_clientes", Long.class));
+        exemplos.put("pagamentoId", jdbcTemplate.queryForObject(
+            "SELECT GREATEST(COALESCE(MAX(id), 0) - 1000, 0) FROM financeiro_pagamentos", Long.class));
+        List<String> filiais = jdbcTemplate.queryForList("SELECT filial FROM financeiro_clientes LIMIT 1", String.class);
+        exemplos.put("filial", filiais.isEmpty() ? "" : filiais.get(0));
+        List<String> vendedores = jdbcTemplate.queryForList(
+            "SELECT UPPER(vendedor) FROM financeiro_clientes WHERE vendedor IS NOT NULL LIMIT 1", String.class);
+        exemplos.put("vendedor", vendedores.isEmpty() ? "" : vendedores.get(0));
+        return exemplos;
+    }
+
+    private static Set<String> tabelasComSeqScan(JsonNode explain) {
+        Set<String> tabelas = new TreeSet<>();
+        coletarSeqScans(explain.path(0).path("Plan"), tabelas);
+        return tabelas;
+    }
+
+    private static void coletarSeqScans(JsonNode no, Set<String> tabelas) {
+        if (no.isMissingNode()) {
+            return;
+        }
+        String tabela = no.path("Relation Name").asText();
+        if ("Seq Scan".equals(no.path("Node Type").asText()) && TABELAS_VERIFICADAS.contains(tabela)) {
+            tabelas.add(tabela);
+        }
+        for (JsonNode filho : no.path("Plans")) {
+            coletarSeqScans(filho, tabelas);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.exemplo.dashboardvendas.service;
+
+import com.exemplo.dashboardvendas.dto.FiltroDashboard;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+/**
+ * Versão dos dados que alimentam o dashboard, para responder 304 em /api/dashboard sem montar a resposta.
+ *
+ * Junta as versões das fontes já mantidas em memória (marcas d'água do snapshot de vendas,
+ * consolidado diário e metas), então consultar a versão não acessa o banco. Cada fonte só troca
+ * de versão depois de publicar os dados novos: um dashboard montado a partir de uma versão tem
+ * dados pelo menos tão novos quanto ela, e no pior caso o cliente recebe uma resposta 200 a mais.
+ *
+ * A data de hoje também entra na versão: o período anterior de mes, ano e semana e o fim da série
+ * do gráfico dependem dela, então a resposta muda na virada do dia mesmo sem dados novos.
+ */
+@Service
+public class VersaoDadosService {
+
+    @Autowired
+    private SnapshotVendasService snapshotVendasService;
+
+    @Autowired
+    private VendasDiariasService vendasDiariasService;
+
+    @Autowired
+    private MetaService metaService;
+
+    /**
+     * Versão atual, ou null quando mudanças não podem ser detectadas (snapshot desabilitado
+     * ou ainda não carregado); nesse caso as respostas saem sem ETag
+     */
+    public String versaoAtual() {
+        String versaoSnapshot = snapshotVendasService.getVersao();
+        if (versaoSnapshot == null) {
+            return null;
+        }
+        return versaoSnapshot + "-" + Long.toString(vendasDiariasService.getVersao(), 36)
+            + "-" + Long.toString(metaService.getVersao(), 36) + "-" + LocalDate.now();
+    }
+
+    /**
+     * ETag fraco de uma resposta: a mesma versão com o mesmo filtro gera dados equivalentes,
+     * não necessariamente o mesmo JSON byte a byte
+     */
+    public static String etag(String versao, FiltroDashboard filtro) {
+        return "W/\"" + versao + "-" + Integer.toHexString(filtro.hashCode()) + "\"";
+    }
+}
@@ -1,26 +1,31 @@
 -- Criação da tabela de metas
 CREATE TABLE IF NOT EXISTS metas (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGSERIAL PRIMARY KEY,
     filial VARCHAR(100) NOT NULL,
-    valor_meta DECIMAL(15, 2) NOT NULL,
+    valor_meta NUMERIC(15, 2) NOT NULL,
     data_inicio DATE NOT NULL,
     data_fim DATE NOT NULL,
     ativa BOOLEAN NOT NULL DEFAULT TRUE,
     descricao VARCHAR(255),
-    UNIQUE KEY uk_meta_filial_periodo (filial, data_inicio, data_fim)
+    CONSTRAINT uk_meta_filial_periodo UNIQUE (filial, data_inicio, data_fim)
 );
 
--- Inserir metas padrão para o período do Closing Day (27/10/2025 a 31/10/2025)
-INSERT INTO metas (filial, valor_meta, data_inicio, data_fim, ativa, descricao) VALUES
-('Jaraguá do Sul', 1000000.00, '2025-10-27', '2025-10-31', TRUE, 'Meta Closing Day Nacional 2025'),
-('Matupá', 1000000.00, '2025-10-27', '2025-10-31', TRUE, 'Meta Closing Day Nacional 2025'),
-('Sorriso', 1000000.00, '2025-10-27', '2025-10-31', TRUE, 'Meta Closing Day Nacional 2025'),
-('Lucas do Rio Verde', 1000000.00, '2025-10-27', '2025-10-31', TRUE, 'Meta Closing Day Nacional 2025'),
-('Sinop', 1000000.00, '2025-10-27', '2025-10-31', TRUE, 'Meta Closing Day Nacional 2025')
-ON DUPLICATE KEY UPDATE 
-    valor_meta = VALUES(valor_meta),
-    ativa = VALUES(ativa),
-    descricao = VALUES(descricao);
+-- Inserir metas padrão para o período do Closing Day (27/10/2025 a 31/10/2025).
+-- Em bancos existentes a tabela metas já vem do MetaController, talvez sem a uk_meta_filial_periodo:
+-- só entram as metas que ainda não existem, sem ON CONFLICT e sem sobrescrever metas editadas ou desativadas
+INSERT INTO metas (filial, valor_meta, data_inicio, data_fim, ativa, descricao)
+SELECT v.filial, v.valor_meta, v.data_inicio, v.data_fim, v.ativa, v.descricao
+FROM (VALUES
+    ('Jaraguá do Sul', 1000000.00, DATE '2025-10-27', DATE '2025-10-31', TRUE, 'Meta Closing Day Nacional 2025'),
+    ('Matupá', 1000000.00, DATE '2025-10-27', DATE '2025-10-31', TRUE, 'Meta Closing Day Nacional 2025'),
+    ('Sorriso', 1000000.00, DATE '2025-10-27', DATE '2025-10-31', TRUE, 'Meta Closing Day Nacional 2025'),
+    ('Lucas do Rio Verde', 1000000.00, DATE '2025-10-27', DATE '2025-10-31', TRUE, 'Meta Closing Day Nacional 2025'),
+    ('Sinop', 1000000.00, DATE '2025-10-27', DATE '2025-10-31', TRUE, 'Meta Closing Day Nacional 2025')
+) AS v (filial, valor_meta, data_inicio, data_fim, ativa, descricao)
+WHERE NOT EXISTS (
+    SELECT 1 FROM metas m
+    WHERE m.filial = v.filial AND m.data_inicio = v.data_inicio AND m.data_fim = v.data_fim
+);
 
 -- Exemplo de como alterar a meta de uma filial específica:
 -- UPDATE metas SET valor_meta = 1500000.00 WHERE filial = 'Jaraguá do Sul' AND data_inicio = '2025-10-27';
@@ -0,0 +1,24 @@
+-- Consolidado diário das vendas pagas por filial e vendedor (vendedor em maiúsculas, '' quando vazio).
+-- Mantido pela aplicação (VendasDiariasService) e usado nos períodos longos do dashboard.
+CREATE TABLE IF NOT EXISTS vendas_diarias (
+    dia DATE NOT NULL,
+    filial VARCHAR(100) NOT NULL,
+    vendedor VARCHAR(255) NOT NULL,
+    vendedor_nome VARCHAR(255),
+    total NUMERIC(15, 2) NOT NULL,
+    quantidade INTEGER NOT NULL,
+    maior_venda NUMERIC(15, 2) NOT NULL,
+    PRIMARY KEY (dia, filial, vendedor)
+);
+
+-- Consultas por período sem filtro de filial
+CREATE INDEX IF NOT EXISTS idx_vendas_diarias_dia ON vendas_diarias (dia);
+
+-- Marcas d'água da última atualização incremental (linha única)
+CREATE TABLE IF NOT EXISTS vendas_diarias_controle (
+    id SMALLINT PRIMARY KEY DEFAULT 1 CHECK (id = 1),
+    ultimo_cliente_id BIGINT NOT NULL,
+    ultima_data_cadastro TIMESTAMP NOT NULL,
+    ultimo_pagamento_id BIGINT NOT NULL,
+    atualizado_em TIMESTAMP NOT NULL
+);
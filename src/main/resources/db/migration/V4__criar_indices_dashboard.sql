@@ -0,0 +1,19 @@
+-- Índices dos caminhos de acesso do dashboard.
+-- CONCURRENTLY não bloqueia as escritas do sistema de vendas durante a criação; o Flyway executa
+-- este script fora de transação porque todos os comandos são CREATE INDEX CONCURRENTLY.
+
+-- Filtro por período e filial; INCLUDE permite somar valor e agrupar por vendedor só com o índice
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_financeiro_clientes_data_filial
+    ON financeiro_clientes (data, filial) INCLUDE (valor_debito, vendedor);
+
+-- Filtro por vendedor, sempre comparado em maiúsculas
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_financeiro_clientes_upper_vendedor
+    ON financeiro_clientes (UPPER(vendedor));
+
+-- Marca d'água data_cadastro das cargas incrementais (snapshot e consolidado diário)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_financeiro_clientes_data_cadastro
+    ON financeiro_clientes (data_cadastro);
+
+-- EXISTS de pagamento por cliente
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_financeiro_pagamentos_cliente_id
+    ON financeiro_pagamentos (cliente_id);
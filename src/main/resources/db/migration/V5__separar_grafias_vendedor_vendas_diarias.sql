@@ -0,0 +1,11 @@
+-- O consolidado passa a ter uma linha por grafia do vendedor ("Ana" e "ana" separados), como o ranking
+-- das consultas diretas e do snapshot; vendedor (em maiúsculas) continua sendo o filtro do dashboard.
+-- As linhas gravadas juntavam as grafias: sem marcas d'água, VendasDiariasService reconstrói a tabela.
+DELETE FROM vendas_diarias;
+DELETE FROM vendas_diarias_controle;
+
+-- Grafia original, '' para vendas sem vendedor
+ALTER TABLE vendas_diarias ALTER COLUMN vendedor_nome SET NOT NULL;
+
+ALTER TABLE vendas_diarias DROP CONSTRAINT vendas_diarias_pkey;
+ALTER TABLE vendas_diarias ADD PRIMARY KEY (dia, filial, vendedor, vendedor_nome);
@@ -19,8 +19,12 @@ let todosVendedores = [];
 let intervaloRotacaoVendedores = null;
 
 // Controle de atualização inteligente
-const INTERVALO_ATUALIZACAO = 15000; // 15 segundos
+const INTERVALO_ATUALIZACAO = 15000; // 15 segundos (apenas no modo polling)
 let ultimosDados = {};
+let eventSource = null; // Conexão SSE com /api/dashboard/stream
+let intervaloPolling = null;
+let falhasStream = 0;
+const MAX_FALHAS_STREAM = 3; // Após 3 erros seguidos sem receber dados, volta ao polling
 
 // Configuração das unidades
 const UNIDADES_CONFIG = {
@@ -64,6 +68,18 @@ const UNIDADES_CONFIG = {
 // Array com IDs das unidades individuais para paginação
 const UNIDADES_INDIVIDUAIS = ['jaragua', 'matupa', 'sorriso', 'lucas', 'sinop', 'novamutum'];
 
+// Conjuntos de filiais acompanhados pela tela (cada um é um evento do stream)
+const GRUPOS_DADOS = {
+    jaragua: UNIDADES_CONFIG.jaragua.filiais,
+    mt: UNIDADES_CONFIG.matoGrosso.filiais,
+    matupa: UNIDADES_CONFIG.matupa.filiais,
+    sorriso: UNIDADES_CONFIG.sorriso.filiais,
+    lucas: UNIDADES_CONFIG.lucas.filiais,
+    sinop: UNIDADES_CONFIG.sinop.filiais,
+    novamutum: UNIDADES_CONFIG.novamutum.filiais,
+    topVendedores: [...UNIDADES_CONFIG.jaragua.filiais, ...UNIDADES_CONFIG.matoGrosso.filiais]
+};
+
 // Função para mostrar página específica
 function mostrarPagina(numeroPagina) {
     const inicio = numeroPagina * UNIDADES_POR_PAGINA;
@@ -110,18 +126,71 @@ document.addEventListener('DOMContentLoaded', async () => {
     document.getElementById('btnFiltrar').addEventListener('click', async () => {
         console.log('Filtrando por período...');
         atualizarPeriodoGlobal();
-        await carregarDados();
+        iniciarAtualizacao();
     });
 
     // Aguardar um pouco para garantir que tudo está pronto
     await new Promise(resolve => setTimeout(resolve, 100));
     
-    await carregarDados();
-    
-    // Atualizar a cada 15 segundos
-    setInterval(carregarDados, INTERVALO_ATUALIZACAO);
+    iniciarAtualizacao();
 });
 
+// Inscreve a tela no stream do servidor para o período atual, com um evento por grupo de filiais.
+// Sem suporte a EventSource, ou se o stream falhar seguidamente, volta ao polling de /api/dashboard/batch
+function iniciarAtualizacao() {
+    pararAtualizacao();
+
+    if (typeof EventSource === 'undefined' || falhasStream >= MAX_FALHAS_STREAM) {
+        carregarDados();
+        intervaloPolling = setInterval(carregarDados, INTERVALO_ATUALIZACAO);
+        return;
+    }
+
+    const params = new URLSearchParams({
+        dataInicio: DATA_INICIO,
+        dataFim: DATA_FIM,
+        tipoPeriodo: 'personalizado'
+    });
+    Object.entries(GRUPOS_DADOS).forEach(([chave, filiais]) => {
+        params.append('grupo', `${chave}:${filiais.join('|')}`);
+    });
+
+    eventSource = new EventSource(`${API_BASE_URL}/dashboard/stream?${params}`);
+
+    Object.entries(GRUPOS_DADOS).forEach(([chave, filiais]) => {
+        eventSource.addEventListener(chave, (evento) => {
+            falhasStream = 0;
+            const dados = JSON.parse(evento.data);
+            if (chave === 'topVendedores') {
+                aplicarTopVendedores(dados.top10Vendedores || []);
+            } else {
+                aplicarDadosUnidade(chave, resumirDadosUnidade(dados, filiais));
+            }
+        });
+    });
+
+    eventSource.onerror = () => {
+        // O EventSource reconecta sozinho (inclusive quando o servidor expira a conexão);
+        // só desiste se o servidor continuar indisponível
+        falhasStream++;
+        if (eventSource.readyState === EventSource.CLOSED || falhasStream >= MAX_FALHAS_STREAM) {
+            console.warn('[SSE] Stream indisponível, voltando ao polling');
+            iniciarAtualizacao();
+        }
+    };
+}
+
+function pararAtualizacao() {
+    if (eventSource) {
+        eventSource.close();
+        eventSource = null;
+    }
+    if (intervaloPolling) {
+        clearInterval(intervaloPolling);
+        intervaloPolling = null;
+    }
+}
+
 function inicializarDatas() {
     const hoje = new Date();
     const primeiroDia = new Date(hoje.getFullYear(), hoje.getMonth(), 1);
@@ -150,84 +219,68 @@ function atualizarPeriodoGlobal() {
     }
 }
 
-// Carregar dados
+// Carregar dados de todos os grupos em uma requisição: o servidor calcula os grupos do mesmo
+// período juntos, em uma passada pelos dados
 async function carregarDados() {
     console.log('=== Iniciando carregamento de dados ===');
     try {
-        // Carregar dados de Jaraguá do Sul
-        const dadosJaragua = await buscarDadosUnidade(['Jaraguá do Sul']);
-        console.log('Dados Jaraguá:', dadosJaragua);
-        
-        // Verificar se os dados mudaram antes de atualizar
-        if (dadosMudaram('jaragua', dadosJaragua)) {
-            atualizarGaugePrincipal('jaragua', dadosJaragua, dadosJaragua.meta);
-            atualizarGaugeUnidade('jaragua', dadosJaragua, dadosJaragua.meta);
-            ultimosDados['jaragua'] = dadosJaragua;
-        }
-        
-        // Carregar dados do Mato Grosso (agregado)
-        const dadosMT = await buscarDadosUnidade(UNIDADES_CONFIG.matoGrosso.filiais);
-        console.log('Dados Mato Grosso:', dadosMT);
-        if (dadosMudaram('mt', dadosMT)) {
-            atualizarGaugePrincipal('mt', dadosMT, dadosMT.meta);
-            ultimosDados['mt'] = dadosMT;
-        }
-        
-        // Carregar dados individuais de cada unidade do MT
-        const dadosMatupa = await buscarDadosUnidade(['Matupá']);
-        if (dadosMudaram('matupa', dadosMatupa)) {
-            atualizarGaugeUnidade('matupa', dadosMatupa, dadosMatupa.meta);
-            ultimosDados['matupa'] = dadosMatupa;
-        }
-        
-        const dadosSorriso = await buscarDadosUnidade(['Sorriso']);
-        if (dadosMudaram('sorriso', dadosSorriso)) {
-            atualizarGaugeUnidade('sorriso', dadosSorriso, dadosSorriso.meta);
-            ultimosDados['sorriso'] = dadosSorriso;
-        }
-        
-        const dadosLucas = await buscarDadosUnidade(['Lucas do Rio Verde']);
-        if (dadosMudaram('lucas', dadosLucas)) {
-            atualizarGaugeUnidade('lucas', dadosLucas, dadosLucas.meta);
-            ultimosDados['lucas'] = dadosLucas;
-        }
+        const grupos = Object.entries(GRUPOS_DADOS);
+        const respostas = await buscarDashboardsLote(grupos.map(([, filiais]) => filiais));
         
-        const dadosSinop = await buscarDadosUnidade(['Sinop']);
-        if (dadosMudaram('sinop', dadosSinop)) {
-            atualizarGaugeUnidade('sinop', dadosSinop, dadosSinop.meta);
-            ultimosDados['sinop'] = dadosSinop;
-        }
-        
-        const dadosNovaMutum = await buscarDadosUnidade(['Nova Mutum']);
-        if (dadosMudaram('novamutum', dadosNovaMutum)) {
-            atualizarGaugeUnidade('novamutum', dadosNovaMutum, dadosNovaMutum.meta);
-            ultimosDados['novamutum'] = dadosNovaMutum;
-        }
-        
-        // Buscar top 10 vendedores de todas as filiais usando o endpoint correto
-        const todasFiliais = ['Jaraguá do Sul', ...UNIDADES_CONFIG.matoGrosso.filiais];
-        const vendedoresData = await buscarTopVendedoresCorreto(todasFiliais);
-        console.log('[CARREGAMENTO] Dados de vendedores recebidos:', vendedoresData);
-        if (dadosMudaram('topVendedores', vendedoresData)) {
-            console.log('[CARREGAMENTO] Dados mudaram, renderizando...');
-            renderizarTopVendedoresGeral(vendedoresData);
-            ultimosDados['topVendedores'] = vendedoresData;
-        } else {
-            console.log('[CARREGAMENTO] Dados não mudaram');
-            // Mesmo que os dados não mudaram, garante que a rotação está ativa
-            console.log('[CARREGAMENTO] Verificando rotação - totalPaginasVendedores:', totalPaginasVendedores, 'intervaloRotacaoVendedores:', intervaloRotacaoVendedores);
-            if (totalPaginasVendedores > 1 && !intervaloRotacaoVendedores) {
-                console.log('[CARREGAMENTO] Reativando rotação...');
-                iniciarRotacaoVendedores();
+        grupos.forEach(([chave, filiais], indice) => {
+            const dados = respostas[indice];
+            if (chave === 'topVendedores') {
+                console.log('[CARREGAMENTO] Dados de vendedores recebidos:', dados.top10Vendedores);
+                aplicarTopVendedores(dados.top10Vendedores || []);
+            } else {
+                const dadosUnidade = resumirDadosUnidade(dados, filiais);
+                console.log(`Dados ${chave}:`, dadosUnidade);
+                aplicarDadosUnidade(chave, dadosUnidade);
             }
-        }
+        });
         
         console.log('=== Todos os dados carregados ===');
     } catch (error) {
+        // Os gauges continuam com os últimos dados recebidos
         console.error('ERRO ao carregar dados:', error);
     }
 }
 
+// Atualizar os gauges de um grupo se os dados mudaram
+function aplicarDadosUnidade(chave, dadosUnidade) {
+    if (!dadosMudaram(chave, dadosUnidade)) {
+        return;
+    }
+    
+    if (chave === 'jaragua') {
+        atualizarGaugePrincipal('jaragua', dadosUnidade, dadosUnidade.meta);
+        atualizarGaugeUnidade('jaragua', dadosUnidade, dadosUnidade.meta);
+    } else if (chave === 'mt') {
+        // Mato Grosso (agregado) só aparece no gauge principal
+        atualizarGaugePrincipal('mt', dadosUnidade, dadosUnidade.meta);
+    } else {
+        atualizarGaugeUnidade(chave, dadosUnidade, dadosUnidade.meta);
+    }
+    ultimosDados[chave] = dadosUnidade;
+}
+
+// Renderizar o ranking geral se mudou
+function aplicarTopVendedores(vendedoresData) {
+    if (dadosMudaram('topVendedores', vendedoresData)) {
+        console.log('[CARREGAMENTO] Dados mudaram, renderizando...');
+        renderizarTopVendedoresGeral(vendedoresData);
+        ultimosDados['topVendedores'] = vendedoresData;
+    } else {
+        console.log('[CARREGAMENTO] Dados não mudaram');
+        // Mesmo que os dados não mudaram, garante que a rotação está ativa
+        console.log('[CARREGAMENTO] Verificando rotação - totalPaginasVendedores:', totalPaginasVendedores, 'intervaloRotacaoVendedores:', intervaloRotacaoVendedores);
+        if (totalPaginasVendedores > 1 && !intervaloRotacaoVendedores) {
+            console.log('[CARREGAMENTO] Reativando rotação...');
+            iniciarRotacaoVendedores();
+        }
+    }
+}
+
 // Verificar se os dados mudaram
 function dadosMudaram(chave, novosDados) {
     if (!ultimosDados[chave]) {
@@ -240,55 +293,50 @@ function dadosMudaram(chave, novosDados) {
     return JSON.stringify(dadosAntigos) !== JSON.stringify(novosDados);
 }
 
-// Buscar dados de uma ou mais unidades
-async function buscarDadosUnidade(filiais) {
-    try {
-        const params = new URLSearchParams({
-            dataInicio: DATA_INICIO,
-            dataFim: DATA_FIM,
-            tipoPeriodo: 'personalizado'
-        });
-        
+// POST em /api/dashboard/batch com um filtro por conjunto de filiais; as respostas vêm na mesma ordem
+async function buscarDashboardsLote(conjuntosFiliais) {
+    const filtros = conjuntosFiliais.map(filiais => ({
+        filial: filiais,
+        dataInicio: DATA_INICIO,
+        dataFim: DATA_FIM,
+        tipoPeriodo: 'personalizado'
+    }));
+    const headers = { 'Content-Type': 'application/json' };
+    const csrfToken = document.querySelector('meta[name="_csrf"]');
+    const csrfHeader = document.querySelector('meta[name="_csrf_header"]');
+    if (csrfToken && csrfHeader) {
+        headers[csrfHeader.content] = csrfToken.content;
+    }
+    
+    const response = await fetch(`${API_BASE_URL}/dashboard/batch`, {
+        method: 'POST',
+        headers,
+        body: JSON.stringify(filtros)
+    });
+    if (!response.ok) {
+        throw new Error(`HTTP error! status: ${response.status}`);
+    }
+    return response.json();
+}
+
+// Extrair da resposta de /api/dashboard o que os gauges de uma unidade usam
+function resumirDadosUnidade(dados, filiais) {
+    // Calcular meta total somando as metas de todas as filiais
+    let metaTotal = 0;
+    if (dados.metas) {
         filiais.forEach(filial => {
-            params.append('filial', filial);
+            metaTotal += dados.metas[filial] || META_PADRAO;
         });
-        
-        const url = `${API_BASE_URL}/dashboard?${params}`;
-        console.log('Buscando:', url);
-        
-        const response = await fetch(url);
-        
-        if (!response.ok) {
-            throw new Error(`HTTP error! status: ${response.status}`);
-        }
-        
-        const dados = await response.json();
-        
-        // Calcular meta total somando as metas de todas as filiais
-        let metaTotal = 0;
-        if (dados.metas) {
-            filiais.forEach(filial => {
-                metaTotal += dados.metas[filial] || META_PADRAO;
-            });
-        } else {
-            metaTotal = META_PADRAO * filiais.length;
-        }
-        
-        return {
-            totalVendas: dados.totalVendas || 0,
-            numeroVendas: dados.numeroVendas || 0,
-            ticketMedio: dados.ticketMedio || 0,
-            meta: metaTotal
-        };
-    } catch (error) {
-        console.error('Erro ao buscar dados:', filiais, error);
-        return {
-            totalVendas: 0,
-            numeroVendas: 0,
-            ticketMedio: 0,
-            meta: META_PADRAO * filiais.length
-        };
+    } else {
+        metaTotal = META_PADRAO * filiais.length;
     }
+    
+    return {
+        totalVendas: dados.totalVendas || 0,
+        numeroVendas: dados.numeroVendas || 0,
+        ticketMedio: dados.ticketMedio || 0,
+        meta: metaTotal
+    };
 }
 
 // Atualizar gauge principal (grandes) - responsivo
@@ -359,32 +407,6 @@ function atualizarGaugeUnidade(id, dados, meta) {
     }
 }
 
-// Buscar top 10 vendedores usando o endpoint correto /api/dashboard
-async function buscarTopVendedoresCorreto(filiais) {
-    try {
-        const params = new URLSearchParams({
-            dataInicio: DATA_INICIO,
-            dataFim: DATA_FIM,
-            tipoPeriodo: 'personalizado'
-        });
-        
-        // Adicionar todas as filiais
-        filiais.forEach(filial => {
-            params.append('filial', filial);
-        });
-        
-        const response = await fetch(`${API_BASE_URL}/dashboard?${params}`);
-        const dados = await response.json();
-        
-        console.log('Top vendedores recebidos:', dados.top10Vendedores);
-        
-        return dados.top10Vendedores || [];
-    } catch (error) {
-        console.error('Erro ao buscar top vendedores:', error);
-        return [];
-    }
-}
-
 // Renderiza o ranking geral de vendedores com paginação
 function renderizarTopVendedoresGeral(vendedores) {
     const chartContainer = document.getElementById('vendedores-chart');
@@ -4,9 +4,15 @@ let vendasAcumuladasChart;
 let topVendedoresChart;
 let autoRefreshInterval;
 const API_BASE_URL = '/api';
-const REFRESH_INTERVAL = 15000; // 15 segundos em milissegundos
+const REFRESH_INTERVAL = 15000; // 15 segundos em milissegundos (apenas no modo polling)
+let eventSource = null; // Conexão SSE com /api/dashboard/stream
+let urlStreamAtual = null;
+let falhasStream = 0;
+const MAX_FALHAS_STREAM = 3; // Após 3 erros seguidos sem receber dados, volta ao polling
 let ultimosDados = null; // Cache dos últimos dados recebidos
 let ultimosFiltros = null; // Cache dos filtros usados na última requisição
+let etagDashboard = null; // ETag da última resposta de /api/dashboard, reenviado em If-None-Match
+let urlEtagDashboard = null; // URL a que o etagDashboard se refere
 
 // Variáveis de paginação do ranking
 let todosVendedores = []; // Todos os vendedores
@@ -345,9 +351,13 @@ async function filtrarDados() {
         console.log('[FETCH] URL:', url);
         console.log('[FETCH] Parâmetros:', Object.fromEntries(params));
         
+        // Mesma URL da última resposta: o servidor responde 304 se os dados não mudaram
+        const headers = (etagDashboard && url === urlEtagDashboard && ultimosDados) ?
+            { 'If-None-Match': etagDashboard } : {};
+        
         let response;
         try {
-            response = await fetch(url);
+            response = await fetch(url, { headers });
         } catch (fetchError) {
             console.error('[FETCH] Erro de rede:', fetchError);
             throw new Error(`Erro de conexão: ${fetchError.message}. Verifique se o servidor está rodando.`);
@@ -356,6 +366,12 @@ async function filtrarDados() {
         console.log('[FETCH] Response status:', response.status);
         console.log('[FETCH] Response ok:', response.ok);
         
+        if (response.status === 304) {
+            console.log('[FETCH] Dados sem alteração (304), mantendo o dashboard atual');
+            iniciarAutoRefresh(params, tipoPeriodo, filtrosAtuais);
+            return;
+        }
+        
         if (!response.ok) {
             const errorText = await response.text();
             console.error('[FETCH] Error response:', errorText);
@@ -363,11 +379,13 @@ async function filtrarDados() {
         }
 
         const dados = await response.json();
+        etagDashboard = response.headers.get('ETag');
+        urlEtagDashboard = url;
         console.log('[FETCH] Dados recebidos:', dados);
         atualizarDashboard(dados, tipoPeriodo, filtrosAtuais);
         
         // Iniciar auto-refresh após carregar dados com sucesso
-        iniciarAutoRefresh();
+        iniciarAutoRefresh(params, tipoPeriodo, filtrosAtuais);
         
     } catch (error) {
         console.error('Erro ao filtrar dados:', error);
@@ -390,8 +408,54 @@ async function filtrarDados() {
     }
 }
 
-// Iniciar auto-refresh dos dados
-function iniciarAutoRefresh() {
+// Iniciar auto-refresh dos dados: o servidor envia os dados por SSE quando mudam;
+// sem suporte a EventSource, ou se o stream falhar seguidamente, volta ao polling
+function iniciarAutoRefresh(params, tipoPeriodo, filtrosAtuais) {
+    if (typeof EventSource === 'undefined' || falhasStream >= MAX_FALHAS_STREAM) {
+        iniciarPolling();
+        return;
+    }
+
+    const url = `${API_BASE_URL}/dashboard/stream?${params}`;
+    if (eventSource && urlStreamAtual === url) {
+        // Já inscrito nestes filtros
+        return;
+    }
+
+    pararAutoRefresh();
+    eventSource = new EventSource(url);
+    urlStreamAtual = url;
+
+    eventSource.addEventListener('dashboard', (evento) => {
+        falhasStream = 0;
+        const dados = JSON.parse(evento.data);
+        console.log('[SSE] Dados recebidos:', dados);
+        atualizarDashboard(dados, tipoPeriodo, filtrosAtuais);
+
+        const refreshStatus = document.getElementById('refresh-status');
+        if (refreshStatus) {
+            const now = new Date();
+            const timeStr = now.toLocaleTimeString('pt-BR', { hour: '2-digit', minute: '2-digit', second: '2-digit' });
+            refreshStatus.textContent = `Última atualização: ${timeStr}`;
+        }
+    });
+
+    eventSource.onerror = () => {
+        // O EventSource reconecta sozinho (inclusive quando o servidor expira a conexão);
+        // só desiste se o servidor continuar indisponível
+        falhasStream++;
+        if (eventSource.readyState === EventSource.CLOSED || falhasStream >= MAX_FALHAS_STREAM) {
+            console.warn('[SSE] Stream indisponível, voltando ao polling');
+            pararAutoRefresh();
+            iniciarPolling();
+        }
+    };
+
+    console.log('Auto-refresh iniciado via SSE:', url);
+}
+
+// Polling periódico de /api/dashboard (modo alternativo ao SSE)
+function iniciarPolling() {
     // Limpar intervalo anterior se existir
     if (autoRefreshInterval) {
         clearInterval(autoRefreshInterval);
@@ -408,6 +472,11 @@ function iniciarAutoRefresh() {
 
 // Parar auto-refresh dos dados
 function pararAutoRefresh() {
+    if (eventSource) {
+        eventSource.close();
+        eventSource = null;
+        urlStreamAtual = null;
+    }
     if (autoRefreshInterval) {
         clearInterval(autoRefreshInterval);
         autoRefreshInterval = null;
@@ -538,8 +607,9 @@ function atualizarDashboard(dados, tipoPeriodo = 'dia', filtrosAtuais = null) {
     // Atualizar gráfico de vendas apenas se mudou
     if (graficoMudou) {
         console.log('[DASHBOARD] Dados do gráfico mudaram, redesenhando...');
-        atualizarGrafico(dados.dadosGrafico || [], tipoPeriodo);
-        atualizarGraficoAcumulado(dados.dadosGrafico || [], tipoPeriodo);
+        const pontosGrafico = expandirSerieGrafico(dados.dadosGrafico);
+        atualizarGrafico(pontosGrafico, tipoPeriodo);
+        atualizarGraficoAcumulado(pontosGrafico, tipoPeriodo);
     }
     
     // Atualizar gráfico de top vendedores apenas se mudou
@@ -564,6 +634,16 @@ function atualizarDashboard(dados, tipoPeriodo = 'dia', filtrosAtuais = null) {
     }
 }
 
+// A série vem em colunas ({inicio, passo, valores}); aqui vira a lista de pontos {data, valor} usada pelos gráficos
+function expandirSerieGrafico(serie) {
+    if (!serie || !serie.inicio || !Array.isArray(serie.valores)) return [];
+    const [ano, mes, dia] = serie.inicio.split('-').map(Number);
+    return serie.valores.map((valor, i) => {
+        const data = serie.passo === 'mes' ? new Date(ano, mes - 1 + i, 1) : new Date(ano, mes - 1, dia + i);
+        return { data: formatarDataInput(data), valor: valor };
+    });
+}
+
 // Atualizar gráfico
 function atualizarGrafico(dadosGrafico, tipoPeriodo = 'dia') {
     const ctx = document.getElementById('vendasChart').getContext('2d');
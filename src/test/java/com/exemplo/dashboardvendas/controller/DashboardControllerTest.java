@@ -0,0 +1,124 @@
+package com.exemplo.dashboardvendas.controller;
+
+import com.exemplo.dashboardvendas.dto.DashboardResponse;
+import com.exemplo.dashboardvendas.dto.FiltroDashboard;
+import com.exemplo.dashboardvendas.service.VendaService;
+import com.exemplo.dashboardvendas.service.VersaoDadosService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardControllerTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2024, 3, 1);
+    private static final LocalDate FIM = LocalDate.of(2024, 3, 31);
+    private static final String VERSAO = "v1-2-3-2024-03-15";
+
+    @Mock
+    private VendaService vendaService;
+
+    @Mock
+    private VersaoDadosService versaoDadosService;
+
+    @InjectMocks
+    private DashboardController controller;
+
+    private MockMvc mockMvc;
+    private String etagAtual;
+
+    @BeforeEach
+    void configurar() {
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        // Mesmo filtro que o controller monta para ?filial=Norte&filial=Centro&vendedor=ana
+        etagAtual = VersaoDadosService.etag(VERSAO,
+            FiltroDashboard.de(List.of("Centro", "Norte"), "ANA", INICIO, FIM, false, "mes"));
+    }
+
+    @Test
+    void mesmaVersaoEFiltroRespondem304SemMontarODashboard() throws Exception {
+        when(versaoDadosService.versaoAtual()).thenReturn(VERSAO);
+
+        mockMvc.perform(requisicao().header(HttpHeaders.IF_NONE_MATCH, etagAtual))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etagAtual));
+        // Lista de ETags, forma forte e "*" também correspondem
+        mockMvc.perform(requisicao().header(HttpHeaders.IF_NONE_MATCH, "W/\"outra\", " + etagAtual.substring(2)))
+            .andExpect(status().isNotModified());
+        mockMvc.perform(requisicao().header(HttpHeaders.IF_NONE_MATCH, "*"))
+            .andExpect(status().isNotModified());
+
+        verify(vendaService, never()).getDadosDashboard(any(), any(), any(), any(), anyBoolean(), any());
+    }
+
+    @Test
+    void versaoNovaMontaEDevolveONovoETag() throws Exception {
+        String novaVersao = "v1-2-3-2024-03-16";
+        when(versaoDadosService.versaoAtual()).thenReturn(novaVersao);
+        DashboardResponse resposta = new DashboardResponse();
+        resposta.setVersaoDados(novaVersao);
+        when(vendaService.getDadosDashboard(any(), eq("ana"), eq(INICIO), eq(FIM), eq(false), eq("mes")))
+            .thenReturn(resposta);
+
+        // O ETag de ontem não vale mais depois da virada do dia
+        mockMvc.perform(requisicao().header(HttpHeaders.IF_NONE_MATCH, etagAtual))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, etagAtual.replace(VERSAO, novaVersao)));
+    }
+
+    @Test
+    void semVersaoRespondeSemETag() throws Exception {
+        when(versaoDadosService.versaoAtual()).thenReturn(null);
+        when(vendaService.getDadosDashboard(any(), anyString(), any(), any(), anyBoolean(), anyString()))
+            .thenReturn(new DashboardResponse());
+
+        mockMvc.perform(requisicao().header(HttpHeaders.IF_NONE_MATCH, "*"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void filtroDiferenteNaoAproveitaOETag() throws Exception {
+        when(versaoDadosService.versaoAtual()).thenReturn(VERSAO);
+        when(vendaService.getDadosDashboard(isNull(), isNull(), eq(INICIO), eq(FIM), eq(false), eq("mes")))
+            .thenReturn(new DashboardResponse());
+
+        mockMvc.perform(get("/api/dashboard")
+                .param("dataInicio", INICIO.toString())
+                .param("dataFim", FIM.toString())
+                .param("tipoPeriodo", "mes")
+                .header(HttpHeaders.IF_NONE_MATCH, etagAtual))
+            .andExpect(status().isOk());
+    }
+
+    private static MockHttpServletRequestBuilder requisicao() {
+        return get("/api/dashboard")
+            .param("filial", "Norte", "Centro")
+            .param("vendedor", "ana")
+            .param("dataInicio", INICIO.toString())
+            .param("dataFim", FIM.toString())
+            .param("tipoPeriodo", "mes");
+    }
+}
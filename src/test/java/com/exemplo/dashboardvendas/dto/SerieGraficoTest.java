@@ -0,0 +1,106 @@
+package com.exemplo.dashboardvendas.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SerieGraficoTest {
+
+    private static final LocalDate MARCO = LocalDate.of(2024, 3, 1);
+
+    @Test
+    void porDiaPreencheComZeroEIgnoraDatasForaDoPeriodo() {
+        SerieGrafico.Construtor construtor = new SerieGrafico.Construtor(MARCO, MARCO.plusDays(4), false);
+        construtor.somar(MARCO, new BigDecimal("10.005"));
+        construtor.somar(MARCO.plusDays(3), new BigDecimal("2.50"));
+        construtor.somar(MARCO.plusDays(3), new BigDecimal("0.25"));
+        construtor.somar(MARCO.minusDays(1), new BigDecimal("99"));
+        construtor.somar(MARCO.plusDays(5), new BigDecimal("99"));
+        SerieGrafico serie = construtor.construir();
+
+        assertEquals(MARCO, serie.getInicio());
+        assertEquals(SerieGrafico.PASSO_DIA, serie.getPasso());
+        assertArrayEquals(new double[]{10.01, 0, 0, 2.75, 0}, serie.getValores());
+    }
+
+    @Test
+    void porMesComecaNoPrimeiroDiaEAtravessaOAno() {
+        SerieGrafico.Construtor construtor =
+            new SerieGrafico.Construtor(LocalDate.of(2023, 11, 20), LocalDate.of(2024, 2, 10), true);
+        construtor.somar(LocalDate.of(2023, 11, 2), new BigDecimal("1.00"));
+        construtor.somar(LocalDate.of(2024, 1, 31), new BigDecimal("3.00"));
+        construtor.somar(LocalDate.of(2024, 2, 29), new BigDecimal("4.00"));
+        construtor.somar(LocalDate.of(2024, 3, 1), new BigDecimal("99"));
+        SerieGrafico serie = construtor.construir();
+
+        assertEquals(LocalDate.of(2023, 11, 1), serie.getInicio());
+        assertEquals(SerieGrafico.PASSO_MES, serie.getPasso());
+        assertArrayEquals(new double[]{1, 0, 3, 4}, serie.getValores());
+    }
+
+    @Test
+    void parteFechadaSeguidaDaAbertaIgualASerieInteira() {
+        Map<LocalDate, BigDecimal> vendas = new TreeMap<>();
+        for (int i = 0; i < 31; i += 2) {
+            vendas.put(MARCO.plusDays(i), BigDecimal.valueOf(100 + i * 7L, 2));
+        }
+        LocalDate fim = MARCO.plusDays(30);
+        SerieGrafico inteira = construir(vendas, MARCO, fim, false);
+
+        // Qualquer dia de corte entre o fechado (até a véspera) e o aberto dá a mesma série
+        for (LocalDate hoje = MARCO.plusDays(1); !hoje.isAfter(fim); hoje = hoje.plusDays(1)) {
+            SerieGrafico emDuasPartes = construir(vendas, MARCO, hoje.minusDays(1), false)
+                .seguidaDe(construir(vendas, hoje, fim, false));
+            assertEquals(inteira.getInicio(), emDuasPartes.getInicio());
+            assertArrayEquals(inteira.getValores(), emDuasPartes.getValores(), "corte em " + hoje);
+        }
+    }
+
+    @Test
+    void porMesOCorteEOPrimeiroDiaDoMesCorrente() {
+        Map<LocalDate, BigDecimal> vendas = Map.of(
+            LocalDate.of(2023, 12, 15), new BigDecimal("5.00"),
+            LocalDate.of(2024, 1, 31), new BigDecimal("7.00"),
+            LocalDate.of(2024, 2, 1), new BigDecimal("11.00"));
+        LocalDate inicio = LocalDate.of(2023, 12, 10);
+        LocalDate hoje = LocalDate.of(2024, 2, 20);
+
+        SerieGrafico emDuasPartes = construir(vendas, inicio, hoje.withDayOfMonth(1).minusDays(1), true)
+            .seguidaDe(construir(vendas, hoje.withDayOfMonth(1), hoje, true));
+
+        assertEquals(LocalDate.of(2023, 12, 1), emDuasPartes.getInicio());
+        assertEquals(SerieGrafico.PASSO_MES, emDuasPartes.getPasso());
+        assertArrayEquals(construir(vendas, inicio, hoje, true).getValores(), emDuasPartes.getValores());
+    }
+
+    @Test
+    void parteFechadaVoltaIgualDoJson() throws Exception {
+        // A parte fechada é gravada em JSON nos resultados fechados e lida de volta antes de emendar
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+        SerieGrafico fechada = new SerieGrafico(MARCO, SerieGrafico.PASSO_DIA, new double[]{1.5, 0, 2.25});
+
+        SerieGrafico lida = mapper.readValue(mapper.writeValueAsBytes(fechada), SerieGrafico.class);
+        SerieGrafico emendada = lida.seguidaDe(new SerieGrafico(MARCO.plusDays(3), SerieGrafico.PASSO_DIA, new double[]{4}));
+
+        assertEquals(MARCO, emendada.getInicio());
+        assertArrayEquals(new double[]{1.5, 0, 2.25, 4}, emendada.getValores());
+    }
+
+    private static SerieGrafico construir(Map<LocalDate, BigDecimal> vendas, LocalDate inicio, LocalDate fim,
+                                          boolean porMes) {
+        SerieGrafico.Construtor construtor = new SerieGrafico.Construtor(inicio, fim, porMes);
+        vendas.forEach((data, valor) -> {
+            if (!data.isBefore(inicio) && !data.isAfter(fim)) {
+                construtor.somar(data, valor);
+            }
+        });
+        return construtor.construir();
+    }
+}
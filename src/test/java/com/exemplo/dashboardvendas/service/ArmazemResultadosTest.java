@@ -0,0 +1,167 @@
+package com.exemplo.dashboardvendas.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArmazemResultadosTest {
+
+    private static final LocalDate JAN = LocalDate.of(2024, 1, 1);
+    private static final int CAPACIDADE = 4096;
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void valoresERemocoesSobrevivemAReabertura() throws IOException {
+        Path caminho = diretorio.resolve("resultados.dat");
+        try (ArmazemResultados armazem = ArmazemResultados.abrir(caminho, CAPACIDADE)) {
+            armazem.gravar("jan", JAN, JAN.plusDays(30), bytes("primeiro"));
+            armazem.gravar("jan", JAN, JAN.plusDays(30), bytes("segundo"));
+            armazem.gravar("fev", JAN.plusDays(31), JAN.plusDays(59), bytes("fevereiro"));
+            armazem.gravar("mar", JAN.plusDays(60), JAN.plusDays(90), bytes("março"));
+            armazem.remover("fev");
+        }
+
+        try (ArmazemResultados armazem = ArmazemResultados.abrir(caminho, CAPACIDADE)) {
+            assertEquals(2, armazem.getQuantidade());
+            assertArrayEquals(bytes("segundo"), armazem.ler("jan"));
+            assertNull(armazem.ler("fev"));
+            assertArrayEquals(bytes("março"), armazem.ler("mar"));
+        }
+    }
+
+    @Test
+    void arquivoDeOutraCapacidadeComecaVazio() throws IOException {
+        Path caminho = diretorio.resolve("resultados.dat");
+        try (ArmazemResultados armazem = ArmazemResultados.abrir(caminho, CAPACIDADE)) {
+            armazem.gravar("jan", JAN, JAN.plusDays(30), bytes("valor"));
+        }
+        try (ArmazemResultados armazem = ArmazemResultados.abrir(caminho, 2 * CAPACIDADE)) {
+            assertEquals(0, armazem.getQuantidade());
+        }
+    }
+
+    @Test
+    void removerDiasTiraSoOsPeriodosQueContemAlgumDia() throws IOException {
+        try (ArmazemResultados armazem = ArmazemResultados.abrir(diretorio.resolve("dias.dat"), CAPACIDADE)) {
+            armazem.gravar("jan", JAN, JAN.plusDays(30), bytes("a"));
+            armazem.gravar("fev", JAN.plusDays(31), JAN.plusDays(59), bytes("b"));
+            armazem.gravar("dia-45", JAN.plusDays(45), JAN.plusDays(45), bytes("c"));
+            armazem.gravar("tri", JAN, JAN.plusDays(90), bytes("d"));
+
+            // Último dia de janeiro e um dia de março: saem "jan" e "tri", fevereiro fica
+            long[] dias = {JAN.plusDays(30).toEpochDay(), JAN.plusDays(70).toEpochDay()};
+            assertEquals(2, armazem.removerDias(dias));
+            assertNull(armazem.ler("jan"));
+            assertNull(armazem.ler("tri"));
+            assertArrayEquals(bytes("b"), armazem.ler("fev"));
+            assertArrayEquals(bytes("c"), armazem.ler("dia-45"));
+
+            assertEquals(0, armazem.removerDias(new long[]{JAN.minusDays(1).toEpochDay()}));
+        }
+    }
+
+    @Test
+    void arquivoCheioCompactaEMantemOsValoresVivos() throws IOException {
+        Path caminho = diretorio.resolve("cheio.dat");
+        byte[][] ultimos = new byte[5][];
+        int maiorUso = 0;
+        boolean compactou = false;
+        try (ArmazemResultados armazem = ArmazemResultados.abrir(caminho, CAPACIDADE)) {
+            // Cinco chaves reescritas 200 vezes: 200 KB de registros num arquivo de 4 KB
+            for (int i = 0; i < 1000; i++) {
+                int chave = i % 5;
+                byte[] valor = bytes(String.format("chave %d versão %04d %s", chave, i, "x".repeat(60)));
+                int usadosAntes = armazem.getBytesUsados();
+                assertTrue(armazem.gravar("chave-" + chave, JAN, JAN.plusDays(chave), valor));
+                compactou |= armazem.getBytesUsados() < usadosAntes;
+                maiorUso = Math.max(maiorUso, armazem.getBytesUsados());
+                ultimos[chave] = valor;
+            }
+            assertTrue(compactou);
+            assertTrue(maiorUso <= CAPACIDADE);
+        }
+
+        try (ArmazemResultados armazem = ArmazemResultados.abrir(caminho, CAPACIDADE)) {
+            assertEquals(5, armazem.getQuantidade());
+            for (int chave = 0; chave < 5; chave++) {
+                assertArrayEquals(ultimos[chave], armazem.ler("chave-" + chave));
+            }
+        }
+    }
+
+    @Test
+    void valorMaiorQueOArquivoNaoEGravado() throws IOException {
+        try (ArmazemResultados armazem = ArmazemResultados.abrir(diretorio.resolve("pequeno.dat"), CAPACIDADE)) {
+            armazem.gravar("pequeno", JAN, JAN, bytes("ok"));
+            assertFalse(armazem.gravar("grande", JAN, JAN, new byte[CAPACIDADE]));
+            assertNull(armazem.ler("grande"));
+        }
+    }
+
+    @Test
+    void registroInterrompidoEIgnoradoNaAbertura() throws IOException {
+        Path caminho = diretorio.resolve("interrompido.dat");
+        int fimCompleto;
+        try (ArmazemResultados armazem = ArmazemResultados.abrir(caminho, CAPACIDADE)) {
+            armazem.gravar("a", JAN, JAN.plusDays(1), bytes("valor a"));
+            armazem.gravar("b", JAN, JAN.plusDays(2), bytes("valor b"));
+            fimCompleto = armazem.getBytesUsados();
+        }
+
+        // Queda no meio da gravação: parte do registro no arquivo, cabeçalho ainda com o fim anterior
+        try (RandomAccessFile arquivo = new RandomAccessFile(caminho.toFile(), "rw")) {
+            arquivo.seek(fimCompleto);
+            arquivo.write(new byte[]{1, 0, 0, 0, 0, 0, 0, 0, 7, 0, 0});
+        }
+        try (ArmazemResultados armazem = ArmazemResultados.abrir(caminho, CAPACIDADE)) {
+            assertEquals(2, armazem.getQuantidade());
+            assertEquals(fimCompleto, armazem.getBytesUsados());
+            armazem.gravar("c", JAN, JAN.plusDays(3), bytes("valor c"));
+        }
+        try (ArmazemResultados armazem = ArmazemResultados.abrir(caminho, CAPACIDADE)) {
+            assertEquals(3, armazem.getQuantidade());
+            assertArrayEquals(bytes("valor c"), armazem.ler("c"));
+        }
+    }
+
+    @Test
+    void tamanhoDeValorAlemDoFimDescartaOUltimoRegistro() throws IOException {
+        Path caminho = diretorio.resolve("ilegivel.dat");
+        int fimPrimeiro;
+        int fimSegundo;
+        try (ArmazemResultados armazem = ArmazemResultados.abrir(caminho, CAPACIDADE)) {
+            armazem.gravar("a", JAN, JAN.plusDays(1), bytes("valor a"));
+            fimPrimeiro = armazem.getBytesUsados();
+            armazem.gravar("b", JAN, JAN.plusDays(2), bytes("valor b"));
+            fimSegundo = armazem.getBytesUsados();
+        }
+
+        // O campo de tamanho do valor de "b" fica logo antes dos bytes do valor
+        try (RandomAccessFile arquivo = new RandomAccessFile(caminho.toFile(), "rw")) {
+            arquivo.seek(fimSegundo - bytes("valor b").length - 4);
+            arquivo.writeInt(1000);
+        }
+        try (ArmazemResultados armazem = ArmazemResultados.abrir(caminho, CAPACIDADE)) {
+            assertEquals(1, armazem.getQuantidade());
+            assertNull(armazem.ler("b"));
+            assertEquals(fimPrimeiro, armazem.getBytesUsados());
+        }
+    }
+
+    private static byte[] bytes(String texto) {
+        return texto.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,104 @@
+package com.exemplo.dashboardvendas.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BitmapPagamentosTest {
+
+    @Test
+    void blocoViraBitmapQuandoPassaDoLimiteDoArray() {
+        // 8 bytes de chave + 2 bytes por id enquanto for array; 8 KB depois da troca
+        BitmapPagamentos poucos = BitmapPagamentos.vazio().comIds(intervalo(0, 100, 1));
+        assertEquals(8 + 200, poucos.getTamanhoBytes());
+
+        BitmapPagamentos noLimite = poucos.comIds(intervalo(100, 4096, 1));
+        assertEquals(4096, noLimite.getCardinalidade());
+        assertEquals(8 + 2 * 4096, noLimite.getTamanhoBytes());
+
+        BitmapPagamentos muitos = noLimite.comIds(intervalo(10000, 15000, 1));
+        assertEquals(9096, muitos.getCardinalidade());
+        assertEquals(8 + 8192, muitos.getTamanhoBytes());
+        assertTrue(muitos.contem(4095));
+        assertFalse(muitos.contem(4096));
+        assertTrue(muitos.contem(14999));
+        assertFalse(muitos.contem(15000));
+    }
+
+    @Test
+    void idsEmBlocosDiferentes() {
+        BitmapPagamentos bitmap = BitmapPagamentos.vazio().comIds(List.of(65535L, 65536L, 1L << 40));
+
+        assertTrue(bitmap.contem(65535));
+        assertTrue(bitmap.contem(65536));
+        assertTrue(bitmap.contem(1L << 40));
+        assertFalse(bitmap.contem(65537));
+        assertFalse(bitmap.contem((1L << 40) + 1));
+        assertFalse(bitmap.contem(0));
+        assertEquals(3, bitmap.getCardinalidade());
+    }
+
+    @Test
+    void comIdsNaoAlteraAVersaoAnterior() {
+        BitmapPagamentos anterior = BitmapPagamentos.vazio().comIds(List.of(1L, 2L));
+        BitmapPagamentos novo = anterior.comIds(List.of(2L, 3L, 3L));
+
+        assertFalse(anterior.contem(3));
+        assertEquals(2, anterior.getCardinalidade());
+        assertTrue(novo.contem(3));
+        assertEquals(3, novo.getCardinalidade());
+
+        // Sem id novo, a mesma instância é devolvida
+        assertSame(novo, novo.comIds(List.of(1L, 3L)));
+    }
+
+    @Test
+    void construtorEComIdsChegamAoMesmoConjunto() {
+        // Um bloco denso (múltiplos de 3 até 200000 passam de 4096 por bloco) e um esparso bem acima
+        List<Long> ids = intervalo(0, 200000, 3);
+        ids.addAll(intervalo(50_000_000, 50_001_000, 7));
+
+        BitmapPagamentos.Construtor construtor = new BitmapPagamentos.Construtor();
+        for (int i = ids.size() - 1; i >= 0; i--) {
+            construtor.adicionar(ids.get(i));
+        }
+        BitmapPagamentos montado = construtor.construir();
+        BitmapPagamentos acrescido = BitmapPagamentos.vazio()
+            .comIds(ids.subList(0, ids.size() / 2))
+            .comIds(ids.subList(ids.size() / 2, ids.size()));
+
+        assertEquals(ids.size(), montado.getCardinalidade());
+        assertEquals(montado.getTamanhoBytes(), acrescido.getTamanhoBytes());
+        for (long id = 0; id < 200010; id++) {
+            assertEquals(id % 3 == 0 && id < 200000, montado.contem(id), "id " + id);
+            assertEquals(montado.contem(id), acrescido.contem(id), "id " + id);
+        }
+        assertTrue(acrescido.contem(50_000_007));
+        assertFalse(acrescido.contem(50_000_008));
+    }
+
+    @Test
+    void idsNegativosSaoIgnorados() {
+        BitmapPagamentos.Construtor construtor = new BitmapPagamentos.Construtor();
+        construtor.adicionar(-5);
+        assertEquals(0, construtor.construir().getCardinalidade());
+
+        BitmapPagamentos bitmap = BitmapPagamentos.vazio().comIds(List.of(-1L, 5L));
+        assertFalse(bitmap.contem(-1));
+        assertEquals(1, bitmap.getCardinalidade());
+    }
+
+    private static List<Long> intervalo(long de, long ate, long passo) {
+        List<Long> ids = new ArrayList<>();
+        for (long id = de; id < ate; id += passo) {
+            ids.add(id);
+        }
+        return ids;
+    }
+}
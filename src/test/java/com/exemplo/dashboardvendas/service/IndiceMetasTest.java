@@ -0,0 +1,125 @@
+package com.exemplo.dashboardvendas.service;
+
+import com.exemplo.dashboardvendas.model.Meta;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndiceMetasTest {
+
+    private static final LocalDate JAN = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void valeAMetaSobrepostaDeInicioMaisRecente() {
+        IndiceMetas indice = IndiceMetas.de(List.of(
+            meta(1, "Centro", JAN, JAN.plusDays(89), "9000"),
+            meta(2, "Centro", JAN.plusDays(31), JAN.plusDays(59), "3000"),
+            meta(3, "Norte", JAN, JAN.plusDays(30), "1000")));
+
+        assertEquals(new BigDecimal("9000"), indice.valorMeta("Centro", JAN.plusDays(10), JAN.plusDays(20)));
+        // O período toca o primeiro dia da meta 2, que começou depois
+        assertEquals(new BigDecimal("3000"), indice.valorMeta("Centro", JAN.plusDays(20), JAN.plusDays(31)));
+        // A meta 2 terminou; a 1, que começou antes e segue aberta, volta a valer
+        assertEquals(new BigDecimal("9000"), indice.valorMeta("Centro", JAN.plusDays(60), JAN.plusDays(70)));
+        assertEquals(new BigDecimal("1000"), indice.valorMeta("Norte", JAN.plusDays(30), JAN.plusDays(40)));
+        assertNull(indice.valorMeta("Norte", JAN.plusDays(31), JAN.plusDays(40)));
+        assertNull(indice.valorMeta("Centro", JAN.minusDays(10), JAN.minusDays(1)));
+        assertNull(indice.valorMeta("Sul", JAN, JAN.plusDays(90)));
+    }
+
+    @Test
+    void mesmoInicioValeAMetaCriadaPorUltimo() {
+        IndiceMetas indice = IndiceMetas.de(List.of(
+            meta(1, "Centro", JAN, JAN.plusDays(30), "100"),
+            meta(2, "Centro", JAN, JAN.plusDays(10), "200")));
+
+        assertEquals(new BigDecimal("200"), indice.valorMeta("Centro", JAN.plusDays(5), JAN.plusDays(5)));
+        assertEquals(new BigDecimal("100"), indice.valorMeta("Centro", JAN.plusDays(20), JAN.plusDays(25)));
+    }
+
+    @Test
+    void metaInativaFicaForaDoIndice() {
+        Meta inativa = meta(1, "Centro", JAN, JAN.plusDays(30), "100");
+        inativa.setAtiva(false);
+        IndiceMetas indice = IndiceMetas.de(List.of(inativa));
+
+        assertEquals(0, indice.getTamanho());
+        assertNull(indice.valorMeta("Centro", JAN, JAN));
+    }
+
+    @Test
+    void alteracaoMoveDesativaESubstitui() {
+        IndiceMetas original = IndiceMetas.de(List.of(
+            meta(1, "Centro", JAN, JAN.plusDays(30), "100"),
+            meta(2, "Norte", JAN, JAN.plusDays(30), "200")));
+
+        // Troca de filial: sai do Centro e entra no Sul
+        IndiceMetas movida = original.comAlteracao(meta(1, "Sul", JAN, JAN.plusDays(30), "150"));
+        assertNull(movida.valorMeta("Centro", JAN, JAN));
+        assertEquals(new BigDecimal("150"), movida.valorMeta("Sul", JAN, JAN));
+        // O índice anterior continua como estava
+        assertEquals(new BigDecimal("100"), original.valorMeta("Centro", JAN, JAN));
+
+        Meta desativada = meta(2, "Norte", JAN, JAN.plusDays(30), "200");
+        desativada.setAtiva(false);
+        IndiceMetas semNorte = movida.comAlteracao(desativada);
+        assertNull(semNorte.valorMeta("Norte", JAN, JAN));
+        assertEquals(1, semNorte.getTamanho());
+
+        IndiceMetas nova = semNorte.comAlteracao(meta(3, "Sul", JAN.plusDays(10), JAN.plusDays(12), "50"));
+        assertEquals(new BigDecimal("50"), nova.valorMeta("Sul", JAN.plusDays(11), JAN.plusDays(11)));
+
+        assertTrue(nova.mesmoConteudo(IndiceMetas.de(List.of(
+            meta(1, "Sul", JAN, JAN.plusDays(30), "150"),
+            meta(3, "Sul", JAN.plusDays(10), JAN.plusDays(12), "50")))));
+        assertFalse(nova.mesmoConteudo(movida));
+    }
+
+    @Test
+    void todosOsPeriodosConferemComARegraDaConsulta() {
+        // Metas aninhadas, encadeadas e com o mesmo início; todos os períodos de até 40 dias são conferidos
+        List<Meta> metas = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            LocalDate inicio = JAN.plusDays((i * 7L) % 120);
+            LocalDate fim = inicio.plusDays((i * 11L) % 45);
+            metas.add(meta(i + 1, i % 3 == 0 ? "Norte" : "Centro", inicio, fim, Integer.toString(1000 + i)));
+        }
+        IndiceMetas indice = IndiceMetas.de(metas);
+
+        for (String filial : List.of("Centro", "Norte")) {
+            for (int inicio = -10; inicio < 180; inicio++) {
+                for (int duracao = 0; duracao <= 40; duracao += 4) {
+                    LocalDate dataInicio = JAN.plusDays(inicio);
+                    LocalDate dataFim = dataInicio.plusDays(duracao);
+                    assertEquals(valorDaConsulta(metas, filial, dataInicio, dataFim),
+                        indice.valorMeta(filial, dataInicio, dataFim), filial + " " + dataInicio + " a " + dataFim);
+                }
+            }
+        }
+    }
+
+    // Filtro de findMetasAtivasPorFilialEPeriodo com ORDER BY data_inicio DESC; no empate vale o maior id
+    private static BigDecimal valorDaConsulta(List<Meta> metas, String filial, LocalDate dataInicio, LocalDate dataFim) {
+        return metas.stream()
+            .filter(meta -> meta.getFilial().equals(filial))
+            .filter(meta -> !meta.getDataInicio().isAfter(dataFim) && !meta.getDataFim().isBefore(dataInicio))
+            .max(Comparator.comparing(Meta::getDataInicio).thenComparing(Meta::getId))
+            .map(Meta::getValorMeta)
+            .orElse(null);
+    }
+
+    private static Meta meta(long id, String filial, LocalDate dataInicio, LocalDate dataFim, String valor) {
+        Meta meta = new Meta(filial, new BigDecimal(valor), dataInicio, dataFim);
+        meta.setId(id);
+        return meta;
+    }
+}
@@ -0,0 +1,136 @@
+package com.exemplo.dashboardvendas.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ResultadosFechadosServiceTest {
+
+    private static final LocalDate INICIO = LocalDate.now().minusMonths(2).withDayOfMonth(1);
+    private static final LocalDate FIM = INICIO.plusDays(9);
+    private static final LocalDateTime CADASTRO = LocalDateTime.of(2024, 1, 1, 12, 0);
+    private static final MarcasDados MARCAS_CONSOLIDADO = new MarcasDados(100, CADASTRO, 50);
+
+    @TempDir
+    Path diretorio;
+
+    private final SnapshotVendasService snapshotVendasService = mock(SnapshotVendasService.class);
+    private final AtomicInteger calculos = new AtomicInteger();
+    private ResultadosFechadosService service;
+
+    @BeforeEach
+    void abrir() {
+        service = new ResultadosFechadosService();
+        ReflectionTestUtils.setField(service, "snapshotVendasService", snapshotVendasService);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "habilitado", true);
+        ReflectionTestUtils.setField(service, "caminhoArquivo", diretorio.resolve("fechados.dat").toString());
+        ReflectionTestUtils.setField(service, "capacidadeMb", 1);
+        ReflectionTestUtils.setField(service, "urlsReplicas", "");
+        service.abrir();
+        service.consolidadoAtualizado(MARCAS_CONSOLIDADO, List.of());
+    }
+
+    @AfterEach
+    void fechar() {
+        service.fechar();
+    }
+
+    @Test
+    void snapshotEmDiaComOConsolidadoGravaOResultado() {
+        snapshotAtendendo(new MarcasDados(100, CADASTRO, 50));
+
+        assertEquals(Map.of("total", 1), obter());
+        assertEquals(Map.of("total", 1), obter());
+        assertEquals(1, calculos.get());
+    }
+
+    @Test
+    void snapshotAtrasadoNaoGrava() {
+        // Uma réplica que ainda não recebeu o pagamento 50, já visto pelo consolidado
+        snapshotAtendendo(new MarcasDados(100, CADASTRO, 49));
+
+        obter();
+        obter();
+        assertEquals(2, calculos.get());
+    }
+
+    @Test
+    void semSnapshotGravaSoQuandoTudoLeDoPrimario() {
+        obter();
+        obter();
+        assertEquals(1, calculos.get());
+
+        ReflectionTestUtils.setField(service, "urlsReplicas", "jdbc:postgresql://replica:5432/vendas");
+        obter("outra");
+        obter("outra");
+        assertEquals(3, calculos.get());
+    }
+
+    @Test
+    void diaAlteradoRemoveOResultadoGravado() {
+        obter();
+        service.consolidadoAtualizado(MARCAS_CONSOLIDADO, List.of(FIM));
+        obter();
+        assertEquals(2, calculos.get());
+
+        // Um dia fora do período não afeta o resultado gravado de novo
+        service.consolidadoAtualizado(MARCAS_CONSOLIDADO, List.of(FIM.plusDays(1)));
+        obter();
+        assertEquals(2, calculos.get());
+    }
+
+    @Test
+    void invalidacaoDuranteOCalculoNaoGrava() {
+        service.obter("chave", INICIO, FIM, Map.class, () -> {
+            calculos.incrementAndGet();
+            service.consolidadoAtualizado(MARCAS_CONSOLIDADO, List.of(INICIO));
+            return Map.of("total", 1);
+        });
+        obter();
+        assertEquals(2, calculos.get());
+    }
+
+    @Test
+    void periodoAbertoSoCalcula() {
+        LocalDate hoje = LocalDate.now();
+        service.obter("hoje", hoje, hoje, Map.class, this::calcular);
+        service.obter("hoje", hoje, hoje, Map.class, this::calcular);
+        assertEquals(2, calculos.get());
+    }
+
+    private void snapshotAtendendo(MarcasDados marcas) {
+        when(snapshotVendasService.getMarcas()).thenReturn(marcas);
+        when(snapshotVendasService.obterSnapshot(any())).thenReturn(new SnapshotVendas.Construtor(INICIO).construir());
+    }
+
+    private Map<?, ?> obter() {
+        return obter("chave");
+    }
+
+    private Map<?, ?> obter(String chave) {
+        return service.obter(chave, INICIO, FIM, Map.class, this::calcular);
+    }
+
+    private Map<?, ?> calcular() {
+        calculos.incrementAndGet();
+        return Map.of("total", 1);
+    }
+}
@@ -0,0 +1,265 @@
+package com.exemplo.dashboardvendas.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotVendasTest {
+
+    private static final LocalDate JANEIRO = LocalDate.of(2024, 1, 1);
+    private static final LocalDate FIM_JANEIRO = LocalDate.of(2024, 1, 31);
+    private static final LocalDate FEVEREIRO = LocalDate.of(2024, 2, 1);
+    private static final LocalDate FIM_FEVEREIRO = LocalDate.of(2024, 2, 29);
+
+    private SnapshotVendas snapshot;
+    private BitmapPagamentos pagos;
+
+    @BeforeEach
+    void carregar() {
+        SnapshotVendas.Construtor construtor = new SnapshotVendas.Construtor(JANEIRO);
+        construtor.adicionar(1, LocalDate.of(2024, 1, 2), new BigDecimal("100.00"), "Centro", "Ana", "Cliente 1", true);
+        construtor.adicionar(2, LocalDate.of(2024, 1, 2), new BigDecimal("50.00"), "Norte", "ana", "Cliente 2", true);
+        construtor.adicionar(3, LocalDate.of(2024, 1, 5), new BigDecimal("300.00"), "Centro", "Bruno", "Cliente 3", false);
+        construtor.adicionar(4, LocalDate.of(2024, 1, 10), new BigDecimal("80.50"), "Centro", "Bruno", "Cliente 4", true);
+        construtor.adicionar(5, LocalDate.of(2024, 2, 3), new BigDecimal("20.00"), "Norte", null, "Cliente 5", true);
+        construtor.adicionar(6, LocalDate.of(2024, 2, 3), new BigDecimal("120.00"), "Centro", "ana", "Cliente 6", true);
+        snapshot = construtor.construir();
+        pagos = BitmapPagamentos.vazio().comIds(List.of(1L, 2L, 4L, 5L, 6L));
+    }
+
+    @Test
+    void resumoPorFilialConsideraSoVendasPagas() {
+        assertEquals(List.of(
+                List.of("Centro", valor("300.50"), 3L, valor("120.00"), "Cliente 6", "ana"),
+                List.of("Norte", valor("70.00"), 2L, valor("50.00"), "Cliente 2", "ana")),
+            linhas(snapshot.resumoVendasPorFilial(null, null, JANEIRO, FIM_FEVEREIRO)));
+
+        assertEquals(List.of(List.of("Norte", valor("50.00"), 1L, valor("50.00"), "Cliente 2", "ana")),
+            linhas(snapshot.resumoVendasPorFilial(List.of("Norte"), null, JANEIRO, FIM_JANEIRO)));
+    }
+
+    @Test
+    void filtroDeVendedorJuntaGrafiasDiferentes() {
+        // O filtro chega em maiúsculas, como no UPPER(vendedor_nome) da consulta
+        assertEquals(List.of(
+                List.of("Centro", valor("220.00"), 2L, valor("120.00"), "Cliente 6", "ana"),
+                List.of("Norte", valor("50.00"), 1L, valor("50.00"), "Cliente 2", "ana")),
+            linhas(snapshot.resumoVendasPorFilial(null, "ANA", JANEIRO, FIM_FEVEREIRO)));
+
+        assertTrue(snapshot.resumoVendasPorFilial(null, "CARLA", JANEIRO, FIM_FEVEREIRO).isEmpty());
+        assertTrue(snapshot.dadosGraficoVendasPorPeriodo(null, "CARLA", JANEIRO, FIM_FEVEREIRO).isEmpty());
+    }
+
+    @Test
+    void graficoAgrupaPorDiaEPorMes() {
+        assertEquals(List.of(
+                List.of(LocalDate.of(2024, 1, 2), valor("150.00")),
+                List.of(LocalDate.of(2024, 1, 10), valor("80.50"))),
+            linhas(snapshot.dadosGraficoVendasPorPeriodo(null, null, JANEIRO, FIM_JANEIRO)));
+
+        assertEquals(List.of(
+                List.of(JANEIRO, valor("230.50")),
+                List.of(FEVEREIRO, valor("140.00"))),
+            linhas(snapshot.dadosGraficoVendasPorMes(null, null, JANEIRO, FIM_FEVEREIRO)));
+    }
+
+    @Test
+    void rankingSomaOPeriodoAnteriorPeloNomeEmMaiusculas() {
+        // "Ana" e "ana" venderam em janeiro; em fevereiro só "ana", que leva o total anterior das duas grafias
+        assertEquals(List.of(List.of("ana", valor("120.00"), valor("150.00"))),
+            linhas(snapshot.topVendedoresComAnterior(null, FEVEREIRO, FIM_FEVEREIRO, JANEIRO, FIM_JANEIRO)));
+
+        assertEquals(List.of(
+                List.of("Ana", valor("100.00")),
+                List.of("Bruno", valor("80.50"))),
+            linhas(snapshot.vendedorQueMaisVendeu("Centro", JANEIRO, FIM_JANEIRO)));
+    }
+
+    @Test
+    void janelaELinhasForaDeOrdem() {
+        assertTrue(snapshot.cobre(JANEIRO));
+        assertFalse(snapshot.cobre(JANEIRO.minusDays(1)));
+
+        SnapshotVendas.Construtor construtor = new SnapshotVendas.Construtor(JANEIRO);
+        construtor.adicionar(1, LocalDate.of(2024, 1, 5), BigDecimal.TEN, "Centro", "Ana", "Cliente 1", true);
+        assertThrows(IllegalArgumentException.class, () ->
+            construtor.adicionar(2, LocalDate.of(2024, 1, 4), BigDecimal.TEN, "Centro", "Ana", "Cliente 2", true));
+    }
+
+    @Test
+    void linhaAlteradaPassaAValerPeloDelta() {
+        SnapshotVendas novo = snapshot.aplicarDelta(List.<Object[]>of(
+            linha(4, LocalDate.of(2024, 2, 3), "90.00", "Norte", "Bruno", true)), List.of(), pagos);
+
+        assertEquals(1, novo.getTamanhoDelta());
+        assertEquals(List.of(
+                List.of("Centro", valor("100.00"), 1L, valor("100.00"), "Cliente 1", "Ana"),
+                List.of("Norte", valor("50.00"), 1L, valor("50.00"), "Cliente 2", "ana")),
+            linhas(novo.resumoVendasPorFilial(null, null, JANEIRO, FIM_JANEIRO)));
+        assertEquals(List.of(List.of(LocalDate.of(2024, 2, 3), valor("230.00"))),
+            linhas(novo.dadosGraficoVendasPorPeriodo(null, null, FEVEREIRO, FIM_FEVEREIRO)));
+    }
+
+    @Test
+    void linhaSemDataOuAntesDaJanelaSaiDoSnapshot() {
+        SnapshotVendas novo = snapshot.aplicarDelta(List.<Object[]>of(
+            linha(1, LocalDate.of(2023, 12, 31), "100.00", "Centro", "Ana", true),
+            linha(2, null, "50.00", "Norte", "ana", true)), List.of(), pagos);
+
+        assertEquals(List.of(
+                List.of("Centro", valor("200.50"), 2L, valor("120.00"), "Cliente 6", "ana"),
+                Arrays.asList("Norte", valor("20.00"), 1L, valor("20.00"), "Cliente 5", null)),
+            linhas(novo.resumoVendasPorFilial(null, null, JANEIRO, FIM_FEVEREIRO)));
+    }
+
+    @Test
+    void pagamentoMarcaLinhasDoBaseEDoDelta() {
+        SnapshotVendas primeiro = snapshot.aplicarDelta(List.<Object[]>of(
+            linha(7, LocalDate.of(2024, 2, 10), "40.00", "Sul", "Carla", false)), List.of(3L), pagos.comIds(List.of(3L)));
+
+        assertEquals(List.of(List.of("Centro", valor("480.50"), 3L, valor("300.00"), "Cliente 3", "Bruno")),
+            linhas(primeiro.resumoVendasPorFilial(List.of("Centro", "Sul"), null, JANEIRO, FIM_JANEIRO)));
+        assertTrue(primeiro.resumoVendasPorFilial(null, "CARLA", JANEIRO, FIM_FEVEREIRO).isEmpty());
+
+        SnapshotVendas segundo = primeiro.aplicarDelta(List.of(), List.of(7L), pagos.comIds(List.of(3L, 7L)));
+        assertEquals(List.of(List.of("Sul", valor("40.00"), 1L, valor("40.00"), "Cliente 7", "Carla")),
+            linhas(segundo.resumoVendasPorFilial(null, "CARLA", JANEIRO, FIM_FEVEREIRO)));
+    }
+
+    @Test
+    void versaoPublicadaNaoMudaComODelta() {
+        List<List<Object>> antes = linhas(snapshot.resumoVendasPorFilial(null, null, JANEIRO, FIM_FEVEREIRO));
+
+        // Linhas do base removida, alterada e paga: só a nova versão enxerga as mudanças
+        SnapshotVendas novo = snapshot.aplicarDelta(List.<Object[]>of(
+                linha(1, LocalDate.of(2023, 12, 1), "100.00", "Centro", "Ana", true),
+                linha(2, LocalDate.of(2024, 1, 2), "75.00", "Norte", "ana", true)),
+            List.of(3L), pagos.comIds(List.of(3L)));
+
+        assertEquals(antes, linhas(snapshot.resumoVendasPorFilial(null, null, JANEIRO, FIM_FEVEREIRO)));
+        assertEquals(List.of(
+                List.of("Centro", valor("500.50"), 3L, valor("300.00"), "Cliente 3", "Bruno"),
+                Arrays.asList("Norte", valor("95.00"), 2L, valor("75.00"), "Cliente 2", "ana")),
+            linhas(novo.resumoVendasPorFilial(null, null, JANEIRO, FIM_FEVEREIRO)));
+    }
+
+    @Test
+    void deltasEmSequenciaConferemComUmaCargaNova() {
+        String[] filiais = {"Centro", "Norte", "Sul"};
+        String[] vendedores = {"Ana", "ana", "Bruno", null};
+        Random aleatorio = new Random(20240101L);
+        Map<Long, Object[]> vendas = new HashMap<>();
+        long proximoId = 1;
+        for (; proximoId <= 300; proximoId++) {
+            vendas.put(proximoId, linhaAleatoria(aleatorio, proximoId, filiais, vendedores));
+        }
+        SnapshotVendas atual = carregarTudo(vendas);
+        BitmapPagamentos bitmap = BitmapPagamentos.vazio();
+        for (Object[] venda : vendas.values()) {
+            if ((Boolean) venda[6]) bitmap = bitmap.comIds(List.of((Long) venda[0]));
+        }
+
+        for (int rodada = 0; rodada < 25; rodada++) {
+            // Cada id é alterado ou pago no máximo uma vez por rodada, como numa leitura do banco
+            Map<Long, Object[]> alteradas = new HashMap<>();
+            List<Long> pagosNaRodada = new ArrayList<>();
+            for (int k = 0; k < 20; k++) {
+                long id = 1 + aleatorio.nextInt((int) proximoId - 1);
+                int operacao = aleatorio.nextInt(4);
+                if (operacao == 0) {
+                    id = proximoId++;
+                }
+                if (alteradas.containsKey(id) || pagosNaRodada.contains(id)) continue;
+
+                if (operacao == 3) {
+                    Object[] venda = vendas.get(id);
+                    if (venda != null && !(Boolean) venda[6]) {
+                        venda[6] = true;
+                        pagosNaRodada.add(id);
+                    }
+                } else if (operacao == 2 && aleatorio.nextBoolean()) {
+                    vendas.remove(id);
+                    alteradas.put(id, linha(id, JANEIRO.minusDays(1 + aleatorio.nextInt(30)), "1.00", "Centro", "Ana", true));
+                } else {
+                    // O estado de pagamento vem do bitmap, não da linha lida
+                    Object[] venda = linhaAleatoria(aleatorio, id, filiais, vendedores);
+                    venda[6] = bitmap.contem(id);
+                    vendas.put(id, venda);
+                    alteradas.put(id, venda.clone());
+                }
+            }
+
+            bitmap = bitmap.comIds(pagosNaRodada);
+            atual = atual.aplicarDelta(new ArrayList<>(alteradas.values()), pagosNaRodada, bitmap);
+            SnapshotVendas recarregado = carregarTudo(vendas);
+
+            assertEquals(porFilial(recarregado.resumoVendasPorFilial(null, null, JANEIRO, FIM_FEVEREIRO)),
+                porFilial(atual.resumoVendasPorFilial(null, null, JANEIRO, FIM_FEVEREIRO)));
+            assertEquals(porFilial(recarregado.resumoVendasPorFilial(List.of("Sul"), "ANA", JANEIRO, FIM_JANEIRO)),
+                porFilial(atual.resumoVendasPorFilial(List.of("Sul"), "ANA", JANEIRO, FIM_JANEIRO)));
+            assertEquals(linhas(recarregado.dadosGraficoVendasPorPeriodo(null, null, JANEIRO, FIM_FEVEREIRO)),
+                linhas(atual.dadosGraficoVendasPorPeriodo(null, null, JANEIRO, FIM_FEVEREIRO)));
+            assertEquals(porFilial(recarregado.topVendedoresComAnterior(null, FEVEREIRO, FIM_FEVEREIRO, JANEIRO, FIM_JANEIRO)),
+                porFilial(atual.topVendedoresComAnterior(null, FEVEREIRO, FIM_FEVEREIRO, JANEIRO, FIM_JANEIRO)));
+        }
+    }
+
+    private static Object[] linha(long id, LocalDate data, String valor, String filial, String vendedor, boolean pago) {
+        return new Object[]{id, data, new BigDecimal(valor), filial, vendedor, "Cliente " + id, pago};
+    }
+
+    private static Object[] linhaAleatoria(Random aleatorio, long id, String[] filiais, String[] vendedores) {
+        return new Object[]{
+            id, JANEIRO.plusDays(aleatorio.nextInt(60)), BigDecimal.valueOf(aleatorio.nextInt(50000), 2),
+            filiais[aleatorio.nextInt(filiais.length)], vendedores[aleatorio.nextInt(vendedores.length)],
+            "Cliente " + id, aleatorio.nextInt(3) > 0
+        };
+    }
+
+    private static SnapshotVendas carregarTudo(Map<Long, Object[]> vendas) {
+        List<Object[]> ordenadas = new ArrayList<>(vendas.values());
+        ordenadas.sort(Comparator.comparing((Object[] v) -> (LocalDate) v[1]).thenComparing(v -> (Long) v[0]));
+        SnapshotVendas.Construtor construtor = new SnapshotVendas.Construtor(JANEIRO);
+        for (Object[] v : ordenadas) {
+            construtor.adicionar((Long) v[0], (LocalDate) v[1], (BigDecimal) v[2], (String) v[3], (String) v[4],
+                (String) v[5], (Boolean) v[6]);
+        }
+        return construtor.construir();
+    }
+
+    // Agrupa pela primeira coluna, já que a ordem dos dicionários depende da ordem de chegada das linhas;
+    // o cliente da maior venda fica de fora porque empates podem escolher linhas diferentes
+    private static Map<Object, List<Object>> porFilial(List<Object[]> resultado) {
+        Map<Object, List<Object>> agrupado = new HashMap<>();
+        for (Object[] linha : resultado) {
+            agrupado.put(linha[0], Arrays.asList(linha).subList(1, Math.min(linha.length, 4)));
+        }
+        return agrupado;
+    }
+
+    private static BigDecimal valor(String texto) {
+        return new BigDecimal(texto);
+    }
+
+    private static List<List<Object>> linhas(List<Object[]> resultado) {
+        List<List<Object>> linhas = new ArrayList<>();
+        for (Object[] linha : resultado) {
+            linhas.add(Arrays.asList(linha));
+        }
+        return linhas;
+    }
+}
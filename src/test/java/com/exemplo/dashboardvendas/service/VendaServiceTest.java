@@ -0,0 +1,78 @@
+package com.exemplo.dashboardvendas.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class VendaServiceTest {
+
+    @Test
+    void periodoPersonalizadoRecuaOMesmoNumeroDeDias() {
+        assertAnterior("2024-03-03", "2024-03-09",
+            VendaService.calcularPeriodoAnterior(data("2024-03-10"), data("2024-03-16"), "dia"));
+        assertAnterior("2024-03-03", "2024-03-09",
+            VendaService.calcularPeriodoAnterior(data("2024-03-10"), data("2024-03-16"), null));
+        // Um dia só: o anterior é a véspera, atravessando o ano
+        assertAnterior("2023-12-31", "2023-12-31",
+            VendaService.calcularPeriodoAnterior(data("2024-01-01"), data("2024-01-01"), "personalizado"));
+    }
+
+    @Test
+    void trimestreRecuaTresMeses() {
+        assertAnterior("2024-04-01", "2024-06-30",
+            VendaService.calcularPeriodoAnterior(data("2024-07-01"), data("2024-09-30"), "trimestre"));
+    }
+
+    @Test
+    void mesEncerradoComparaComOMesmoIntervaloDoMesAnterior() {
+        // Fevereiro de 2024 contra janeiro até o dia 29 (fim menos um mês)
+        assertAnterior("2024-01-01", "2024-01-29",
+            VendaService.calcularPeriodoAnterior(data("2024-02-01"), data("2024-02-29"), "mes"));
+    }
+
+    @Test
+    void mesCorrenteComparaAteODiaDeHojeNoMesAnterior() {
+        LocalDate hoje = LocalDate.now();
+        LocalDate inicio = hoje.withDayOfMonth(1);
+        LocalDate mesAnterior = inicio.minusMonths(1);
+        LocalDate fimAnterior = mesAnterior.withDayOfMonth(Math.min(hoje.getDayOfMonth(), mesAnterior.lengthOfMonth()));
+
+        assertArrayEquals(new LocalDate[]{mesAnterior, fimAnterior},
+            VendaService.calcularPeriodoAnterior(inicio, hoje.with(TemporalAdjusters.lastDayOfMonth()), "mes"));
+    }
+
+    @Test
+    void anoCorrenteComparaAteHojeNoAnoAnterior() {
+        LocalDate hoje = LocalDate.now();
+        LocalDate inicio = hoje.withDayOfYear(1);
+
+        assertArrayEquals(new LocalDate[]{inicio.minusYears(1), hoje.minusYears(1)},
+            VendaService.calcularPeriodoAnterior(inicio, hoje.with(TemporalAdjusters.lastDayOfYear()), "ano"));
+        assertAnterior("2022-01-01", "2022-12-31",
+            VendaService.calcularPeriodoAnterior(data("2023-01-01"), data("2023-12-31"), "ano"));
+    }
+
+    @Test
+    void semanaCorrenteComparaAteHojeNaSemanaAnterior() {
+        LocalDate hoje = LocalDate.now();
+        LocalDate segunda = hoje.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate domingo = segunda.plusDays(6);
+
+        assertArrayEquals(new LocalDate[]{segunda.minusWeeks(1), hoje.minusWeeks(1)},
+            VendaService.calcularPeriodoAnterior(segunda, domingo, "semana"));
+        assertAnterior("2024-03-04", "2024-03-10",
+            VendaService.calcularPeriodoAnterior(data("2024-03-11"), data("2024-03-17"), "semana"));
+    }
+
+    private static LocalDate data(String texto) {
+        return LocalDate.parse(texto);
+    }
+
+    private static void assertAnterior(String inicio, String fim, LocalDate[] anterior) {
+        assertArrayEquals(new LocalDate[]{data(inicio), data(fim)}, anterior);
+    }
+}
@@ -0,0 +1,49 @@
+package com.exemplo.dashboardvendas.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VerificacaoPlanosServiceTest {
+
+    @Test
+    void listasRecebemLiteraisDoTipoDosElementos() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(1000L);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of("Centro"));
+        when(jdbcTemplate.queryForObject(startsWith("EXPLAIN"), eq(String.class)))
+            .thenReturn("[{\"Plan\": {\"Node Type\": \"Result\"}}]");
+
+        VerificacaoPlanosService service = new VerificacaoPlanosService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "habilitado", true);
+        ReflectionTestUtils.setField(service, "ignorar", Set.of());
+        service.verificar();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, atLeastOnce()).queryForObject(sql.capture(), eq(String.class));
+        List<String> planos = sql.getAllValues().stream().filter(texto -> texto.startsWith("EXPLAIN")).toList();
+
+        // List<LocalDate> de assinaturasDosDias e List<String> das filiais
+        String dias = "d.dia IN (DATE '" + LocalDate.now().minusDays(30) + "')";
+        assertTrue(planos.stream().anyMatch(texto -> texto.contains(dias)), "nenhum EXPLAIN com " + dias);
+        assertTrue(planos.stream().anyMatch(texto -> texto.contains("IN ('Centro')")));
+        assertTrue(planos.stream().noneMatch(texto -> texto.contains("IN :") || texto.contains("DATE 'Centro'")));
+    }
+}
@@ -0,0 +1,60 @@
+package com.exemplo.dashboardvendas.service;
+
+import com.exemplo.dashboardvendas.dto.FiltroDashboard;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VersaoDadosServiceTest {
+
+    @Mock
+    private SnapshotVendasService snapshotVendasService;
+
+    @Mock
+    private VendasDiariasService vendasDiariasService;
+
+    @Mock
+    private MetaService metaService;
+
+    @InjectMocks
+    private VersaoDadosService versaoDadosService;
+
+    @Test
+    void versaoJuntaAsFontesEADataDeHoje() {
+        when(snapshotVendasService.getVersao()).thenReturn("lq3.1b.x9.7");
+        when(vendasDiariasService.getVersao()).thenReturn(36L);
+        when(metaService.getVersao()).thenReturn(5L);
+
+        assertEquals("lq3.1b.x9.7-10-5-" + LocalDate.now(), versaoDadosService.versaoAtual());
+    }
+
+    @Test
+    void semSnapshotNaoHaVersao() {
+        when(snapshotVendasService.getVersao()).thenReturn(null);
+
+        assertNull(versaoDadosService.versaoAtual());
+    }
+
+    @Test
+    void etagMudaComAVersaoEComOFiltro() {
+        LocalDate inicio = LocalDate.of(2024, 3, 1);
+        FiltroDashboard filtro = FiltroDashboard.de(List.of("Sul", "Centro"), " ana ", inicio, inicio, false, "dia");
+        FiltroDashboard equivalente = FiltroDashboard.de(List.of("Centro", "Sul", "Sul"), "ANA", inicio, inicio, false, "dia");
+        FiltroDashboard outro = FiltroDashboard.de(List.of("Centro"), "ANA", inicio, inicio, false, "dia");
+
+        assertEquals(VersaoDadosService.etag("a-2024-03-01", filtro), VersaoDadosService.etag("a-2024-03-01", equivalente));
+        assertNotEquals(VersaoDadosService.etag("a-2024-03-01", filtro), VersaoDadosService.etag("a-2024-03-01", outro));
+        assertNotEquals(VersaoDadosService.etag("a-2024-03-01", filtro), VersaoDadosService.etag("a-2024-03-02", filtro));
+    }
+}